@@ -1,14 +1,87 @@
 package lib;
 
+import java.nio.CharBuffer;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 
 public class Utils {
-    
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd@HH:mm:ss");
+
+    // timestamps only change once a second, so the last one is reused
+    private static volatile Timestamp lastTimestamp = new Timestamp(
+        Long.MIN_VALUE, ""
+    );
+
+    /**
+     * @return the local time in a given format:
+     * 
+     *         yyyy-MM-dd@HH:mm:ss 2025-11-03@10:30:25
+     * 
+     *         Within the same second every call returns the same String,
+     *         formatted once.
+     */
     public static String timestamp() {
-        return LocalDateTime.now().format(
-            DateTimeFormatter.ofPattern("yyyy-MM-dd@HH:mm:ss")
-        );
+        return timestamp(System.currentTimeMillis());
+    }
+
+    /**
+     * @param epochMillis - time in milliseconds since the epoch.
+     * @return that time in the format of timestamp(), eg when replaying
+     *         recorded events. Consecutive calls within the same second
+     *         return the same String.
+     */
+    public static String timestamp(long epochMillis) {
+        long second = Math.floorDiv(epochMillis, 1000);
+        Timestamp last = lastTimestamp;
+        if (last.second != second) {
+            last = new Timestamp(
+                second,
+                LocalDateTime.ofInstant(
+                    Instant.ofEpochSecond(second),
+                    ZoneId.systemDefault()
+                ).format(TIMESTAMP_FORMAT)
+            );
+            lastTimestamp = last;
+        }
+        return last.text;
+    }
+
+    /**
+     * Append the current timestamp to a builder without creating objects.
+     * 
+     * @param out - builder receiving the timestamp.
+     * @return out, for chaining.
+     */
+    public static StringBuilder appendTimestamp(StringBuilder out) {
+        return out.append(timestamp());
+    }
+
+    /**
+     * Put the current timestamp into a buffer without creating objects.
+     * 
+     * @param out - buffer receiving the timestamp.
+     * @return out, for chaining.
+     */
+    public static CharBuffer appendTimestamp(CharBuffer out) {
+        return out.put(timestamp());
+    }
+
+    /**
+     * A formatted timestamp and the epoch second it stands for. Immutable,
+     * so threads can share it without locking.
+     */
+    private static class Timestamp {
+        private final long second;
+        private final String text;
+
+        Timestamp(long second, String text) {
+            this.second = second;
+            this.text = text;
+        }
     }
 
 }
\ No newline at end of file
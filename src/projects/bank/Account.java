@@ -3,10 +3,19 @@ package projects.bank;
 
 public abstract class Account {
 
-    private final String accountID;
+    // the ID packed in a long when it fits, see AccountID; accountID is
+    // only kept for IDs that don't, or once getID has decoded a packed one
+    private final long packedID;
+    private String accountID;
+    // shared with the other accounts of the same owner, see NamePool
     private final String accountOwnerName;
-    private double currentBalance;
-    private double newBal;
+    // balances are kept in cents so arithmetic on them is exact
+    private long currentBalance;
+    private long newBal;
+    // changed since the bank last persisted it, see writeAccountsIncremental
+    private boolean dirty = true;
+    // withdrawals of the last 24 hours, only while the type has a limit
+    private WithdrawalWindow withdrawals;
 
     // Phase 1
     /**
@@ -26,6 +35,19 @@ public abstract class Account {
             String accountNumber,
             String name,
             double startingBalance) {
+        this(Money.toCents(startingBalance), accountNumber, name);
+    }
+
+    /**
+     * Create an account from a balance already in cents, exact for any
+     * long. The balance comes first so that an int balance still selects
+     * the dollar constructor.
+     *
+     * @param startingCents - current balance of the account, in cents.
+     * @param accountNumber - unique account identifier.
+     * @param name          - name of the account owner.
+     */
+    Account(long startingCents, String accountNumber, String name) {
         if (accountNumber == null) {
             throw new IllegalArgumentException("account ID cannot be empty.");
         }
@@ -34,20 +56,49 @@ public abstract class Account {
                     "account owner's name cannot be empty.");
         }
 
-        accountID = accountNumber;
-        accountOwnerName = name;
-        currentBalance = startingBalance;
+        packedID = AccountID.pack(accountNumber);
+        if (packedID == AccountID.NOT_PACKED) {
+            accountID = accountNumber;
+        } else {
+            accountID = null;
+        }
+        accountOwnerName = NamePool.OWNERS.intern(name);
+        currentBalance = startingCents;
     }
 
+    /**
+     * A packed ID is decoded on the first call and kept, so later calls
+     * return the same String. Hot paths use getPackedID instead.
+     * 
+     * @return the account ID.
+     */
     public String getID() {
+        if (accountID == null) {
+            accountID = AccountID.unpack(packedID);
+        }
         return accountID;
     }
 
+    /**
+     * @return the ID packed in a long, or AccountID.NOT_PACKED if it does
+     *         not fit in one.
+     */
+    long getPackedID() {
+        return packedID;
+    }
+
     public String getOwner() {
         return accountOwnerName;
     }
 
     public double getCurrentBalance() {
+        return Money.toDouble(currentBalance);
+    }
+
+    /**
+     * @return the current balance in cents, eg 811100 for 8111.00
+     */
+    public long getCurrentBalanceCents() {
         return currentBalance;
     }
 
@@ -72,12 +123,32 @@ public abstract class Account {
         AccountType type = AccountType.valueOf(token[0].toUpperCase());
         String id = token[1];
         String owner = token[2];
-        double balance = Double.parseDouble(token[3]);
+        long balance = Money.parseCents(token[3]);
+        return make(type, id, owner, balance);
+    }
+
+    /**
+     * Create the Account subclass matching an account type.
+     *
+     * @param type         - type of the account.
+     * @param id           - unique account identifier.
+     * @param owner        - name of the account owner.
+     * @param balanceCents - starting balance in cents.
+     *
+     * @return An Account object (either CheckingAccount or SavingsAccount).
+     *
+     * @throws IllegalArgumentException if the type is unknown.
+     */
+    public static Account make(
+            AccountType type,
+            String id,
+            String owner,
+            long balanceCents) {
         if (type == AccountType.CHECKING) {
-            Account chacct = new CheckingAccount(id, owner, balance);
+            Account chacct = new CheckingAccount(balanceCents, id, owner);
             return chacct;
         } else if (type == AccountType.SAVINGS) {
-            Account svacct = new SavingsAccount(id, owner, balance);
+            Account svacct = new SavingsAccount(balanceCents, id, owner);
             return svacct;
         } else {
             throw new IllegalArgumentException("Invalid account type.");
@@ -92,12 +163,27 @@ public abstract class Account {
      */
     @Override
     public String toString() {
-        return String.format(
-                "%s,%s,%s,%.2f", // format double to 2 decimal places
-                getType().name().toLowerCase(),
-                getID(),
-                getOwner(),
-                getCurrentBalance());
+        return appendTo(new StringBuilder(64)).toString();
+    }
+
+    /**
+     * Append this account's CSV line, without a line separator, to out.
+     * Lets writers reuse one builder instead of creating a String per line.
+     *
+     * @param out - builder receiving the line.
+     *
+     * @return out, for chaining.
+     */
+    public StringBuilder appendTo(StringBuilder out) {
+        out.append(getType().label()).append(',');
+        if (accountID == null) {
+            AccountID.appendTo(out, packedID);
+        } else {
+            out.append(accountID);
+        }
+        out.append(',');
+        out.append(getOwner()).append(',');
+        return Money.appendTo(out, currentBalance);
     }
 
     /**
@@ -118,7 +204,17 @@ public abstract class Account {
      * @throws IllegalArgumentException if the amount is negative.
      */
     public void credit(double amount) {
-        newBal = currentBalance + amount;
+        creditCents(Money.toCents(amount));
+    }
+
+    /*
+     * Credits (deposits) the given amount in cents to the account.
+     *
+     * @param cents - The amount to deposit, in cents.
+     */
+    public void creditCents(long cents) {
+        newBal = currentBalance + cents;
+        dirty = true;
     }
 
     /*
@@ -131,8 +227,67 @@ public abstract class Account {
      * 
      */
     public void debit(double amount) {
+        debitCents(Money.toCents(amount));
+    }
+
+    /*
+     * Debits (withdraws) the given amount in cents from the account.
+     *
+     * @param cents - The amount to withdraw, in cents.
+     */
+    public void debitCents(long cents) {
+        debitCents(cents, true);
+    }
+
+    /**
+     * Debit the account, optionally leaving the withdrawal out of the daily
+     * limit.
+     *
+     * @param cents   - The amount to withdraw, in cents.
+     * @param limited - false to leave the withdrawal out of the last 24
+     *                hours, eg when replaying a journal whose records may
+     *                be from an earlier day.
+     */
+    void debitCents(long cents, boolean limited) {
+        newBal = currentBalance - cents;
+        dirty = true;
+        if (limited
+                && DailyLimits.getLimitCents(getType()) != DailyLimits.NO_LIMIT) {
+            if (withdrawals == null) {
+                withdrawals = new WithdrawalWindow();
+            }
+            withdrawals.add(DailyLimits.now(), cents);
+        }
+    }
+
+    /**
+     * @return the cents withdrawn from the account in the last 24 hours
+     *         while its type had a daily limit.
+     */
+    public long getWithdrawnTodayCents() {
+        return withdrawals == null ? 0 : withdrawals.total(DailyLimits.now());
+    }
+
+    /**
+     * @param cents - amount of a withdrawal, in cents.
+     *
+     * @return true if withdrawing cents now keeps the account within the
+     *         daily limit of its type.
+     */
+    public boolean withinDailyLimit(long cents) {
+        long limit = DailyLimits.getLimitCents(getType());
+        return limit == DailyLimits.NO_LIMIT
+                || cents <= limit - getWithdrawnTodayCents();
+    }
 
-        newBal = currentBalance - amount;
+    /**
+     * Add month-end interest to the current balance.
+     *
+     * @param cents - interest earned, in cents.
+     */
+    void accrueCents(long cents) {
+        currentBalance += cents;
+        dirty = true;
     }
 
     /**
@@ -144,6 +299,28 @@ public abstract class Account {
      * @return newBalance = the account's new balance;
      */
     public double setNewBalance() {
+        return Money.toDouble(newBal);
+    }
+
+    /**
+     * @return the account's new balance post-execution, in cents.
+     */
+    public long getNewBalanceCents() {
         return newBal;
     }
+
+    /**
+     * @return true if the account was credited or debited, or never
+     *         written, since the bank last persisted it.
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Mark the account as persisted.
+     */
+    void markClean() {
+        dirty = false;
+    }
 }
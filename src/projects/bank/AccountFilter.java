@@ -0,0 +1,157 @@
+package projects.bank;
+
+/**
+ * Bloom filter over account IDs, answering "certainly absent" or "maybe
+ * present" before the account index is probed.
+ *
+ * The filter is blocked: all the bits of one ID fall in a single 64-bit
+ * word, so a lookup reads one word instead of one per bit. It spends
+ * BITS_PER_KEY bits per ID and sets HASHES bits for each, which gives a
+ * false positive rate below 1% while it holds at most getCapacity() IDs.
+ * IDs cannot be removed; a full filter is replaced by a larger one built
+ * from the IDs again.
+ */
+public class AccountFilter {
+
+    static final int BITS_PER_KEY = 16;
+    static final int HASHES = 6;
+
+    private final long[] words;
+    private final int mask;
+    private int size;
+
+    /**
+     * @param expectedAccounts - number of IDs the filter is sized for.
+     *
+     * @throws IllegalArgumentException if expectedAccounts is negative.
+     */
+    public AccountFilter(int expectedAccounts) {
+        if (expectedAccounts < 0) {
+            throw new IllegalArgumentException(
+                    "expected accounts must not be negative.");
+        }
+        int capacity = 1;
+        while ((long) capacity * 64 < (long) expectedAccounts * BITS_PER_KEY) {
+            capacity *= 2;
+        }
+        words = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Key hashed for an ID: the packed ID when it packs, see AccountID,
+     * else its String hash.
+     *
+     * @param accountID - account ID.
+     *
+     * @return the key.
+     */
+    static long key(String accountID) {
+        long packed = AccountID.pack(accountID);
+        if (packed == AccountID.NOT_PACKED) {
+            return accountID.hashCode();
+        }
+        return packed;
+    }
+
+    /**
+     * Mix a key into 64 bits: the high bits choose the word, the low 36 the
+     * bits within it.
+     */
+    private static long mix(long key) {
+        long z = key * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long bits(long z) {
+        long bits = 0;
+        for (int i = 0; i < HASHES; i++) {
+            bits |= 1L << (z >>> (6 * i)); // shift uses the low 6 bits
+        }
+        return bits;
+    }
+
+    /**
+     * @param accountID - ID to add.
+     */
+    public void add(String accountID) {
+        addKey(key(accountID));
+    }
+
+    /**
+     * @param key - key of the ID to add, see key.
+     */
+    void addKey(long key) {
+        long z = mix(key);
+        words[(int) (z >>> 36) & mask] |= bits(z);
+        size++;
+    }
+
+    /**
+     * @param accountID - ID to look for.
+     *
+     * @return false if the ID was never added, true if it probably was.
+     */
+    public boolean mightContain(String accountID) {
+        return mightContainKey(key(accountID));
+    }
+
+    /**
+     * @param key - key of the ID to look for, see key.
+     *
+     * @return false if the ID was never added, true if it probably was.
+     */
+    boolean mightContainKey(long key) {
+        long z = mix(key);
+        long bits = bits(z);
+        return (words[(int) (z >>> 36) & mask] & bits) == bits;
+    }
+
+    /**
+     * @return the number of IDs added.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of IDs the filter holds at its designed rate.
+     */
+    public int getCapacity() {
+        return words.length * 64 / BITS_PER_KEY;
+    }
+
+    /**
+     * @return true once the filter holds getCapacity() IDs.
+     */
+    public boolean isFull() {
+        return size >= getCapacity();
+    }
+
+    /**
+     * @return the bytes used by the filter's bits.
+     */
+    public long getMemoryBytes() {
+        return words.length * 8L;
+    }
+
+    /**
+     * Expected share of absent IDs reported as maybe present, given the
+     * IDs added so far. Words get a Poisson-distributed number of IDs.
+     *
+     * @return the expected false positive rate, from 0 to 1.
+     */
+    public double getExpectedFalsePositiveRate() {
+        double perWord = (double) size / words.length;
+        double probability = Math.exp(-perWord); // of j IDs in a word
+        double rate = 0;
+        for (int j = 0; j < 200 && (j <= perWord || probability > 1e-12); j++) {
+            double bitSet = 1 - Math.pow(63.0 / 64, (double) HASHES * j);
+            rate += probability * Math.pow(bitSet, HASHES);
+            probability *= perWord / (j + 1);
+        }
+        return rate;
+    }
+}
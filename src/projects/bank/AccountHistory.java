@@ -0,0 +1,418 @@
+package projects.bank;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Per-account history of balances, answering "balance of account X after
+ * transaction N" or "at time T" without re-running the transactions.
+ *
+ * Every executed transaction is recorded under its account with a sequence
+ * number, its time and the resulting balance. The caller gives the number,
+ * eg Bank passes the transaction's number in its feed or journal, so
+ * transactions that were not executed still use up theirs; without one the
+ * next number after the last recorded is used.
+ *
+ * Each account's entries are kept in groups of GROUP_SIZE: the first entry
+ * of a group is a checkpoint holding absolute values, the others are
+ * stored as variable-length deltas from the entry before. A query binary
+ * searches the checkpoints, then replays at most GROUP_SIZE - 1 deltas, so
+ * it takes logarithmic time.
+ *
+ * Checkpoints stay in memory. Once the delta bytes of completed groups pass
+ * spillBytes, they are appended to a spill file and read back from it when
+ * a query needs them. A spill file that cannot be written or read fails
+ * the call with an IllegalStateException, as does any call after close.
+ *
+ * Methods are synchronized, so ParallelProcessor workers can share one
+ * history. Each account's sequence numbers must increase, which holds as
+ * long as each account sees its transactions in order.
+ */
+public class AccountHistory implements AutoCloseable {
+
+    /** Entries per group, one checkpoint and the deltas that follow it. */
+    static final int GROUP_SIZE = 32;
+
+    private final HashMap<String, Timeline> timelines = new HashMap<>();
+    private final long spillBytes;
+    private final File spillFile;
+    private RandomAccessFile spill;
+    private long memoryBytes;
+    private long sequence;
+    private long lastTime = Long.MIN_VALUE;
+    private boolean closed;
+
+    /**
+     * @param spillDirectory - directory for the spill file, or null to keep
+     *                       everything in memory.
+     * @param spillBytes     - delta bytes kept in memory before spilling.
+     *
+     * @throws IOException              if the spill file cannot be created.
+     * @throws IllegalArgumentException if spillBytes is negative.
+     */
+    public AccountHistory(String spillDirectory, long spillBytes)
+            throws IOException {
+        if (spillBytes < 0) {
+            throw new IllegalArgumentException("spillBytes must not be negative.");
+        }
+        this.spillBytes = spillBytes;
+        if (spillDirectory == null) {
+            spillFile = null;
+        } else {
+            spillFile = File.createTempFile(
+                    "history", ".spill", new File(spillDirectory));
+            spillFile.deleteOnExit();
+            spill = new RandomAccessFile(spillFile, "rw");
+        }
+    }
+
+    /**
+     * Record the balance an executed transaction left its account with, at
+     * the current time.
+     *
+     * @param accountID    - account of the transaction.
+     * @param balanceCents - resulting balance in cents.
+     *
+     * @return the sequence number given to the transaction.
+     */
+    public long record(String accountID, long balanceCents) {
+        return record(accountID, System.currentTimeMillis(), balanceCents);
+    }
+
+    /**
+     * Record the balance an executed transaction left its account with,
+     * numbering it after the last recorded transaction.
+     *
+     * @param accountID    - account of the transaction.
+     * @param timeMillis   - time of the transaction in epoch milliseconds.
+     * @param balanceCents - resulting balance in cents.
+     *
+     * @return the sequence number given to the transaction.
+     *
+     * @throws IllegalArgumentException if accountID is null.
+     */
+    public synchronized long record(String accountID, long timeMillis, long balanceCents) {
+        return record(accountID, sequence + 1, timeMillis, balanceCents);
+    }
+
+    /**
+     * Record the balance an executed transaction left its account with,
+     * under the caller's sequence number. Times earlier than a previous
+     * record are moved up to it, so times never go backwards.
+     *
+     * @param accountID    - account of the transaction.
+     * @param sequence     - sequence number of the transaction, above the
+     *                     account's last one.
+     * @param timeMillis   - time of the transaction in epoch milliseconds.
+     * @param balanceCents - resulting balance in cents.
+     *
+     * @return sequence.
+     *
+     * @throws IllegalArgumentException if accountID is null, or sequence
+     *                                  does not increase for the account.
+     * @throws IllegalStateException    if the history is closed or the
+     *                                  spill file cannot be written.
+     */
+    public synchronized long record(
+            String accountID,
+            long sequence,
+            long timeMillis,
+            long balanceCents) {
+        checkOpen();
+        if (accountID == null) {
+            throw new IllegalArgumentException("account ID must not be null.");
+        }
+        Timeline timeline = timelines.get(accountID);
+        if (sequence < 1
+                || (timeline != null && sequence <= timeline.lastSequence)) {
+            throw new IllegalArgumentException(
+                    "sequence must increase for each account.");
+        }
+        lastTime = Math.max(lastTime, timeMillis);
+        this.sequence = Math.max(this.sequence, sequence);
+        if (timeline == null) {
+            timeline = new Timeline();
+            timelines.put(accountID, timeline);
+        }
+        memoryBytes += timeline.add(sequence, lastTime, balanceCents);
+        if (spill != null && memoryBytes > spillBytes) {
+            spillAll();
+        }
+        return sequence;
+    }
+
+    /**
+     * @return the highest sequence number recorded.
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return delta bytes of completed groups still held in memory.
+     */
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    /**
+     * Balance of an account after transaction N.
+     *
+     * @param accountID    - account to look up.
+     * @param sequence     - sequence number N.
+     * @param openingCents - balance to return if the account has no
+     *                     transaction up to N.
+     *
+     * @return the balance in cents after the account's last transaction
+     *         numbered N or less.
+     *
+     * @throws IllegalStateException if the history is closed or the spill
+     *                               file cannot be read.
+     */
+    public synchronized long balanceAfter(String accountID, long sequence, long openingCents) {
+        checkOpen();
+        Timeline timeline = timelines.get(accountID);
+        if (timeline == null) {
+            return openingCents;
+        }
+        return timeline.find(sequence, false, openingCents);
+    }
+
+    /**
+     * Balance of an account at a point in time.
+     *
+     * @param accountID    - account to look up.
+     * @param timeMillis   - time in epoch milliseconds.
+     * @param openingCents - balance to return if the account has no
+     *                     transaction up to that time.
+     *
+     * @return the balance in cents after the account's last transaction at
+     *         or before the time.
+     *
+     * @throws IllegalStateException if the history is closed or the spill
+     *                               file cannot be read.
+     */
+    public synchronized long balanceAt(String accountID, long timeMillis, long openingCents) {
+        checkOpen();
+        Timeline timeline = timelines.get(accountID);
+        if (timeline == null) {
+            return openingCents;
+        }
+        return timeline.find(timeMillis, true, openingCents);
+    }
+
+    /**
+     * Move the delta bytes of every completed group to the spill file.
+     */
+    private void spillAll() {
+        try {
+            spill.seek(spill.length());
+            for (Timeline timeline : timelines.values()) {
+                timeline.spill();
+            }
+            memoryBytes = 0;
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot write history spill.", e);
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("history is closed.");
+        }
+    }
+
+    /**
+     * Close and delete the spill file. Later calls do nothing.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (spill != null) {
+            try {
+                spill.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            spillFile.delete();
+            spill = null;
+        }
+    }
+
+    /**
+     * History of one account: checkpoints in parallel arrays, and the
+     * delta bytes of each group in memory or in the spill file.
+     */
+    private class Timeline {
+        private long[] firstSequence = new long[1];
+        private long[] firstTime = new long[1];
+        private long[] firstBalance = new long[1];
+        private byte[][] deltas = new byte[1][];
+        private long[] spillOffset = new long[1];
+        private int[] deltaLength = new int[1];
+        private int groups;
+        private int spilled; // groups before this one are on disk
+        // the group being filled
+        private byte[] open = new byte[64];
+        private int openLength;
+        private int openCount;
+        private long lastSequence;
+        private long lastTime;
+        private long lastBalance;
+
+        /**
+         * @return delta bytes moved to memory by closing a group.
+         */
+        int add(long sequence, long time, long balance) {
+            int closedBytes = 0;
+            if (openCount == GROUP_SIZE) {
+                deltas[groups - 1] = Arrays.copyOf(open, openLength);
+                deltaLength[groups - 1] = openLength;
+                closedBytes = openLength;
+                openCount = 0;
+            }
+            if (openCount == 0) {
+                if (groups == firstSequence.length) {
+                    int capacity = groups * 2;
+                    firstSequence = Arrays.copyOf(firstSequence, capacity);
+                    firstTime = Arrays.copyOf(firstTime, capacity);
+                    firstBalance = Arrays.copyOf(firstBalance, capacity);
+                    deltas = Arrays.copyOf(deltas, capacity);
+                    spillOffset = Arrays.copyOf(spillOffset, capacity);
+                    deltaLength = Arrays.copyOf(deltaLength, capacity);
+                }
+                firstSequence[groups] = sequence;
+                firstTime[groups] = time;
+                firstBalance[groups] = balance;
+                groups++;
+                openLength = 0;
+            } else {
+                putVarLong(sequence - lastSequence);
+                putVarLong(time - lastTime);
+                putVarLong(zigzag(balance - lastBalance));
+            }
+            openCount++;
+            lastSequence = sequence;
+            lastTime = time;
+            lastBalance = balance;
+            return closedBytes;
+        }
+
+        private void putVarLong(long value) {
+            if (open.length - openLength < 10) {
+                open = Arrays.copyOf(open, open.length * 2);
+            }
+            while ((value & ~0x7fL) != 0) {
+                open[openLength++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            open[openLength++] = (byte) value;
+        }
+
+        void spill() throws IOException {
+            // the last group is still open
+            for (int g = spilled; g < groups - 1; g++) {
+                spillOffset[g] = spill.getFilePointer();
+                spill.write(deltas[g], 0, deltaLength[g]);
+                deltas[g] = null;
+            }
+            spilled = Math.max(spilled, groups - 1);
+        }
+
+        /**
+         * @param key    - sequence number, or time if byTime.
+         * @param byTime - whether key is a time.
+         */
+        long find(long key, boolean byTime, long opening) {
+            long[] keys = byTime ? firstTime : firstSequence;
+            // last group whose checkpoint is at or before the key
+            int low = 0;
+            int high = groups - 1;
+            int group = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] <= key) {
+                    group = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            if (group == -1) {
+                return opening;
+            }
+            byte[] bytes;
+            int length;
+            if (group == groups - 1) {
+                bytes = open;
+                length = openLength;
+            } else if (deltas[group] != null) {
+                bytes = deltas[group];
+                length = deltaLength[group];
+            } else {
+                bytes = readSpilled(group);
+                length = bytes.length;
+            }
+            long sequence = firstSequence[group];
+            long time = firstTime[group];
+            long balance = firstBalance[group];
+            int position = 0;
+            long[] value = new long[1];
+            while (position < length) {
+                position = getVarLong(bytes, position, value);
+                long nextSequence = sequence + value[0];
+                position = getVarLong(bytes, position, value);
+                long nextTime = time + value[0];
+                position = getVarLong(bytes, position, value);
+                if ((byTime ? nextTime : nextSequence) > key) {
+                    break;
+                }
+                sequence = nextSequence;
+                time = nextTime;
+                balance += unzigzag(value[0]);
+            }
+            return balance;
+        }
+
+        private byte[] readSpilled(int group) {
+            byte[] bytes = new byte[deltaLength[group]];
+            try {
+                spill.seek(spillOffset[group]);
+                spill.readFully(bytes);
+                spill.seek(spill.length());
+            } catch (IOException e) {
+                throw new IllegalStateException("cannot read history spill.", e);
+            }
+            return bytes;
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Decode one variable-length value into value[0].
+     *
+     * @return the position after it.
+     */
+    private static int getVarLong(byte[] bytes, int position, long[] value) {
+        long result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[position++];
+            result |= (long) (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        value[0] = result;
+        return position;
+    }
+}
@@ -0,0 +1,107 @@
+package projects.bank;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact encoding of account IDs in a single long, so accounts and the
+ * account index can hold IDs without a String and its byte array each.
+ *
+ * An ID of 1 to 8 ASCII characters, none of them NUL, is packed one byte
+ * per character, the first character in the highest byte and unused low
+ * bytes left at zero, eg "wz240833" as 0x777A323430383333. Every ID in the
+ * bank's files has this shape. Other IDs do not pack: pack returns
+ * NOT_PACKED and callers keep the String.
+ */
+public final class AccountID {
+
+    /** Returned by pack for IDs that do not fit in a long. */
+    public static final long NOT_PACKED = 0;
+
+    private AccountID() {
+    }
+
+    /**
+     * @param id - account ID.
+     *
+     * @return the packed ID, or NOT_PACKED.
+     */
+    public static long pack(CharSequence id) {
+        return pack(id, 0, id.length());
+    }
+
+    /**
+     * Pack the characters [start, end) of a sequence.
+     *
+     * @param chars - sequence holding the ID.
+     * @param start - index of the first character.
+     * @param end   - index just past the last character.
+     *
+     * @return the packed ID, or NOT_PACKED.
+     */
+    public static long pack(CharSequence chars, int start, int end) {
+        int length = end - start;
+        if (length < 1 || length > 8) {
+            return NOT_PACKED;
+        }
+        long packed = 0;
+        for (int i = start; i < end; i++) {
+            char c = chars.charAt(i);
+            if (c == 0 || c >= 0x80) {
+                return NOT_PACKED;
+            }
+            packed = packed << 8 | c;
+        }
+        return packed << (8 * (8 - length));
+    }
+
+    /**
+     * @param packed - packed ID, not NOT_PACKED.
+     *
+     * @return the number of characters in the ID.
+     */
+    public static int length(long packed) {
+        return 8 - Long.numberOfTrailingZeros(packed) / 8;
+    }
+
+    /**
+     * @param packed - packed ID, not NOT_PACKED.
+     *
+     * @return the ID as a String.
+     */
+    public static String unpack(long packed) {
+        int length = length(packed);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (packed >>> (56 - 8 * i));
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Append a packed ID to a builder without creating a String.
+     *
+     * @param out    - builder receiving the ID.
+     * @param packed - packed ID, not NOT_PACKED.
+     *
+     * @return out, for chaining.
+     */
+    public static StringBuilder appendTo(StringBuilder out, long packed) {
+        int length = length(packed);
+        for (int i = 0; i < length; i++) {
+            out.append((char) (packed >>> (56 - 8 * i) & 0xff));
+        }
+        return out;
+    }
+
+    /**
+     * Hash of a packed ID, spread over all 32 bits.
+     *
+     * @param packed - packed ID.
+     *
+     * @return the hash.
+     */
+    public static int hash(long packed) {
+        long h = packed * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) ^ (int) h;
+    }
+}
@@ -0,0 +1,240 @@
+package projects.bank;
+
+/**
+ * Hash index from account ID to the position of that account in the bank's
+ * accounts array.
+ *
+ * Uses open addressing with linear probing. The table is kept at most half
+ * full, so a lookup touches only a couple of slots no matter how many
+ * accounts the bank holds.
+ *
+ * IDs that pack into a long, see AccountID, are stored and compared as
+ * longs, so probing does not follow a reference per slot. The String
+ * table for other IDs is only allocated once one is added.
+ */
+public class AccountIndex {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] packedKeys; // NOT_PACKED in empty slots
+    private String[] keys; // null until an ID that does not pack is added
+    private int[] positions;
+    private int mask;
+    private int size;
+
+    /**
+     * Create an empty index with the default capacity.
+     */
+    public AccountIndex() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * Create an empty index sized to hold the given number of accounts
+     * without growing.
+     *
+     * @param expectedAccounts - number of accounts expected, must not be
+     *                         negative.
+     *
+     * @throws IllegalArgumentException if expectedAccounts is negative.
+     */
+    public AccountIndex(int expectedAccounts) {
+        if (expectedAccounts < 0) {
+            throw new IllegalArgumentException(
+                    "expected accounts must not be negative.");
+        }
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedAccounts * 2) {
+            capacity *= 2;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Look up the position of an account.
+     *
+     * @param accountID - ID of the account to look up.
+     *
+     * @return the position stored for accountID, or -1 if it is absent.
+     */
+    public int get(String accountID) {
+        long packed = AccountID.pack(accountID);
+        if (packed != AccountID.NOT_PACKED) {
+            return get(packed);
+        }
+        if (keys == null) {
+            return -1;
+        }
+        int slot = hash(accountID) & mask;
+        while (used(slot)) {
+            if (accountID.equals(keys[slot])) {
+                return positions[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Look up the position of an account by its packed ID.
+     *
+     * @param packed - packed ID, see AccountID; not NOT_PACKED.
+     *
+     * @return the position stored for the ID, or -1 if it is absent.
+     */
+    public int get(long packed) {
+        int slot = AccountID.hash(packed) & mask;
+        while (true) {
+            long key = packedKeys[slot];
+            if (key == packed) {
+                return positions[slot];
+            }
+            if (key == AccountID.NOT_PACKED
+                    && (keys == null || keys[slot] == null)) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Store the position of an account, unless its ID is already indexed.
+     *
+     * @param accountID - ID of the account.
+     * @param position  - position of the account in the accounts array.
+     *
+     * @return true if the ID was added, false if it was already present.
+     */
+    public boolean put(String accountID, int position) {
+        return put(accountID, AccountID.pack(accountID), position);
+    }
+
+    /**
+     * Store the position of an account by its packed ID, unless the ID is
+     * already indexed.
+     *
+     * @param packed   - packed ID, see AccountID; not NOT_PACKED.
+     * @param position - position of the account in the accounts array.
+     *
+     * @return true if the ID was added, false if it was already present.
+     */
+    public boolean put(long packed, int position) {
+        return put(null, packed, position);
+    }
+
+    /**
+     * @param accountID - the ID, only needed when it does not pack.
+     */
+    private boolean put(String accountID, long packed, int position) {
+        if (size + 1 > packedKeys.length / 2) {
+            resize(packedKeys.length * 2);
+        }
+        int slot = free(accountID, packed);
+        if (slot == -1) {
+            return false;
+        }
+        if (packed == AccountID.NOT_PACKED) {
+            if (keys == null) {
+                keys = new String[packedKeys.length];
+            }
+            keys[slot] = accountID;
+        } else {
+            packedKeys[slot] = packed;
+        }
+        positions[slot] = position;
+        size++;
+        return true;
+    }
+
+    private boolean used(int slot) {
+        return packedKeys[slot] != AccountID.NOT_PACKED
+                || (keys != null && keys[slot] != null);
+    }
+
+    /**
+     * @return the first empty slot from the ID's home slot, or -1 if the
+     *         ID is already in the table.
+     */
+    private int free(String accountID, long packed) {
+        int slot;
+        if (packed == AccountID.NOT_PACKED) {
+            slot = hash(accountID) & mask;
+        } else {
+            slot = AccountID.hash(packed) & mask;
+        }
+        while (used(slot)) {
+            if (packed == AccountID.NOT_PACKED
+                    ? accountID.equals(keys[slot])
+                    : packedKeys[slot] == packed) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Grow the table once so it can hold the given number of accounts
+     * without growing again.
+     *
+     * @param expectedAccounts - total number of accounts expected.
+     */
+    public void reserve(int expectedAccounts) {
+        int capacity = packedKeys.length;
+        while (capacity < expectedAccounts * 2) {
+            capacity *= 2;
+        }
+        if (capacity > packedKeys.length) {
+            resize(capacity);
+        }
+    }
+
+    /**
+     * @return the number of indexed account IDs.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Spread the bits of the String hash so IDs that only differ in their
+     * last characters don't cluster in neighbouring slots.
+     */
+    private static int hash(String accountID) {
+        int h = accountID.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private void allocate(int capacity) {
+        packedKeys = new long[capacity];
+        keys = null;
+        positions = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Move every key to a new table of the given capacity.
+     */
+    private void resize(int capacity) {
+        long[] oldPackedKeys = packedKeys;
+        String[] oldKeys = keys;
+        int[] oldPositions = positions;
+        allocate(capacity);
+        if (oldKeys != null) {
+            keys = new String[capacity];
+        }
+        for (int i = 0; i < oldPackedKeys.length; i++) {
+            int slot;
+            if (oldPackedKeys[i] != AccountID.NOT_PACKED) {
+                slot = free(null, oldPackedKeys[i]);
+                packedKeys[slot] = oldPackedKeys[i];
+            } else if (oldKeys != null && oldKeys[i] != null) {
+                slot = free(oldKeys[i], AccountID.NOT_PACKED);
+                keys[slot] = oldKeys[i];
+            } else {
+                continue;
+            }
+            positions[slot] = oldPositions[i];
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package projects.bank;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary snapshot of the account table, much faster to load than
+ * the accounts CSV file.
+ *
+ * Layout, all numbers big-endian:
+ *
+ * header - magic "BNKS" (int), format version (short), account count (int)
+ * record - type code (byte), ID and owner (each an unsigned short byte
+ * length followed by UTF-8 bytes), balance in cents (long)
+ * trailer - CRC32 of every byte before the trailer (long)
+ *
+ * A snapshot is only added to the bank once its checksum has been verified,
+ * so a damaged file never leaves the bank half loaded.
+ */
+public class AccountSnapshot {
+
+    public static final int MAGIC = 0x424E4B53; // "BNKS"
+    public static final short VERSION = 1;
+
+    private static final int HEADER_SIZE = 10;
+    private static final int TRAILER_SIZE = 8;
+    // type code, two empty strings and a balance
+    private static final int MIN_RECORD_SIZE = 13;
+    private static final int MAX_FIELD_BYTES = 0xffff;
+    private static final byte SAVINGS = 1;
+    private static final byte CHECKING = 2;
+
+    /**
+     * Write the first count accounts to a snapshot file.
+     *
+     * @param accounts - accounts to write.
+     * @param count    - number of accounts to write.
+     * @param fileName - snapshot file to create or replace; replaced only
+     *                 once the new snapshot is complete and on disk.
+     *
+     * @throws IOException              if the file cannot be written.
+     * @throws IllegalArgumentException if an ID or owner is longer than
+     *                                  65535 bytes.
+     */
+    public static void write(Account[] accounts, int count, String fileName)
+            throws IOException {
+        // written beside the target and renamed over it once complete, so
+        // a crash or a rejected account leaves the previous snapshot whole
+        Path target = Path.of(fileName);
+        Path temporary = Path.of(fileName + ".tmp");
+        boolean written = false;
+        try {
+            try (FileChannel channel = FileChannel.open(
+                    temporary,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                write(accounts, count, channel);
+                channel.force(true);
+            }
+            Files.move(
+                    temporary,
+                    target,
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            written = true;
+        } finally {
+            if (!written) {
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+
+    private static void write(Account[] accounts, int count, FileChannel channel)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        CRC32 crc = new CRC32();
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putInt(count);
+        for (int i = 0; i < count; i++) {
+            Account account = accounts[i];
+            // a packed ID is written from its long, see putPackedID
+            long packed = account.getPackedID();
+            String id = packed == AccountID.NOT_PACKED
+                    ? account.getID()
+                    : null;
+            String owner = account.getOwner();
+            // more chars than bytes allowed can never fit, and would
+            // not fit in the buffer either
+            if ((id != null && id.length() > MAX_FIELD_BYTES)
+                    || owner.length() > MAX_FIELD_BYTES) {
+                throw new IllegalArgumentException(
+                        "field too long for snapshot.");
+            }
+            // room for the record even if every char takes 3 bytes
+            int idChars = id == null ? AccountID.length(packed) : id.length();
+            int room = 13 + 3 * (idChars + owner.length());
+            if (buffer.remaining() < room) {
+                drain(channel, buffer, crc);
+            }
+            if (account.getType() == AccountType.SAVINGS) {
+                buffer.put(SAVINGS);
+            } else {
+                buffer.put(CHECKING);
+            }
+            if (id == null) {
+                putPackedID(buffer, packed);
+            } else {
+                putString(buffer, id);
+            }
+            putString(buffer, owner);
+            buffer.putLong(account.getCurrentBalanceCents());
+        }
+        drain(channel, buffer, crc);
+        buffer.putLong(crc.getValue());
+        drain(channel, buffer, null); // the trailer is not checksummed
+    }
+
+    /**
+     * Write out the buffered bytes, adding them to the checksum first.
+     */
+    private static void drain(FileChannel channel, ByteBuffer buffer, CRC32 crc)
+            throws IOException {
+        buffer.flip();
+        if (crc != null) {
+            crc.update(buffer.array(), 0, buffer.limit());
+        }
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Write a packed ID like putString would write it unpacked; its
+     * characters are ASCII, one byte each.
+     */
+    private static void putPackedID(ByteBuffer buffer, long packed) {
+        int length = AccountID.length(packed);
+        buffer.putShort((short) length);
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) (packed >>> (56 - 8 * i)));
+        }
+    }
+
+    private static void putString(ByteBuffer buffer, String s) {
+        int start = buffer.position();
+        buffer.putShort((short) 0); // length, filled in below
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                // not plain ASCII, encode the whole field as UTF-8
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > MAX_FIELD_BYTES) {
+                    throw new IllegalArgumentException(
+                            "field too long for snapshot.");
+                }
+                buffer.position(start + 2);
+                buffer.put(bytes);
+                break;
+            }
+            buffer.put((byte) c);
+        }
+        int length = buffer.position() - start - 2;
+        if (length > MAX_FIELD_BYTES) {
+            throw new IllegalArgumentException("field too long for snapshot.");
+        }
+        buffer.putShort(start, (short) length);
+    }
+
+    /**
+     * Add every account of a snapshot file to the bank. Accounts whose ID
+     * is already in the bank are skipped, as in Bank.loadAccounts.
+     *
+     * @param fileName - snapshot file.
+     * @param bank     - bank receiving the accounts.
+     *
+     * @return the number of accounts in the snapshot.
+     *
+     * @throws IOException if the file cannot be read, is not a snapshot, has
+     *                     an unknown version or fails its checksum.
+     */
+    public static int load(String fileName, Bank bank) throws IOException {
+        try (FileChannel channel = FileChannel.open(
+                Path.of(fileName), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + TRAILER_SIZE) {
+                throw new IOException("not an account snapshot: " + fileName);
+            }
+            Input in = new Input(channel, size - TRAILER_SIZE);
+            if (in.getInt() != MAGIC) {
+                throw new IOException("not an account snapshot: " + fileName);
+            }
+            short version = in.getShort();
+            if (version != VERSION) {
+                throw new IOException(
+                        "unsupported snapshot version: " + version);
+            }
+            int count = in.getInt();
+            if (count < 0) {
+                throw new IOException("corrupt snapshot: negative count.");
+            }
+            // checked before allocating, as the checksum is not known yet
+            if (count > (size - HEADER_SIZE - TRAILER_SIZE) / MIN_RECORD_SIZE) {
+                throw new IOException("corrupt snapshot: count too large.");
+            }
+
+            Account[] loaded = new Account[count];
+            for (int i = 0; i < count; i++) {
+                byte code = in.get();
+                String id = in.getString();
+                String owner = in.getString();
+                long balance = in.getLong();
+                AccountType type;
+                if (code == SAVINGS) {
+                    type = AccountType.SAVINGS;
+                } else if (code == CHECKING) {
+                    type = AccountType.CHECKING;
+                } else {
+                    throw new IOException(
+                            "corrupt snapshot: account type " + code);
+                }
+                loaded[i] = Account.make(type, id, owner, balance);
+            }
+            if (in.position() != size - TRAILER_SIZE) {
+                throw new IOException("corrupt snapshot: bad length.");
+            }
+            long checksum = in.checksum();
+            if (in.getLong() != checksum) {
+                throw new IOException("corrupt snapshot: checksum mismatch.");
+            }
+
+            bank.reserve(count);
+            for (int i = 0; i < count; i++) {
+                bank.add(loaded[i]);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Buffered reader over the snapshot file that keeps a CRC32 of every
+     * byte read before the trailer.
+     */
+    private static class Input {
+        private final FileChannel channel;
+        private final long checkedLength;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        private final CRC32 crc = new CRC32();
+        private long read; // bytes taken from the channel so far
+        private byte[] scratch = new byte[256];
+
+        Input(FileChannel channel, long checkedLength) {
+            this.channel = channel;
+            this.checkedLength = checkedLength;
+            buffer.flip(); // start empty
+        }
+
+        /**
+         * @return the file position of the next unread byte.
+         */
+        long position() {
+            return read - buffer.remaining();
+        }
+
+        long checksum() {
+            return crc.getValue();
+        }
+
+        /**
+         * Make sure at least n bytes are buffered.
+         */
+        private void need(int n) throws IOException {
+            if (buffer.remaining() >= n) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < n) {
+                int start = buffer.position();
+                int got = channel.read(buffer);
+                if (got < 0) {
+                    throw new IOException("corrupt snapshot: truncated.");
+                }
+                // checksum the new bytes that lie before the trailer
+                long checked = Math.min(got, Math.max(0, checkedLength - read));
+                crc.update(buffer.array(), start, (int) checked);
+                read += got;
+            }
+            buffer.flip();
+        }
+
+        byte get() throws IOException {
+            need(1);
+            return buffer.get();
+        }
+
+        short getShort() throws IOException {
+            need(2);
+            return buffer.getShort();
+        }
+
+        int getInt() throws IOException {
+            need(4);
+            return buffer.getInt();
+        }
+
+        long getLong() throws IOException {
+            need(8);
+            return buffer.getLong();
+        }
+
+        String getString() throws IOException {
+            int length = getShort() & 0xffff;
+            need(length);
+            if (scratch.length < length) {
+                scratch = new byte[length];
+            }
+            buffer.get(scratch, 0, length);
+            for (int i = 0; i < length; i++) {
+                if (scratch[i] < 0) {
+                    return new String(scratch, 0, length,
+                            StandardCharsets.UTF_8);
+                }
+            }
+            return new String(scratch, 0, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
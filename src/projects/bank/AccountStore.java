@@ -0,0 +1,400 @@
+package projects.bank;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Columnar alternative to the bank's Account[]: each field of an account
+ * is kept in its own parallel array, indexed by row.
+ *
+ * Balances and type codes are primitive arrays, so there is no object per
+ * account and no subclass dispatch when transactions are applied. The ID
+ * column holds each ID string once, and equal owner names share one String
+ * from NamePool.OWNERS.
+ *
+ * Transactions follow the same rules as Deposit and Withdrawal: a
+ * withdrawal needs an amount below the current balance and within the
+ * DailyLimits of its account type, and the new balance is the current
+ * balance plus or minus the amount. The window column, like Account's,
+ * is only allocated once a limit applies.
+ */
+public class AccountStore {
+
+    private static final byte SAVINGS = 0;
+    private static final byte CHECKING = 1;
+    private static final AccountType[] TYPES = {
+            AccountType.SAVINGS, AccountType.CHECKING };
+
+    private byte[] types;
+    private long[] balances;
+    private long[] newBalances;
+    private String[] ids;
+    private String[] owners;
+    private WithdrawalWindow[] windows;
+    private int count;
+    private final AccountIndex index;
+    private ProcessingStats stats = new ProcessingStats();
+
+    public AccountStore() {
+        this(392);
+    }
+
+    /**
+     * @param expectedAccounts - number of accounts the store is sized for.
+     *
+     * @throws IllegalArgumentException if expectedAccounts is negative.
+     */
+    public AccountStore(int expectedAccounts) {
+        if (expectedAccounts < 0) {
+            throw new IllegalArgumentException(
+                    "expected accounts must not be negative.");
+        }
+        int capacity = Math.max(expectedAccounts, 16);
+        types = new byte[capacity];
+        balances = new long[capacity];
+        newBalances = new long[capacity];
+        ids = new String[capacity];
+        owners = new String[capacity];
+        index = new AccountIndex(capacity);
+    }
+
+    /**
+     * Copy every account of a bank into a new store.
+     *
+     * @param bank - bank to copy.
+     *
+     * @return the new store.
+     */
+    public static AccountStore from(Bank bank) {
+        Account[] accounts = bank.getAccounts();
+        AccountStore store = new AccountStore(accounts.length);
+        for (int i = 0; i < accounts.length; i++) {
+            Account account = accounts[i];
+            store.add(
+                    account.getType(),
+                    account.getID(),
+                    account.getOwner(),
+                    account.getCurrentBalanceCents());
+            long withdrawn = account.getWithdrawnTodayCents();
+            if (withdrawn > 0) {
+                // counted as withdrawn now, which never allows more
+                store.window(i).add(DailyLimits.now(), withdrawn);
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Add an account at the end of the store.
+     *
+     * @param type         - type of the account.
+     * @param id           - unique account identifier.
+     * @param owner        - name of the account owner.
+     * @param balanceCents - starting balance in cents.
+     *
+     * @return true if the account was added, false if an account with the
+     *         same ID already exists.
+     *
+     * @throws IllegalArgumentException if the type, ID or owner is null.
+     */
+    public boolean add(AccountType type, String id, String owner, long balanceCents) {
+        if (type == null || id == null || owner == null) {
+            throw new IllegalArgumentException(
+                    "type, ID and owner must not be null.");
+        }
+        if (index.get(id) != -1) {
+            return false;
+        }
+        if (count >= ids.length) {
+            grow(ids.length * 2);
+        }
+        String shared = NamePool.OWNERS.intern(owner);
+        if (type == AccountType.SAVINGS) {
+            types[count] = SAVINGS;
+        } else {
+            types[count] = CHECKING;
+        }
+        balances[count] = balanceCents;
+        newBalances[count] = 0;
+        ids[count] = id;
+        owners[count] = shared;
+        index.put(id, count);
+        count++;
+        return true;
+    }
+
+    private void grow(int capacity) {
+        types = Arrays.copyOf(types, capacity);
+        balances = Arrays.copyOf(balances, capacity);
+        newBalances = Arrays.copyOf(newBalances, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        owners = Arrays.copyOf(owners, capacity);
+        if (windows != null) {
+            windows = Arrays.copyOf(windows, capacity);
+        }
+        index.reserve(capacity);
+    }
+
+    private WithdrawalWindow window(int row) {
+        if (windows == null) {
+            windows = new WithdrawalWindow[ids.length];
+        }
+        if (windows[row] == null) {
+            windows[row] = new WithdrawalWindow();
+        }
+        return windows[row];
+    }
+
+    /**
+     * @param accountID - account identifier.
+     *
+     * @return the row of the account, or -1 if it is absent.
+     *
+     * @throws IllegalArgumentException if accountID is null.
+     */
+    public int find(String accountID) {
+        if (accountID == null) {
+            throw new IllegalArgumentException("account ID must not be null.");
+        }
+        return index.get(accountID);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public AccountType getType(int row) {
+        return TYPES[types[check(row)]];
+    }
+
+    public String getID(int row) {
+        return ids[check(row)];
+    }
+
+    public String getOwner(int row) {
+        return owners[check(row)];
+    }
+
+    public long getBalanceCents(int row) {
+        return balances[check(row)];
+    }
+
+    /**
+     * @param row - row of the account.
+     *
+     * @return the balance after the last transaction executed on the
+     *         account, in cents.
+     */
+    public long getNewBalanceCents(int row) {
+        return newBalances[check(row)];
+    }
+
+    private int check(int row) {
+        if (row < 0 || row >= count) {
+            throw new IndexOutOfBoundsException("no account at row " + row);
+        }
+        return row;
+    }
+
+    /**
+     * Load the accounts of a CSV file, in the format read by
+     * Bank.loadAccounts.
+     *
+     * @param fileName - accounts CSV file.
+     *
+     * @return true if the file was read, false if it could not be opened.
+     *
+     * @throws IllegalArgumentException if a line is empty or malformed.
+     */
+    public boolean loadAccounts(String fileName) {
+        try (BufferedReader reader = new BufferedReader(
+                new FileReader(fileName), 1 << 16)) {
+            String line = reader.readLine();
+            while (line != null) {
+                if (line.isEmpty()) {
+                    throw new IllegalArgumentException("line must not be null.");
+                }
+                String[] token = line.split(",");
+                add(
+                        AccountType.valueOf(token[0].toUpperCase()),
+                        token[1],
+                        token[2],
+                        Money.parseCents(token[3]));
+                line = reader.readLine();
+            }
+            return true;
+        } catch (IOException e) {
+            System.out.println("file not found. " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Write every account as a CSV line, in the format of
+     * Bank.writeAccounts.
+     *
+     * @param fileName - file to create or overwrite.
+     *
+     * @return true if the file was written.
+     */
+    public boolean writeAccounts(String fileName) {
+        try (FileWriter writer = new FileWriter(fileName)) {
+            StringBuilder lines = new StringBuilder(1 << 16);
+            for (int i = 0; i < count; i++) {
+                lines.append(TYPES[types[i]].label()).append(',');
+                lines.append(ids[i]).append(',');
+                lines.append(owners[i]).append(',');
+                Money.appendTo(lines, balances[i]).append('\n');
+                if (lines.length() >= 1 << 16) {
+                    writer.append(lines);
+                    lines.setLength(0);
+                }
+            }
+            writer.append(lines);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Apply the first count transactions to the store, recording each
+     * outcome in the audit, as Bank.processTransactions does.
+     *
+     * Per-stage counters for this run are available from getStats()
+     * afterwards.
+     *
+     * @param transactions - transactions to apply.
+     * @param count        - number of transactions to apply.
+     * @param audit        - audit receiving the outcome of each one.
+     *
+     * @return count of processed transactions.
+     *
+     * @throws IllegalArgumentException if transactions or audit is null.
+     */
+    public int processTransactions(Transaction[] transactions, int count, Audit audit) {
+        if (transactions == null || audit == null) {
+            throw new IllegalArgumentException(
+                    "transactions and audit must not be null.");
+        }
+        stats = new ProcessingStats();
+        int processed = 0;
+        for (int i = 0; i < count; i++) {
+            if (apply(transactions[i], audit)) {
+                processed++;
+            }
+        }
+        return processed;
+    }
+
+    private boolean apply(Transaction tx, Audit audit) {
+        // timed only for sampled transactions, as in Bank.apply
+        int weight = stats.sample();
+        long start = Bank.time(weight);
+        int row = index.get(tx.getAccountNumber());
+        long resolved = Bank.time(weight);
+        stats.addLookup(weight * (resolved - start));
+
+        if (row == -1) {
+            audit.recordNoSuchAccount(tx);
+            stats.addAudit(weight * (Bank.time(weight) - resolved));
+            stats.addTransaction(false);
+            return false;
+        }
+
+        long balance = balances[row];
+        long amount = tx.getAmountCents();
+        boolean deposit = tx.getType() == TransactionType.DEPOSIT;
+        if (!deposit && amount >= balance) {
+            long validated = Bank.time(weight);
+            stats.addValidate(weight * (validated - resolved));
+            audit.recordNonSufficientFunds(tx, balance);
+            stats.addAudit(weight * (Bank.time(weight) - validated));
+            stats.addTransaction(false);
+            return false;
+        }
+        WithdrawalWindow window = null;
+        long now = 0;
+        if (!deposit && DailyLimits.isEnabled()) {
+            long limit = DailyLimits.getLimitCents(TYPES[types[row]]);
+            if (limit != DailyLimits.NO_LIMIT) {
+                window = window(row);
+                now = DailyLimits.now();
+                long withdrawn = window.total(now);
+                if (amount > limit - withdrawn) {
+                    long validated = Bank.time(weight);
+                    stats.addValidate(weight * (validated - resolved));
+                    audit.recordDailyLimitExceeded(tx, withdrawn);
+                    stats.addAudit(weight * (Bank.time(weight) - validated));
+                    stats.addTransaction(false);
+                    return false;
+                }
+            }
+        }
+        long validated = Bank.time(weight);
+        stats.addValidate(weight * (validated - resolved));
+
+        long newBalance;
+        if (deposit) {
+            newBalance = balance + amount;
+        } else {
+            newBalance = balance - amount;
+            if (window != null) {
+                window.add(now, amount);
+            }
+        }
+        newBalances[row] = newBalance;
+        long executed = Bank.time(weight);
+        stats.addExecute(weight * (executed - validated));
+        audit.recordExecute(tx, newBalance);
+        stats.addAudit(weight * (Bank.time(weight) - executed));
+        stats.addTransaction(true);
+        return true;
+    }
+
+    /**
+     * Add month-end interest to every positive balance, in one pass over
+     * the type and balance columns. Interest is rounded to the nearest cent
+     * as in InterestAccrual.
+     *
+     * @param monthlyRates - rate for one month of each account type,
+     *                     indexed by AccountType ordinal.
+     * @param accounts     - receives the number of accounts credited per
+     *                     type.
+     * @param cents        - receives the interest credited per type.
+     */
+    void accrueInterest(double[] monthlyRates, long[] accounts, long[] cents) {
+        double[] rates = new double[TYPES.length];
+        long[] credited = new long[TYPES.length];
+        long[] totals = new long[TYPES.length];
+        for (int code = 0; code < TYPES.length; code++) {
+            rates[code] = monthlyRates[TYPES[code].ordinal()];
+        }
+        for (int i = 0; i < count; i++) {
+            long balance = balances[i];
+            if (balance > 0) {
+                int code = types[i];
+                long interest = Math.round(balance * rates[code]);
+                balances[i] = balance + interest;
+                credited[code] += interest != 0 ? 1 : 0;
+                totals[code] += interest;
+            }
+        }
+        for (int code = 0; code < TYPES.length; code++) {
+            accounts[TYPES[code].ordinal()] += credited[code];
+            cents[TYPES[code].ordinal()] += totals[code];
+        }
+    }
+
+    /**
+     * Get the per-stage counters of the last processing run.
+     *
+     * @return counters for lookup, validate, execute and audit.
+     */
+    public ProcessingStats getStats() {
+        return stats;
+    }
+}
@@ -2,6 +2,19 @@ package projects.bank;
 
 public enum AccountType {
     // Enum constants options are the two types of accounts in this bank.
-    SAVINGS,
-    CHECKING
+    SAVINGS("savings"),
+    CHECKING("checking");
+
+    private final String label;
+
+    AccountType(String label) {
+        this.label = label;
+    }
+
+    /**
+     * @return the lowercase name used in CSV files, eg "savings".
+     */
+    public String label() {
+        return label;
+    }
 }
@@ -0,0 +1,82 @@
+package projects.bank;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable view of a range of bytes as characters, one character per byte.
+ * Lets parsers that take a CharSequence, like Money.parseCents, read CSV
+ * fields straight from a file buffer without creating Strings.
+ *
+ * Only meant for ASCII fields such as amounts and type names.
+ */
+public class AsciiChars implements CharSequence {
+
+    private ByteBuffer bytes;
+    private int start;
+    private int length;
+
+    /**
+     * Point this view at bytes [start, end) of a buffer.
+     *
+     * @param bytes - buffer holding the characters.
+     * @param start - index of the first byte.
+     * @param end   - index just past the last byte.
+     *
+     * @return this view, for chaining.
+     */
+    public AsciiChars wrap(ByteBuffer bytes, int start, int end) {
+        this.bytes = bytes;
+        this.start = start;
+        length = end - start;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (bytes.get(start + index) & 0xff);
+    }
+
+    /**
+     * Compare with a lowercase word, ignoring the case of this view.
+     *
+     * @param word - lowercase ASCII word, eg "savings".
+     *
+     * @return true if both hold the same letters.
+     */
+    public boolean equalsIgnoreCase(String word) {
+        if (word.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            if (c != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        return toString().substring(from, to);
+    }
+
+    /**
+     * @return the bytes of this view decoded as UTF-8.
+     */
+    @Override
+    public String toString() {
+        byte[] copy = new byte[length];
+        bytes.get(start, copy);
+        return new String(copy, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,246 @@
+package projects.bank;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Audit that hands its lines to a background thread instead of writing
+ * them itself, so the thread processing transactions never waits on disk.
+ *
+ * Lines go into a bounded ring buffer. The background writer drains it in
+ * batches into a large buffered stream, and flushes the stream when
+ * flushLines lines are pending, when flushMillis have passed since the last
+ * flush, and on close.
+ *
+ * When the buffer is full the record methods either wait for space (BLOCK)
+ * or drop the line (DROP). Both cases are counted.
+ */
+public class AsyncAudit extends Audit {
+
+    /**
+     * What to do with a new line when the ring buffer is full.
+     */
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP
+    }
+
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int DEFAULT_FLUSH_LINES = 1 << 14;
+    private static final long DEFAULT_FLUSH_MILLIS = 1000;
+    // marks the end of the stream for the background writer
+    private static final String CLOSED = new String("closed");
+
+    private final ArrayBlockingQueue<String> ring;
+    private final OverflowPolicy policy;
+    private final int flushLines;
+    private final long flushMillis;
+    private final Writer out;
+    private final Thread drainer;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private volatile long written;
+    private volatile long flushes;
+    private boolean closed;
+
+    /**
+     * Create an asynchronous audit with the default policies: a ring buffer
+     * of 65536 lines, blocking when full, flushing every 16384 lines or
+     * every second.
+     *
+     * @param fileName Points to desired log file. Overwrites existing file.
+     * @throws IllegalArgumentException If fileName is null.
+     * @throws IOException              If the file is not usable.
+     */
+    public AsyncAudit(String fileName) throws IOException {
+        this(open(fileName), DEFAULT_CAPACITY, OverflowPolicy.BLOCK,
+                DEFAULT_FLUSH_LINES, DEFAULT_FLUSH_MILLIS);
+    }
+
+    /**
+     * Create an asynchronous audit.
+     *
+     * @param writer      - destination of the audit lines. Closed by close().
+     * @param capacity    - number of lines the ring buffer holds.
+     * @param policy      - what to do with a line when the buffer is full.
+     * @param flushLines  - flush once this many lines have been written
+     *                    since the last flush.
+     * @param flushMillis - flush once this much time has passed since the
+     *                    last flush, if any line is pending.
+     *
+     * @throws IllegalArgumentException if writer or policy is null, or a
+     *                                  size or interval is not positive.
+     */
+    public AsyncAudit(
+            Writer writer,
+            int capacity,
+            OverflowPolicy policy,
+            int flushLines,
+            long flushMillis) {
+        super(writer);
+        if (policy == null) {
+            throw new IllegalArgumentException("policy cannot be null.");
+        }
+        if (capacity < 1 || flushLines < 1 || flushMillis < 1) {
+            throw new IllegalArgumentException(
+                    "sizes and intervals must be positive.");
+        }
+        ring = new ArrayBlockingQueue<>(capacity);
+        this.policy = policy;
+        this.flushLines = flushLines;
+        this.flushMillis = flushMillis;
+        out = new BufferedWriter(writer, 1 << 20);
+        drainer = new Thread(this::drain, "audit-writer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * Queue a line for the background writer.
+     */
+    @Override
+    protected void write(StringBuilder s) {
+        String text = s.toString();
+        if (ring.offer(text)) {
+            return;
+        }
+        if (policy == OverflowPolicy.DROP) {
+            dropped.increment();
+            return;
+        }
+        blocked.increment();
+        try {
+            ring.put(text);
+        } catch (InterruptedException e) {
+            dropped.increment();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Write every queued line, flush, stop the background writer and close
+     * the output stream.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            ring.put(CLOSED);
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        super.close();
+    }
+
+    /**
+     * @return the number of lines dropped because the buffer was full or
+     *         the output stream failed.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return the number of times a record method waited for buffer space.
+     */
+    public long getBlocked() {
+        return blocked.sum();
+    }
+
+    /**
+     * @return the number of lines handed to the output stream so far, not
+     *         counting those lost when it failed.
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * @return the number of times the output stream was flushed.
+     */
+    public long getFlushes() {
+        return flushes;
+    }
+
+    /**
+     * Body of the background writer: take lines in batches until the end
+     * marker arrives. If the output stream fails, keep draining so record
+     * methods never block forever, counting the lines as dropped, along
+     * with the lines buffered since the last flush, which are lost too.
+     */
+    private void drain() {
+        List<String> batch = new ArrayList<>(1024);
+        String separator = System.lineSeparator();
+        long pending = 0;
+        long lastFlush = System.currentTimeMillis();
+        boolean failed = false;
+        boolean done = false;
+        while (!done) {
+            try {
+                String first = ring.poll(flushMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    ring.drainTo(batch, 1023);
+                }
+            } catch (InterruptedException e) {
+                // only close() ends the writer
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                String text = batch.get(i);
+                if (text == CLOSED) {
+                    done = true;
+                } else if (failed) {
+                    dropped.increment();
+                } else {
+                    try {
+                        out.write(text);
+                        out.write(separator);
+                        written++;
+                        pending++;
+                    } catch (IOException e) {
+                        failed = lost(e, pending);
+                        pending = 0;
+                        dropped.increment();
+                    }
+                }
+            }
+            long now = System.currentTimeMillis();
+            if (!failed && (pending >= flushLines
+                    || (pending > 0 && now - lastFlush >= flushMillis)
+                    || done)) {
+                try {
+                    out.flush();
+                    flushes++;
+                    lastFlush = now;
+                } catch (IOException e) {
+                    failed = lost(e, pending);
+                }
+                pending = 0;
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Count the lines buffered since the last flush as dropped once the
+     * output stream failed.
+     *
+     * @return true, the stream is failed from now on.
+     */
+    private boolean lost(IOException e, long pending) {
+        e.printStackTrace(); // fall back to console output
+        written -= pending;
+        dropped.add(pending);
+        return true;
+    }
+}
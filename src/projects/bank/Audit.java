@@ -2,11 +2,18 @@ package projects.bank;
 
 import java.io.IOException;
 import java.io.FileWriter;
+import java.io.Writer;
 
 public class Audit {
 
     // Phase 4
-    private FileWriter writer;
+    private Writer writer;
+    private long recordNanos;
+    // only lines recorded while timed read the clock, see setTimed
+    private boolean timed;
+    // reused for every line, so writing a line allocates nothing
+    private final StringBuilder line = new StringBuilder(128);
+    private char[] chars = new char[256];
 
     /**
      * Create a new output stream. Stays open during this instance's lifepan.
@@ -19,11 +26,30 @@ public class Audit {
      * @throws IOException              If the default file is not usable.
      */
     public Audit(String fileName) throws IOException {
+        this(open(fileName));
+    }
+
+    /**
+     * Create an audit writing its lines to the given stream, eg an in-memory
+     * buffer that is later merged into the audit file.
+     * 
+     * @param writer Destination of the audit lines. Closed by close().
+     * @throws IllegalArgumentException If writer is null.
+     */
+    public Audit(Writer writer) {
+        if (writer == null) {
+            throw new IllegalArgumentException("writer cannot be null.");
+        }
+
+        this.writer = writer;
+    }
+
+    static FileWriter open(String fileName) throws IOException {
         if (fileName == null) {
             throw new IllegalArgumentException("fileName cannot be null.");
         }
 
-        writer = new FileWriter(fileName); // throws IOException
+        return new FileWriter(fileName); // throws IOException
     }
 
     /**
@@ -39,18 +65,93 @@ public class Audit {
     }
 
     /**
-     * Write a line to the audit file.
+     * Time spent formatting and writing the audit lines recorded while
+     * timed, so callers can tell audit cost apart from the rest of
+     * transaction processing.
      * 
-     * @param s - Content to be written to output file.
+     * @return nanoseconds spent in the record methods while timed.
+     */
+    public long getRecordNanos() {
+        return recordNanos;
+    }
+
+    /**
+     * Time the lines recorded from now on, or stop timing them. Bank.apply
+     * turns this on only for the transactions ProcessingStats samples, so
+     * most lines do not read the clock.
+     * 
+     * @param timed - whether the next lines are timed.
+     */
+    void setTimed(boolean timed) {
+        this.timed = timed;
+    }
+
+    /**
+     * @return the start time of a record method, or 0 if it is not timed.
      */
-    private void write(String s) {
+    protected final long startRecord() {
+        return timed ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Add the time of a record method to getRecordNanos, if it is timed.
+     * 
+     * @param start - value returned by startRecord.
+     */
+    protected final void endRecord(long start) {
+        if (timed) {
+            recordNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Write a line to the audit file. Subclasses may override this to send
+     * lines somewhere else; the builder is reused once this returns.
+     * 
+     * @param s - Content to be written to output file, without the line
+     *          separator.
+     */
+    protected void write(StringBuilder s) {
+        s.append(System.lineSeparator());
+        if (chars.length < s.length()) {
+            chars = new char[s.length() * 2];
+        }
+        s.getChars(0, s.length(), chars, 0);
         try {
-            writer.write(s + System.lineSeparator());
+            writer.write(chars, 0, s.length());
         } catch (IOException e) { // fall back to console output
             e.printStackTrace();
         }
     }
 
+    /**
+     * Write a line about one account. Calls write(s) unless overridden, eg
+     * by an audit that indexes its lines by account.
+     * 
+     * The transaction is passed rather than its account ID, so the ID is
+     * only decoded by an override that needs it.
+     * 
+     * @param s - Content to be written to output file, without the line
+     *          separator.
+     * @param t - transaction the line is about.
+     */
+    protected void write(StringBuilder s, Transaction t) {
+        write(s);
+    }
+
+    /**
+     * Start a new audit line in the reusable line builder.
+     * 
+     * @param level - level and separator, eg "[INFO]: ".
+     * 
+     * @return the builder, holding the timestamp and level.
+     */
+    private StringBuilder startLine(String level) {
+        line.setLength(0);
+        lib.Utils.appendTimestamp(line).append(' ').append(level);
+        return line;
+    }
+
     /**
      * 
      * Write audit line for No Such Account warning.
@@ -59,13 +160,11 @@ public class Audit {
      * 
      */
     public void recordNoSuchAccount(Transaction t) {
-        write(
-            String.format(
-                "%s [WARN]: no such account: %s",
-                lib.Utils.timestamp(),
-                t.toString()
-            )
-        );
+        long start = startRecord();
+        StringBuilder s = startLine("[WARN]: no such account: ");
+        t.appendTo(s);
+        write(s, t);
+        endRecord(start);
     }
 
     /**
@@ -75,14 +174,68 @@ public class Audit {
      * @param a - Target account item.
      */
     public void recordNonSufficientFunds(Transaction t, Account a) {
-        write(
-            String.format(
-                "%s [WARN]: nonsufficient funds: %s, but account balance is %.2f",
-                lib.Utils.timestamp(),
-                t.toString(),
-                a.getCurrentBalance()
-            )
-        );
+        recordNonSufficientFunds(t, a.getCurrentBalanceCents());
+    }
+
+    /**
+     * Write audit line for Nonsufficient Funds warning.
+     * 
+     * @param t            - Transaction causing the warming.
+     * @param balanceCents - Balance of the target account, in cents.
+     */
+    public void recordNonSufficientFunds(Transaction t, long balanceCents) {
+        long start = startRecord();
+        StringBuilder s = startLine("[WARN]: nonsufficient funds: ");
+        t.appendTo(s).append(", but account balance is ");
+        Money.appendTo(s, balanceCents);
+        write(s, t);
+        endRecord(start);
+    }
+
+    /**
+     * Write audit line for a withdrawal over the daily limit.
+     * 
+     * @param t - Withdrawal causing the warning.
+     * @param a - Target account item.
+     */
+    public void recordDailyLimitExceeded(Transaction t, Account a) {
+        recordDailyLimitExceeded(t, a.getWithdrawnTodayCents());
+    }
+
+    /**
+     * Write audit line for a withdrawal over the daily limit.
+     * 
+     * @param t              - Withdrawal causing the warning.
+     * @param withdrawnCents - Already withdrawn from the target account in
+     *                       the last 24 hours, in cents.
+     */
+    public void recordDailyLimitExceeded(Transaction t, long withdrawnCents) {
+        long start = startRecord();
+        StringBuilder s = startLine("[WARN]: daily limit exceeded: ");
+        t.appendTo(s).append(", but withdrawn in the last 24 hours is ");
+        Money.appendTo(s, withdrawnCents);
+        write(s, t);
+        endRecord(start);
+    }
+
+    /**
+     * Write one summary line for the interest credited to the accounts of a
+     * type, instead of a line per account.
+     * 
+     * @param type          - Account type the interest was credited to.
+     * @param accounts      - Number of accounts credited.
+     * @param interestCents - Total interest credited, in cents.
+     */
+    public void recordInterestAccrued(
+            AccountType type,
+            long accounts,
+            long interestCents) {
+        long start = startRecord();
+        StringBuilder s = startLine("[INFO]: interest accrued: ");
+        s.append(type.label()).append(", ").append(accounts).append(" accounts, ");
+        Money.appendTo(s, interestCents);
+        write(s);
+        endRecord(start);
     }
 
     /**
@@ -92,13 +245,21 @@ public class Audit {
      * @param a - Target account.
      */
     public void recordExecute(Transaction t, Account a) {
-        write(
-            String.format(
-                "%s [INFO]: %s, ending account balance is now %.2f",
-                lib.Utils.timestamp(),
-                t.toString(),
-                a.setNewBalance()
-            )
-        );
+        recordExecute(t, a.getNewBalanceCents());
+    }
+
+    /**
+     * Write audit line for transforming Balance after transaction execution.
+     * 
+     * @param t            - Transaction being executed.
+     * @param balanceCents - New balance of the target account, in cents.
+     */
+    public void recordExecute(Transaction t, long balanceCents) {
+        long start = startRecord();
+        StringBuilder s = startLine("[INFO]: ");
+        t.appendTo(s).append(", ending account balance is now ");
+        Money.appendTo(s, balanceCents);
+        write(s, t);
+        endRecord(start);
     }
 }
\ No newline at end of file
@@ -0,0 +1,246 @@
+package projects.bank;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming reader of the records written by BinaryAudit.
+ *
+ * next() moves to the following record and the getters describe it. The
+ * reader keeps one record at a time in reusable fields, and the account ID
+ * is only decoded into a String when asked for, so replaying or
+ * aggregating a file creates almost no garbage.
+ */
+public class AuditRecordReader implements AutoCloseable {
+
+    private static final int FIXED_SIZE = 28; // record bytes before the ID
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+    private TransactionResult outcome;
+    private TransactionType type;
+    private long timestamp;
+    private long amountCents;
+    private long balanceCents;
+    private byte[] id = new byte[64];
+    private int idLength;
+    private String accountID;
+    private long count;
+
+    /**
+     * @param fileName - binary audit file.
+     *
+     * @throws IOException if the file cannot be read or is not a binary
+     *                     audit file of a known version.
+     */
+    public AuditRecordReader(String fileName) throws IOException {
+        channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ);
+        buffer.flip(); // start empty
+        if (!fill(6) || buffer.getInt() != BinaryAudit.MAGIC) {
+            channel.close();
+            throw new IOException("not a binary audit file: " + fileName);
+        }
+        short version = buffer.getShort();
+        if (version != BinaryAudit.VERSION) {
+            channel.close();
+            throw new IOException("unsupported audit version: " + version);
+        }
+    }
+
+    /**
+     * Make sure at least n bytes are buffered.
+     *
+     * @return false if the file ends before any byte of them.
+     */
+    private boolean fill(int n) throws IOException {
+        if (buffer.remaining() >= n) {
+            return true;
+        }
+        boolean empty = !buffer.hasRemaining();
+        buffer.compact();
+        while (buffer.position() < n) {
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                if (empty && !buffer.hasRemaining()) {
+                    return false;
+                }
+                throw new IOException("truncated audit record.");
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    /**
+     * Move to the next record.
+     *
+     * @return true if there is one, false at the end of the file.
+     *
+     * @throws IOException if the file cannot be read or ends inside a
+     *                     record.
+     */
+    public boolean next() throws IOException {
+        if (!fill(FIXED_SIZE)) {
+            return false;
+        }
+        byte code = buffer.get();
+        if (code == BinaryAudit.EXECUTED) {
+            outcome = TransactionResult.EXECUTED;
+        } else if (code == BinaryAudit.NONSUFFICIENT_FUNDS) {
+            outcome = TransactionResult.NONSUFFICIENT_FUNDS;
+        } else if (code == BinaryAudit.NO_SUCH_ACCOUNT) {
+            outcome = TransactionResult.NO_SUCH_ACCOUNT;
+        } else if (code == BinaryAudit.DAILY_LIMIT_EXCEEDED) {
+            outcome = TransactionResult.DAILY_LIMIT_EXCEEDED;
+        } else if (code == BinaryAudit.INTEREST_ACCRUED) {
+            outcome = TransactionResult.INTEREST_ACCRUED;
+        } else {
+            throw new IOException("corrupt audit record: outcome " + code);
+        }
+        if (buffer.get() == BinaryAudit.DEPOSIT) {
+            type = TransactionType.DEPOSIT;
+        } else {
+            type = TransactionType.WITHDRAWAL;
+        }
+        timestamp = buffer.getLong();
+        amountCents = buffer.getLong();
+        balanceCents = buffer.getLong();
+        idLength = buffer.getShort() & 0xffff;
+        if (!fill(idLength) && idLength > 0) {
+            throw new IOException("truncated audit record.");
+        }
+        if (id.length < idLength) {
+            id = new byte[idLength * 2];
+        }
+        buffer.get(id, 0, idLength);
+        accountID = null;
+        count++;
+        return true;
+    }
+
+    public TransactionResult getOutcome() {
+        return outcome;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    /**
+     * @return the time of the record in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    /**
+     * @return the balance recorded with the outcome, in cents; 0 for no
+     *         such account, the amount withdrawn in the last 24 hours for
+     *         daily limit exceeded, and the number of accounts credited for
+     *         interest accrued.
+     */
+    public long getBalanceCents() {
+        return balanceCents;
+    }
+
+    /**
+     * @return the account ID of the record, decoded on first use.
+     */
+    public String getAccountID() {
+        if (accountID == null) {
+            accountID = new String(id, 0, idLength, StandardCharsets.UTF_8);
+        }
+        return accountID;
+    }
+
+    /**
+     * @return the number of records read so far.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Append the current record as the line Audit would have written,
+     * without the line separator.
+     *
+     * @param out - builder receiving the line.
+     *
+     * @return out, for chaining.
+     */
+    public StringBuilder appendText(StringBuilder out) {
+        out.append(lib.Utils.timestamp(timestamp)).append(' ');
+        if (outcome == TransactionResult.INTEREST_ACCRUED) {
+            out.append("[INFO]: interest accrued: ").append(getAccountID());
+            out.append(", ").append(balanceCents).append(" accounts, ");
+            return Money.appendTo(out, amountCents);
+        }
+        if (outcome == TransactionResult.NO_SUCH_ACCOUNT) {
+            out.append("[WARN]: no such account: ");
+        } else if (outcome == TransactionResult.NONSUFFICIENT_FUNDS) {
+            out.append("[WARN]: nonsufficient funds: ");
+        } else if (outcome == TransactionResult.DAILY_LIMIT_EXCEEDED) {
+            out.append("[WARN]: daily limit exceeded: ");
+        } else {
+            out.append("[INFO]: ");
+        }
+        out.append(type.label()).append(',');
+        out.append(getAccountID()).append(',');
+        Money.appendTo(out, amountCents);
+        if (outcome == TransactionResult.NONSUFFICIENT_FUNDS) {
+            Money.appendTo(out.append(", but account balance is "), balanceCents);
+        } else if (outcome == TransactionResult.DAILY_LIMIT_EXCEEDED) {
+            Money.appendTo(
+                    out.append(", but withdrawn in the last 24 hours is "),
+                    balanceCents);
+        } else if (outcome == TransactionResult.EXECUTED) {
+            Money.appendTo(
+                    out.append(", ending account balance is now "),
+                    balanceCents);
+        }
+        return out;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Convert a binary audit file to the text format of Audit.
+     *
+     * @param binaryFile - binary audit file.
+     * @param textFile   - text audit file to create or overwrite.
+     *
+     * @return the number of records converted.
+     *
+     * @throws IOException if a file cannot be read or written.
+     */
+    public static long convert(String binaryFile, String textFile)
+            throws IOException {
+        try (AuditRecordReader in = new AuditRecordReader(binaryFile);
+                Writer out = new FileWriter(textFile)) {
+            StringBuilder lines = new StringBuilder(1 << 16);
+            String separator = System.lineSeparator();
+            while (in.next()) {
+                in.appendText(lines).append(separator);
+                if (lines.length() >= 1 << 16) {
+                    out.append(lines);
+                    lines.setLength(0);
+                }
+            }
+            out.append(lines);
+            return in.getCount();
+        }
+    }
+}
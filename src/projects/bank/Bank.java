@@ -5,6 +5,10 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
 import java.util.Scanner;
 
 public class Bank {
@@ -15,13 +19,27 @@ public class Bank {
     private static Transaction[] transactions;
     private static int transactionsCount;
     private static Account[] activeAccounts;
+    private static AccountIndex index;
+    private static AccountFilter filter;
+    private static boolean fastReject;
+    private static ProcessingStats stats;
+    private static TransactionJournal journal;
+    private static AccountHistory history;
+    private static String persistedFile;
 
     // Phase 1
     public Bank() {
         accounts = new Account[392];
         accountCount = 0;
+        index = new AccountIndex(accounts.length);
+        filter = new AccountFilter(accounts.length);
+        fastReject = true;
         transactions = new Transaction[1000];
         transactionsCount = 0;
+        stats = new ProcessingStats();
+        journal = null;
+        history = null;
+        persistedFile = null;
     }
 
     /**
@@ -40,35 +58,95 @@ public class Bank {
         if (account == null) {
             throw new IllegalArgumentException("account must not be null.");
         }
-        if (find(account.getID()) != -1) {
+        // packed IDs go to the index as they are, without a String
+        long packed = account.getPackedID();
+        if (indexOf(account) != -1) {
             // Account with same ID already exists
             return false;
         }
         // Otherwise, add the new account
         // what if accountCount is already at max capacity?
         if (accountCount >= accounts.length) {
-            // to increase capacity by a fixed quantity each time (say add 100 new slots)
+            // double the capacity each time so adding stays cheap on average
             Account[] newAccounts = new Account[accounts.length * 2];
             System.arraycopy(accounts, 0, newAccounts, 0, accounts.length);
             accounts = newAccounts;
-            accountCount++;
-            accounts[accountCount++] = account;
-            return true;
         }
-        // The bank database has space, add the account
-        for (int i = 0; i < accounts.length; i++) {
-            if (accounts[i] == null) {
-                accounts[i] = account;
-                accountCount++;
-                break;
-            }
+        // The bank database has space, add the account at the end
+        accounts[accountCount] = account;
+        if (packed == AccountID.NOT_PACKED) {
+            index.put(account.getID(), accountCount);
+        } else {
+            index.put(packed, accountCount);
         }
+        if (filter.isFull()) {
+            rebuildFilter(accountCount * 2);
+        }
+        filter.addKey(filterKey(account));
+        accountCount++;
         return true;
     }
 
+    /**
+     * Make room for more accounts up front, so a bulk load does not grow
+     * the accounts array step by step.
+     * 
+     * @param additional number of accounts about to be added.
+     */
+    void reserve(int additional) {
+        if (accountCount + additional > accounts.length) {
+            Account[] newAccounts = new Account[accountCount + additional];
+            System.arraycopy(accounts, 0, newAccounts, 0, accountCount);
+            accounts = newAccounts;
+        }
+        index.reserve(accountCount + additional);
+        if (filter.getCapacity() < accountCount + additional) {
+            rebuildFilter(accountCount + additional);
+        }
+    }
+
+    /**
+     * Replace the filter with one sized for the given number of accounts,
+     * holding the IDs of the accounts added so far.
+     */
+    private void rebuildFilter(int expectedAccounts) {
+        AccountFilter larger = new AccountFilter(expectedAccounts);
+        for (int i = 0; i < accountCount; i++) {
+            larger.addKey(filterKey(accounts[i]));
+        }
+        filter = larger;
+    }
+
+    /**
+     * @return the position of the account with the same ID, or -1; found
+     *         without unpacking its ID.
+     */
+    private static int indexOf(Account account) {
+        long packed = account.getPackedID();
+        if (packed == AccountID.NOT_PACKED) {
+            return index.get(account.getID());
+        }
+        return index.get(packed);
+    }
+
+    /**
+     * @return the account's key in the filter, without unpacking its ID.
+     */
+    private static long filterKey(Account account) {
+        long packed = account.getPackedID();
+        if (packed == AccountID.NOT_PACKED) {
+            return AccountFilter.key(account.getID());
+        }
+        return packed;
+    }
+
     /**
      * Find an account by its ID.
      * 
+     * Uses the hash index kept in sync by add(), so the cost does not
+     * depend on the number of accounts in the bank. Most absent IDs are
+     * turned away by the account filter without probing the index.
+     * 
      * @param accountID the ID of the account to find.
      * 
      * @return returns the index of the account in the array or -1 if not found.
@@ -77,13 +155,26 @@ public class Bank {
         if (accountID == null) {
             throw new IllegalArgumentException("accountID must not be null.");
         }
-        for (int i = 0; i < accountCount; i++) {
-            // so you can simplify the condition on line 62
-            if (accounts[i].getID().equals(accountID)) {
-                return i;
-            }
+        if (fastReject && !filter.mightContain(accountID)) {
+            return -1;
+        }
+        return index.get(accountID); // -1 if account not found
+    }
+
+    /**
+     * Resolve an account ID to the account itself with a single index probe,
+     * instead of checking validateAcctExists and then calling find again.
+     * 
+     * @param accountID the ID of the account to resolve.
+     * 
+     * @return the account, or null if the bank has no account with this ID.
+     */
+    public Account resolve(String accountID) {
+        int position = find(accountID);
+        if (position == -1) {
+            return null;
         }
-        return -1; // Account not found
+        return accounts[position];
     }
 
     /**
@@ -129,6 +220,28 @@ public class Bank {
         }
     }
 
+    /**
+     * Read the bank accounts file through a memory mapping instead of a
+     * Scanner. Same file format and result as loadAccounts, but the bytes
+     * are scanned in place, which is much faster on large files.
+     * 
+     * @param fileName the file containing the bank accounts.
+     * 
+     * @return true if the file was read successfully, false otherwise.
+     */
+    public boolean loadAccountsMapped(String fileName) {
+        try {
+            new MappedAccountLoader(this).load(fileName);
+            return true;
+        } catch (NoSuchFileException e) {
+            System.out.println("file not found. " + e.getMessage());
+            return false;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
     /**
      * Write all accounts in the bank to a file.
      * 
@@ -142,11 +255,17 @@ public class Bank {
     public boolean writeAccounts(String filename) {
         try {
             writer = new FileWriter(filename);
+            // build lines in one reused builder, written out in large chunks
+            StringBuilder lines = new StringBuilder(1 << 16);
             for (int i = 0; i < accountCount; i++) {
                 Account account = accounts[i];
-                String line = account.toCSV();
-                writer.write(line + "\n");
+                account.appendTo(lines).append('\n');
+                if (lines.length() >= 1 << 16) {
+                    writer.append(lines);
+                    lines.setLength(0);
+                }
             }
+            writer.append(lines);
             writer.close();
             return true;
         } catch (IOException | IllegalArgumentException e) {
@@ -154,6 +273,194 @@ public class Bank {
         }
     }
 
+    /**
+     * Suffix of the delta file kept next to an incrementally written
+     * accounts file.
+     */
+    public static final String DELTA_SUFFIX = ".delta";
+
+    /**
+     * The delta file is compacted into the full file once it grows past
+     * this fraction (1 / COMPACT_DIVISOR) of the full file.
+     */
+    static final int COMPACT_DIVISOR = 4;
+
+    /**
+     * Write the accounts changed since the last write to a file, so a run
+     * that touches few accounts writes little.
+     * 
+     * The first write of a file, in this bank, writes every account to it.
+     * Later writes append the lines of the dirty accounts, see
+     * Account.isDirty, to the delta file (filename + DELTA_SUFFIX); a line
+     * there replaces the line of the same account in the full file, and
+     * later lines win. When the delta file passes a quarter of the full
+     * file it is compacted: the full file is rewritten and the delta file
+     * removed. loadAccountsIncremental reads both files back.
+     * 
+     * @param filename the name of the full accounts file.
+     * 
+     * @return true if the accounts were written successfully, false otherwise.
+     */
+    public boolean writeAccountsIncremental(String filename) {
+        File full = new File(filename);
+        File delta = new File(filename + DELTA_SUFFIX);
+        if (!filename.equals(persistedFile) || !full.exists()) {
+            // the files on disk may not match this bank, start over
+            if (delta.exists() && !delta.delete()) {
+                return false;
+            }
+            return compactAccounts(filename);
+        }
+        // appended even before a compaction, so that a crash between the
+        // rename and the delete below leaves a delta agreeing with the file
+        if (!appendDirtyAccounts(delta)) {
+            return false;
+        }
+        if (delta.length() > full.length() / COMPACT_DIVISOR) {
+            return compactAccounts(filename);
+        }
+        return true;
+    }
+
+    /**
+     * Append the lines of the dirty accounts to a delta file and mark them
+     * clean.
+     */
+    private boolean appendDirtyAccounts(File delta) {
+        try (FileWriter out = new FileWriter(delta, true)) {
+            StringBuilder lines = new StringBuilder(1 << 16);
+            for (int i = 0; i < accountCount; i++) {
+                Account account = accounts[i];
+                if (account.isDirty()) {
+                    account.appendTo(lines).append('\n');
+                    if (lines.length() >= 1 << 16) {
+                        out.append(lines);
+                        lines.setLength(0);
+                    }
+                }
+            }
+            out.append(lines);
+        } catch (IOException e) {
+            return false;
+        }
+        markAllClean();
+        return true;
+    }
+
+    /**
+     * Rewrite the full accounts file through a temporary file and an
+     * atomic rename, then remove the delta file.
+     */
+    private boolean compactAccounts(String filename) {
+        File temporary = new File(filename + ".tmp");
+        if (!writeAccounts(temporary.getPath())) {
+            return false;
+        }
+        try {
+            Files.move(
+                    temporary.toPath(),
+                    new File(filename).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(new File(filename + DELTA_SUFFIX).toPath());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        markAllClean();
+        persistedFile = filename;
+        return true;
+    }
+
+    private void markAllClean() {
+        for (int i = 0; i < accountCount; i++) {
+            accounts[i].markClean();
+        }
+    }
+
+    /**
+     * Read an accounts file written by writeAccountsIncremental: the full
+     * file, then the lines of its delta file, if any, each replacing the
+     * account with the same ID or adding it. An incomplete last line, left
+     * by a crash while appending, is ignored.
+     * 
+     * Later calls to writeAccountsIncremental with the same file only
+     * append the accounts changed after this load.
+     * 
+     * @param filename the name of the full accounts file.
+     * 
+     * @return true if the files were read successfully, false otherwise.
+     */
+    public boolean loadAccountsIncremental(String filename) {
+        if (!loadAccounts(filename)) {
+            return false;
+        }
+        File delta = new File(filename + DELTA_SUFFIX);
+        if (delta.exists()) {
+            String text;
+            try {
+                text = Files.readString(delta.toPath());
+            } catch (IOException e) {
+                e.printStackTrace();
+                return false;
+            }
+            int start = 0;
+            int end = text.indexOf('\n');
+            while (end != -1) {
+                Account account = Account.make(text.substring(start, end));
+                int position = indexOf(account);
+                if (position == -1) {
+                    add(account);
+                } else {
+                    accounts[position] = account;
+                }
+                start = end + 1;
+                end = text.indexOf('\n', start);
+            }
+        }
+        markAllClean();
+        persistedFile = filename;
+        return true;
+    }
+
+    /**
+     * Write all accounts in the bank to a binary snapshot, see
+     * AccountSnapshot for the format.
+     * 
+     * @param fileName the name of the snapshot file.
+     * 
+     * @return true if the snapshot was written successfully, false otherwise.
+     */
+    public boolean writeSnapshot(String fileName) {
+        try {
+            AccountSnapshot.write(accounts, accountCount, fileName);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Fill the bank from a binary snapshot written by writeSnapshot. Nothing
+     * is added if the snapshot is damaged.
+     * 
+     * @param fileName the name of the snapshot file.
+     * 
+     * @return true if the snapshot was read successfully, false otherwise.
+     */
+    public boolean loadSnapshot(String fileName) {
+        try {
+            AccountSnapshot.load(fileName, this);
+            return true;
+        } catch (NoSuchFileException e) {
+            System.out.println("file not found. " + e.getMessage());
+            return false;
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+            return false;
+        }
+    }
+
     // Phase 3
 
     /**
@@ -177,6 +484,11 @@ public class Bank {
      * Process a file containing transactions and apply them to the appropriate
      * accounts.
      * 
+     * The transactions array grows as needed, so the whole file is held in
+     * memory. Use processTransactionFile to apply large files without
+     * loading them first. Empty lines are skipped, as TransactionParser
+     * does.
+     * 
      * @param transactionFile - The file containing the transactions.
      * 
      * @return transactions - an array of all the transactions listed in the file.
@@ -191,7 +503,18 @@ public class Bank {
                     Scanner scanner = new Scanner(new File(transactionFile))) {
                 while (scanner.hasNextLine()) {
                     String line = scanner.nextLine();
+                    if (line.isEmpty()) {
+                        continue;
+                    }
                     Transaction trs = Transaction.make(line);
+                    if (transactionsCount >= transactions.length) {
+                        // double the buffer instead of overflowing it
+                        Transaction[] newTransactions = new Transaction[
+                                transactions.length * 2];
+                        System.arraycopy(transactions, 0, newTransactions, 0,
+                                transactions.length);
+                        transactions = newTransactions;
+                    }
                     transactions[transactionsCount] = trs;
                     transactionsCount++;
                 }
@@ -239,6 +562,9 @@ public class Bank {
      * Method processes all transactions and changes accounts
      * balances in the bank.
      * 
+     * Per-stage counters for this run are available from getStats()
+     * afterwards.
+     * 
      * @param Transaction [] transations - array of all the transactions
      * to be processed.
      * 
@@ -247,6 +573,7 @@ public class Bank {
      */
     public int processTransactions(Transaction[] transactions) {
         int transactionsProcessed = 0;
+        stats = new ProcessingStats();
         try {
             /**
              * FBK
@@ -262,23 +589,383 @@ public class Bank {
                  * for a typo bug.
                  */
                 Transaction tx = transactions[i];
-                if (validateAcctExists(tx.getAccountNumber())) {
-                    Account target = accounts[find(tx.getAccountNumber())];
-                    if (tx.validate(target, audit)) {
-                        tx.execute(target, audit);
-                        transactionsProcessed++;
-                    }
-                } else {
-                    // target account absent
-                    audit.recordNoSuchAccount(tx);
+                if (apply(tx, i + 1, audit, stats)) {
+                    transactionsProcessed++;
                 }
-
             }
             audit.close();
+            commitJournal();
+        } catch (IOException e) {
+            // problem with Audit constructor
+            e.printStackTrace();
+        }
+        return transactionsProcessed;
+    }
+
+    /**
+     * Process the loaded transactions on several threads. Transactions are
+     * sharded by account, so each account still sees them in file order,
+     * and the audit file lists them in file order too.
+     * 
+     * @param transactions - array of all the transactions to be processed.
+     * @param threads      - number of worker threads, at least 1.
+     * 
+     * @return count of processed transactions.
+     */
+    public int processTransactionsParallel(
+            Transaction[] transactions,
+            int threads) {
+        ParallelProcessor processor = new ParallelProcessor(this, threads);
+        int transactionsProcessed = 0;
+        try {
+            transactionsProcessed = processor.process(
+                    transactions, transactionsCount, "data/audit.log");
+            commitJournal();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        stats = processor.getStats();
+        return transactionsProcessed;
+    }
+
+    /**
+     * Process the transactions in batches: accounts and balances are
+     * gathered into primitive arrays first, then new balances and the
+     * overdraft check are computed for the whole batch in tight loops. The
+     * results and audit lines are the same as processTransactions.
+     * 
+     * @param transactions - array of all the transactions to be processed.
+     * 
+     * @return count of processed transactions.
+     */
+    public int processTransactionsBatched(Transaction[] transactions) {
+        BatchProcessor processor = new BatchProcessor(this);
+        int transactionsProcessed = 0;
+        try {
+            Audit audit = new Audit("data/audit.log");
+            transactionsProcessed = processor.process(
+                    transactions, transactionsCount, audit);
+            audit.close();
+            commitJournal();
+        } catch (IOException e) {
+            // problem with Audit constructor
+            e.printStackTrace();
+        }
+        stats = processor.getStats();
+        return transactionsProcessed;
+    }
+
+    /**
+     * Stream a transactions file: each line is parsed and applied to its
+     * account straight away, without being kept. Memory use stays the same
+     * whatever the size of the file.
+     * 
+     * Per-stage counters for this run are available from getStats()
+     * afterwards.
+     * 
+     * @param transactionFile - CSV file of transactions, one per line.
+     * @param auditFile       - log file receiving the audit lines.
+     * 
+     * @return count of processed transactions.
+     * 
+     * @throws IllegalArgumentException if either file name is null.
+     */
+    public int processTransactionFile(String transactionFile, String auditFile) {
+        if (transactionFile == null || auditFile == null) {
+            throw new IllegalArgumentException("File cannot be null.");
+        }
+        Audit audit;
+        try {
+            audit = new Audit(auditFile);
         } catch (IOException e) {
             // problem with Audit constructor
             e.printStackTrace();
+            return 0;
+        }
+        try {
+            return processTransactionFile(transactionFile, audit);
+        } finally {
+            audit.close();
+        }
+    }
+
+    /**
+     * Stream a transactions file into the given audit, eg an AsyncAudit so
+     * this thread does not wait on the audit file. The caller closes the
+     * audit.
+     * 
+     * @param transactionFile - CSV file of transactions, one per line.
+     * @param audit           - audit receiving the outcome of each line.
+     * 
+     * @return count of processed transactions.
+     * 
+     * @throws IllegalArgumentException if the file name or audit is null.
+     */
+    public int processTransactionFile(String transactionFile, Audit audit) {
+        if (transactionFile == null) {
+            throw new IllegalArgumentException("File cannot be null.");
+        }
+        if (audit == null) {
+            throw new IllegalArgumentException("audit must not be null.");
+        }
+        int transactionsProcessed = 0;
+        stats = new ProcessingStats();
+        try (TransactionParser parser = new TransactionParser(
+                transactionFile)) {
+            TransactionRecord record = new TransactionRecord();
+            long sequence = 0;
+            while (parser.next(record)) {
+                sequence++;
+                if (apply(record, sequence, audit, stats)) {
+                    transactionsProcessed++;
+                }
+            }
+            commitJournal();
+        } catch (IOException e) {
+            e.printStackTrace();
         }
         return transactionsProcessed;
     }
+
+    /**
+     * Apply one transaction to its account: resolve the account, validate
+     * the transaction and execute it, recording the outcome in the audit.
+     * 
+     * Only reads the account table, so several threads may call it at once
+     * as long as each account is only updated by one of them.
+     * 
+     * @param tx    - transaction to apply.
+     * @param audit - audit receiving the outcome.
+     * @param stats - counters updated with the time spent in each stage.
+     * 
+     * @return true if the transaction was executed, false if its account
+     *         is absent or it did not validate.
+     */
+    boolean apply(Transaction tx, Audit audit, ProcessingStats stats) {
+        return apply(tx, 0, audit, stats);
+    }
+
+    /**
+     * Apply one transaction of a feed, see apply(Transaction, Audit,
+     * ProcessingStats).
+     * 
+     * @param tx       - transaction to apply.
+     * @param sequence - number of the transaction in its feed, from 1, or
+     *                 0 if it is not part of one; see executed.
+     * @param audit    - audit receiving the outcome.
+     * @param stats    - counters updated with the time spent in each stage.
+     * 
+     * @return true if the transaction was executed, false if its account
+     *         is absent or it did not validate.
+     */
+    boolean apply(
+            Transaction tx,
+            long sequence,
+            Audit audit,
+            ProcessingStats stats) {
+        // the clock is only read for sampled transactions, the counters
+        // are always kept
+        int weight = stats.sample();
+        long start = time(weight);
+        String accountID = tx.getAccountNumber();
+        // checking the filter here, not through find, to count its rejects
+        boolean rejected = fastReject && !filter.mightContain(accountID);
+        int position = rejected ? -1 : index.get(accountID);
+        return apply(tx, sequence, position, rejected, weight, start, audit,
+                stats);
+    }
+
+    /**
+     * Apply the current line of a record like apply(Transaction, ...),
+     * resolving its account from the packed ID so no String or Transaction
+     * is created for the line. The audit reads the line through the
+     * record's reusable view.
+     * 
+     * @param record   - parsed line to apply.
+     * @param sequence - line number of the record in its file, from 1.
+     * @param audit    - audit receiving the outcome.
+     * @param stats    - counters updated with the time spent in each stage.
+     * 
+     * @return true if the transaction was executed, false if its account
+     *         is absent or it did not validate.
+     */
+    boolean apply(
+            TransactionRecord record,
+            long sequence,
+            Audit audit,
+            ProcessingStats stats) {
+        long packed = record.getPackedID();
+        if (packed == AccountID.NOT_PACKED) {
+            return apply(record.asTransaction(), sequence, audit, stats);
+        }
+        int weight = stats.sample();
+        long start = time(weight);
+        // a packed ID is its own filter key, see AccountFilter.key
+        boolean rejected = fastReject && !filter.mightContainKey(packed);
+        int position = rejected ? -1 : index.get(packed);
+        return apply(record.asTransaction(), sequence, position, rejected,
+                weight, start, audit, stats);
+    }
+
+    /**
+     * Validate and execute a transaction whose account was looked up.
+     */
+    private boolean apply(
+            Transaction tx,
+            long sequence,
+            int position,
+            boolean rejected,
+            int weight,
+            long start,
+            Audit audit,
+            ProcessingStats stats) {
+        Account target = position == -1 ? null : accounts[position];
+        // the audit times its lines only for sampled transactions too
+        audit.setTimed(weight != 0);
+        long resolved = time(weight);
+        stats.addLookup(weight * (resolved - start));
+
+        if (target == null) {
+            // target account absent
+            stats.addMiss(rejected);
+            audit.recordNoSuchAccount(tx);
+            stats.addAudit(weight * (time(weight) - resolved));
+            stats.addTransaction(false);
+            return false;
+        }
+
+        long auditBefore = audit.getRecordNanos();
+        boolean valid = tx.validate(target, audit);
+        long validated = time(weight);
+        long auditNanos = audit.getRecordNanos() - auditBefore;
+        stats.addValidate(weight * (validated - resolved - auditNanos));
+        if (!valid) {
+            stats.addAudit(weight * auditNanos);
+            stats.addTransaction(false);
+            return false;
+        }
+
+        tx.execute(target, audit);
+        executed(tx, target, sequence);
+        long executed = time(weight);
+        long executeAuditNanos = audit.getRecordNanos() - auditBefore
+                - auditNanos;
+        stats.addExecute(weight * (executed - validated - executeAuditNanos));
+        stats.addAudit(weight * (auditNanos + executeAuditNanos));
+        stats.addTransaction(true);
+        return true;
+    }
+
+    /**
+     * @return the current time in nanoseconds for a sampled transaction,
+     *         0 for one that is not timed.
+     */
+    static long time(int weight) {
+        return weight == 0 ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Journal a transaction that was just executed and add it to the
+     * account history, for whichever of them is on.
+     * 
+     * The history numbers the transaction like the journal when it is on,
+     * so both share one numbering, else by its number in the feed. Either
+     * way the number does not depend on which transactions before it were
+     * executed, nor on the order in which ParallelProcessor workers finish.
+     * 
+     * @param tx       - executed transaction.
+     * @param target   - account it was executed on.
+     * @param sequence - number of the transaction in its feed, from 1, or
+     *                 0 to let the history number it after its last entry.
+     * 
+     * @throws UncheckedIOException if the journal cannot be written.
+     */
+    void executed(Transaction tx, Account target, long sequence) {
+        if (journal != null) {
+            try {
+                sequence = journal.record(tx);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (history != null) {
+            String accountID = tx.getAccountNumber();
+            long balance = target.getNewBalanceCents();
+            if (sequence == 0) {
+                history.record(accountID, balance);
+            } else {
+                history.record(accountID, sequence,
+                        System.currentTimeMillis(), balance);
+            }
+        }
+    }
+
+    /**
+     * Force the journal's last group to disk at the end of a run.
+     */
+    void commitJournal() throws IOException {
+        if (journal != null) {
+            journal.commit();
+        }
+    }
+
+    /**
+     * Checkpoint the journal, if one is on, so that changes it does not
+     * record, such as month-end interest, survive a crash.
+     */
+    void checkpointJournal() throws IOException {
+        if (journal != null) {
+            journal.checkpoint();
+        }
+    }
+
+    /**
+     * Get the per-stage counters of the last processing run.
+     * 
+     * @return counters for lookup, validate, execute and audit.
+     */
+    public ProcessingStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Journal every executed transaction from now on, so the account table
+     * can be rebuilt after a crash. Pass null to stop journaling.
+     * 
+     * @param journal - open journal, see TransactionJournal.recover.
+     */
+    public void setJournal(TransactionJournal journal) {
+        Bank.journal = journal;
+    }
+
+    /**
+     * Record the balance left by every executed transaction from now on,
+     * for point-in-time queries. Pass null to stop recording.
+     * 
+     * @param history - history receiving the balances.
+     */
+    public void setHistory(AccountHistory history) {
+        Bank.history = history;
+    }
+
+    /**
+     * Get the filter over the IDs of the bank's accounts, for its memory
+     * and expected false positive rate. The observed rate of a run is in
+     * ProcessingStats.getFalsePositiveRate.
+     * 
+     * @return the account filter.
+     */
+    public AccountFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Turn checking the account filter before the index on or off; it is
+     * on by default.
+     * 
+     * @param enabled - whether lookups check the filter first.
+     */
+    public void setFastReject(boolean enabled) {
+        fastReject = enabled;
+    }
 }
\ No newline at end of file
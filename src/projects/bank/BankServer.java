@@ -0,0 +1,228 @@
+package projects.bank;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Line-based TCP front end for a ConcurrentBank, listening on loopback.
+ *
+ * Clients send transaction lines in the format of Transaction.make, eg
+ * "deposit,wz240833,500.00", and get one reply line per request:
+ *
+ * "executed,BALANCE" - the transaction was applied
+ * "nonsufficient funds,BALANCE" - the withdrawal was refused
+ * "no such account" - the account does not exist
+ * "error,MESSAGE" - the line could not be parsed
+ *
+ * A request line longer than MAX_LINE characters closes the connection,
+ * so a client sending bytes without a newline cannot fill the heap.
+ *
+ * Each connection is served by its own virtual thread, so thousands of
+ * mostly idle clients cost little. Replies are flushed once no further
+ * request is waiting, so a client may pipeline several lines.
+ */
+public class BankServer implements AutoCloseable {
+
+    /** Longest request line accepted, in characters. */
+    public static final int MAX_LINE = 1024;
+
+    private final ConcurrentBank bank;
+    private final ServerSocket server;
+    private final ExecutorService connections;
+    private Thread acceptor;
+
+    /**
+     * Bind a loopback port. Connections are only accepted once the
+     * acceptor is started, see start.
+     */
+    private BankServer(ConcurrentBank bank, int port) throws IOException {
+        if (bank == null) {
+            throw new IllegalArgumentException("bank must not be null.");
+        }
+        this.bank = bank;
+        server = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        connections = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Start serving on a loopback port.
+     *
+     * @param bank - bank the requests are submitted to.
+     * @param port - port to listen on, or 0 for any free port.
+     *
+     * @return the running server.
+     *
+     * @throws IOException              if the port cannot be bound.
+     * @throws IllegalArgumentException if bank is null.
+     */
+    public static BankServer start(ConcurrentBank bank, int port)
+            throws IOException {
+        BankServer server = new BankServer(bank, port);
+        // started once the server is fully built
+        server.acceptor = Thread.ofVirtual().name("bank-acceptor")
+                .start(server::accept);
+        return server;
+    }
+
+    /**
+     * @return the port the server listens on.
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    private void accept() {
+        try {
+            while (true) {
+                Socket client = server.accept();
+                connections.submit(() -> serve(client));
+            }
+        } catch (SocketException e) {
+            // the server socket was closed
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void serve(Socket client) {
+        try (client;
+                BufferedReader in = new BufferedReader(new InputStreamReader(
+                        client.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new BufferedWriter(new OutputStreamWriter(
+                        client.getOutputStream(), StandardCharsets.UTF_8))) {
+            client.setTcpNoDelay(true);
+            StringBuilder request = new StringBuilder(64);
+            StringBuilder reply = new StringBuilder(64);
+            ConcurrentBank.Receipt receipt = new ConcurrentBank.Receipt();
+            String line = readLine(in, request);
+            while (line != null) {
+                reply.setLength(0);
+                handle(line, reply, receipt);
+                out.append(reply).append('\n');
+                if (!in.ready()) {
+                    out.flush();
+                }
+                line = readLine(in, request);
+            }
+        } catch (IOException e) {
+            // the client went away, or sent a line that is too long
+        }
+    }
+
+    /**
+     * Read one line, without its line separator, refusing lines longer
+     * than MAX_LINE.
+     *
+     * @param in   - request stream.
+     * @param line - reusable builder for the line.
+     *
+     * @return the line, or null at the end of the stream.
+     *
+     * @throws IOException if the stream fails or the line is too long.
+     */
+    static String readLine(Reader in, StringBuilder line) throws IOException {
+        line.setLength(0);
+        int c = in.read();
+        if (c == -1) {
+            return null;
+        }
+        while (c != -1 && c != '\n') {
+            if (line.length() == MAX_LINE) {
+                throw new IOException("request line too long.");
+            }
+            line.append((char) c);
+            c = in.read();
+        }
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+            line.setLength(end - 1);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Apply one request line and build its reply, without a line
+     * separator.
+     *
+     * @param line    - transaction line.
+     * @param reply   - builder receiving the reply.
+     * @param receipt - this connection's receipt, reused for each request.
+     */
+    void handle(String line, StringBuilder reply, ConcurrentBank.Receipt receipt) {
+        Transaction tx;
+        try {
+            tx = Transaction.make(line);
+        } catch (RuntimeException e) {
+            reply.append("error,").append(e.getMessage());
+            return;
+        }
+        TransactionResult result = bank.submit(tx, receipt);
+        if (result == TransactionResult.NO_SUCH_ACCOUNT) {
+            reply.append("no such account");
+            return;
+        }
+        if (result == TransactionResult.EXECUTED) {
+            reply.append("executed,");
+        } else {
+            reply.append("nonsufficient funds,");
+        }
+        Money.appendTo(reply, receipt.getBalanceCents());
+    }
+
+    /**
+     * Stop accepting connections and close the open ones.
+     */
+    @Override
+    public void close() {
+        try {
+            server.close();
+            acceptor.join();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        connections.shutdownNow();
+    }
+
+    /**
+     * Serve the accounts of a CSV file until the process is stopped.
+     *
+     * Arguments: accounts file (default data/accounts.csv) and port
+     * (default 5131).
+     */
+    public static void main(String[] args)
+            throws IOException, InterruptedException {
+        String accountsFile = "data/accounts.csv";
+        int port = 5131;
+        if (args.length > 0) {
+            accountsFile = args[0];
+        }
+        if (args.length > 1) {
+            port = Integer.parseInt(args[1]);
+        }
+        Bank source = new Bank();
+        if (!source.loadAccounts(accountsFile)) {
+            return;
+        }
+        BankServer server = start(new ConcurrentBank(source), port);
+        System.out.println(String.format(
+                "serving %d accounts on port %d",
+                source.getCount(),
+                server.getPort()));
+        // virtual threads do not keep the JVM alive
+        server.acceptor.join();
+    }
+}
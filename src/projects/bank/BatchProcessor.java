@@ -0,0 +1,151 @@
+package projects.bank;
+
+/**
+ * Applies transactions to a bank a batch at a time instead of one by one.
+ *
+ * For each batch the target accounts are resolved and their balances and
+ * the signed transaction amounts gathered into primitive arrays. The new
+ * balances and the overdraft check are then computed for the whole batch in
+ * branch-free loops over those arrays, which the JIT compiles to SIMD
+ * instructions. Finally the outcomes are applied and audited in transaction
+ * order.
+ *
+ * Deposits always validate, and a withdrawal validates when the balance
+ * left would be positive, exactly as in Deposit and Withdrawal. Only
+ * withdrawals that fail the check go back through Transaction.validate,
+ * which writes their nonsufficient funds warning, and so do all
+ * withdrawals while DailyLimits are set, since the limit depends on each
+ * account's earlier withdrawals.
+ */
+public class BatchProcessor {
+
+    /** Transactions gathered per batch, sized to stay in the CPU cache. */
+    private static final int BATCH_SIZE = 1 << 12;
+
+    private final Bank bank;
+    private final Account[] targets = new Account[BATCH_SIZE];
+    private final long[] balances = new long[BATCH_SIZE];
+    private final long[] amounts = new long[BATCH_SIZE];
+    private final long[] newBalances = new long[BATCH_SIZE];
+    private final boolean[] valid = new boolean[BATCH_SIZE];
+    private ProcessingStats stats;
+
+    /**
+     * @param bank - bank holding the accounts to update.
+     *
+     * @throws IllegalArgumentException if bank is null.
+     */
+    public BatchProcessor(Bank bank) {
+        if (bank == null) {
+            throw new IllegalArgumentException("bank must not be null.");
+        }
+        this.bank = bank;
+        stats = new ProcessingStats();
+    }
+
+    /**
+     * Apply the first count transactions, recording each outcome in the
+     * audit in the order of the transactions.
+     *
+     * @param transactions - transactions in file order.
+     * @param count        - number of transactions to apply.
+     * @param audit        - audit receiving the outcome of each one.
+     *
+     * @return count of processed transactions.
+     *
+     * @throws IllegalArgumentException if transactions or audit is null.
+     */
+    public int process(Transaction[] transactions, int count, Audit audit) {
+        if (transactions == null || audit == null) {
+            throw new IllegalArgumentException(
+                    "transactions and audit must not be null.");
+        }
+        stats = new ProcessingStats();
+        int processed = 0;
+        for (int start = 0; start < count; start += BATCH_SIZE) {
+            int size = Math.min(BATCH_SIZE, count - start);
+            processed += processBatch(transactions, start, size, audit);
+        }
+        return processed;
+    }
+
+    private int processBatch(
+            Transaction[] transactions,
+            int start,
+            int size,
+            Audit audit) {
+        // gather accounts, balances and signed amounts
+        long began = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            Transaction tx = transactions[start + i];
+            Account target = bank.resolve(tx.getAccountNumber());
+            targets[i] = target;
+            balances[i] = target == null ? 0 : target.getCurrentBalanceCents();
+            long amount = tx.getAmountCents();
+            amounts[i] = tx.getType() == TransactionType.DEPOSIT ? amount : -amount;
+        }
+        long gathered = System.nanoTime();
+        stats.addLookups(size, gathered - began);
+
+        // new balances and overdraft check for the whole batch
+        for (int i = 0; i < size; i++) {
+            newBalances[i] = balances[i] + amounts[i];
+        }
+        for (int i = 0; i < size; i++) {
+            valid[i] = amounts[i] > 0 | newBalances[i] > 0;
+        }
+        long checked = System.nanoTime();
+        stats.addValidations(size, checked - gathered);
+
+        // apply and audit in transaction order, timing the audit lines of
+        // sampled transactions only, see ProcessingStats
+        long auditNanos = 0;
+        boolean limited = DailyLimits.isEnabled();
+        int processed = 0;
+        int executed = 0;
+        for (int i = 0; i < size; i++) {
+            int weight = stats.sample();
+            audit.setTimed(weight != 0);
+            long auditBefore = audit.getRecordNanos();
+            Transaction tx = transactions[start + i];
+            Account target = targets[i];
+            if (target == null) {
+                audit.recordNoSuchAccount(tx);
+                stats.addTransaction(false);
+            } else if (valid[i] && (amounts[i] > 0 || !limited)) {
+                if (amounts[i] > 0) {
+                    target.creditCents(amounts[i]);
+                } else {
+                    target.debitCents(-amounts[i]);
+                }
+                audit.recordExecute(tx, newBalances[i]);
+                bank.executed(tx, target, start + i + 1);
+                stats.addTransaction(true);
+                processed++;
+                executed++;
+            } else if (tx.validate(target, audit)) {
+                // a limited withdrawal, or the transaction disagrees
+                tx.execute(target, audit);
+                bank.executed(tx, target, start + i + 1);
+                stats.addTransaction(true);
+                processed++;
+                executed++;
+            } else {
+                stats.addTransaction(false);
+            }
+            targets[i] = null;
+            auditNanos += weight * (audit.getRecordNanos() - auditBefore);
+        }
+        audit.setTimed(false);
+        stats.addExecutions(executed, System.nanoTime() - checked - auditNanos);
+        stats.addAudits(size, auditNanos);
+        return processed;
+    }
+
+    /**
+     * @return the counters of the last call to process.
+     */
+    public ProcessingStats getStats() {
+        return stats;
+    }
+}
@@ -0,0 +1,184 @@
+package projects.bank;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Audit writing fixed-layout binary records instead of text lines, so
+ * nothing is formatted while transactions are processed and the records
+ * can be read back without parsing. AuditRecordReader reads them and can
+ * convert them to the text of Audit.
+ *
+ * Layout, all numbers big-endian:
+ *
+ * header - magic "BNKA" (int), format version (short)
+ * record - outcome (byte: 1 executed, 2 nonsufficient funds, 3 no such
+ * account, 4 daily limit exceeded), transaction type (byte: 1 deposit, 2
+ * withdrawal), time in epoch milliseconds (long), amount in cents (long),
+ * balance in cents (long, 0 for no such account, the amount withdrawn in the
+ * last 24 hours for daily limit exceeded), account ID (unsigned short byte
+ * length followed by UTF-8 bytes)
+ *
+ * An interest summary is stored as a record with outcome 5 and type 1,
+ * holding the total interest as the amount, the number of accounts credited
+ * as the balance and the account type label as the account ID.
+ */
+public class BinaryAudit extends Audit {
+
+    public static final int MAGIC = 0x424E4B41; // "BNKA"
+    public static final short VERSION = 1;
+
+    static final byte EXECUTED = 1;
+    static final byte NONSUFFICIENT_FUNDS = 2;
+    static final byte NO_SUCH_ACCOUNT = 3;
+    static final byte DAILY_LIMIT_EXCEEDED = 4;
+    static final byte INTEREST_ACCRUED = 5;
+    static final byte DEPOSIT = 1;
+    static final byte WITHDRAWAL = 2;
+    private static final int MAX_ID_BYTES = 0xffff;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+
+    /**
+     * @param fileName - binary audit file to create or overwrite.
+     *
+     * @throws IOException              if the file cannot be created.
+     * @throws IllegalArgumentException if fileName is null.
+     */
+    public BinaryAudit(String fileName) throws IOException {
+        super(Writer.nullWriter());
+        if (fileName == null) {
+            throw new IllegalArgumentException("fileName cannot be null.");
+        }
+        channel = FileChannel.open(
+                Path.of(fileName),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+    }
+
+    @Override
+    public void recordNoSuchAccount(Transaction t) {
+        record(NO_SUCH_ACCOUNT, t, 0);
+    }
+
+    @Override
+    public void recordNonSufficientFunds(Transaction t, long balanceCents) {
+        record(NONSUFFICIENT_FUNDS, t, balanceCents);
+    }
+
+    @Override
+    public void recordDailyLimitExceeded(Transaction t, long withdrawnCents) {
+        record(DAILY_LIMIT_EXCEEDED, t, withdrawnCents);
+    }
+
+    @Override
+    public void recordExecute(Transaction t, long balanceCents) {
+        record(EXECUTED, t, balanceCents);
+    }
+
+    @Override
+    public void recordInterestAccrued(
+            AccountType type,
+            long accounts,
+            long interestCents) {
+        record(INTEREST_ACCRUED, DEPOSIT, interestCents, accounts, type.label());
+    }
+
+    private void record(byte outcome, Transaction t, long balanceCents) {
+        byte type;
+        if (t.getType() == TransactionType.DEPOSIT) {
+            type = DEPOSIT;
+        } else {
+            type = WITHDRAWAL;
+        }
+        record(outcome, type, t.getAmountCents(), balanceCents, t.getAccountNumber());
+    }
+
+    private void record(
+            byte outcome,
+            byte type,
+            long amountCents,
+            long balanceCents,
+            String id) {
+        long start = startRecord();
+        // checked before anything is written, so a rejected ID leaves no
+        // partial record behind
+        byte[] utf8 = encode(id);
+        int length = utf8 == null ? id.length() : utf8.length;
+        if (buffer.remaining() < 28 + length) {
+            drain();
+        }
+        buffer.put(outcome);
+        buffer.put(type);
+        buffer.putLong(System.currentTimeMillis());
+        buffer.putLong(amountCents);
+        buffer.putLong(balanceCents);
+        buffer.putShort((short) length);
+        if (utf8 != null) {
+            buffer.put(utf8);
+        } else {
+            for (int i = 0; i < length; i++) {
+                buffer.put((byte) id.charAt(i));
+            }
+        }
+        endRecord(start);
+    }
+
+    /**
+     * @return the UTF-8 bytes of s, or null if it is plain ASCII and can be
+     *         written char by char.
+     *
+     * @throws IllegalArgumentException if s takes more than 65535 bytes.
+     */
+    private static byte[] encode(String s) {
+        // more chars than bytes allowed can never fit
+        if (s.length() > MAX_ID_BYTES) {
+            throw new IllegalArgumentException("account ID too long.");
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > MAX_ID_BYTES) {
+                    throw new IllegalArgumentException("account ID too long.");
+                }
+                return bytes;
+            }
+        }
+        return null;
+    }
+
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Write the buffered records and close the file.
+     */
+    @Override
+    public void close() {
+        drain();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        super.close();
+    }
+}
@@ -9,6 +9,15 @@ public class CheckingAccount extends Account {
         super(accountNumber, name, startingBalance);
     }
 
+    /**
+     * @param startingCents - current balance of the account, in cents.
+     * @param accountNumber - unique account identifier.
+     * @param name          - name of the account owner.
+     */
+    CheckingAccount(long startingCents, String accountNumber, String name) {
+        super(startingCents, accountNumber, name);
+    }
+
     /**
      * Returns Checking account type for a given account.
      */
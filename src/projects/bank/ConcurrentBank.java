@@ -0,0 +1,292 @@
+package projects.bank;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bank that many threads can submit transactions to at once, without
+ * locks unless a daily limit applies.
+ *
+ * Unlike Bank, whose state is static, each instance holds its own
+ * accounts. The account table is copied from a Bank when the instance is
+ * created and does not change afterwards, so lookups need no
+ * synchronization. Each balance is an atomic updated with compare-and-set:
+ * a deposit adds its amount, and a withdrawal re-checks the balance on
+ * every attempt, so it never overdraws even when it races with others.
+ *
+ * The rules are those of Deposit and Withdrawal, a withdrawal needing an
+ * amount below the balance and within the DailyLimits of its account type.
+ * A withdrawal from an account whose type has a limit holds that account's
+ * WithdrawalWindow while it checks and updates the balance, so two of them
+ * cannot both fit under the limit; deposits and unlimited withdrawals never
+ * wait. Withdrawals the account made in its Bank count towards the limit
+ * as if made when this bank was created.
+ *
+ * Where it differs from Bank: balances here accumulate, every executed
+ * transaction changing the balance the next one sees, whereas Bank
+ * computes each new balance from the unchanged current balance. Nothing is
+ * journaled or marked for writeAccountsIncremental, and the accounts of the
+ * source Bank are left as they were; toBank copies the balances back.
+ *
+ * Each balance sits on its own 64-byte cache line, so threads updating
+ * neighbouring accounts do not slow each other down.
+ */
+public class ConcurrentBank {
+
+    /** Longs per balance slot, one cache line. */
+    private static final int STRIDE = 8;
+
+    private final Account[] accounts;
+    private final AccountIndex index;
+    private final AtomicLongArray balances;
+    private final AtomicReferenceArray<WithdrawalWindow> windows;
+    private final LongAdder retries = new LongAdder();
+    // one per submitting thread, for submit(tx, audit)
+    private final ThreadLocal<Receipt> receipts =
+            ThreadLocal.withInitial(Receipt::new);
+
+    /**
+     * Copy the accounts of a bank, starting from their current balances.
+     *
+     * @param bank - bank holding the accounts.
+     *
+     * @throws IllegalArgumentException if bank is null.
+     */
+    public ConcurrentBank(Bank bank) {
+        if (bank == null) {
+            throw new IllegalArgumentException("bank must not be null.");
+        }
+        accounts = bank.getAccounts();
+        index = new AccountIndex(accounts.length);
+        balances = new AtomicLongArray(accounts.length * STRIDE);
+        windows = new AtomicReferenceArray<>(accounts.length);
+        for (int i = 0; i < accounts.length; i++) {
+            long packed = accounts[i].getPackedID();
+            if (packed == AccountID.NOT_PACKED) {
+                index.put(accounts[i].getID(), i);
+            } else {
+                index.put(packed, i);
+            }
+            balances.set(i * STRIDE, accounts[i].getCurrentBalanceCents());
+            long withdrawn = accounts[i].getWithdrawnTodayCents();
+            if (withdrawn > 0) {
+                window(i).add(DailyLimits.now(), withdrawn);
+            }
+        }
+    }
+
+    /**
+     * Apply a transaction to its account. Safe to call from any number of
+     * threads.
+     *
+     * @param tx - transaction to apply.
+     *
+     * @return the outcome of the transaction.
+     *
+     * @throws IllegalArgumentException if tx is null.
+     */
+    public TransactionResult submit(Transaction tx) {
+        return submit(tx, (Receipt) null);
+    }
+
+    /**
+     * Apply a transaction to its account and fill a receipt with the
+     * outcome and the balance the transaction left: the balance installed
+     * by its compare-and-set, or the one a refused withdrawal saw. Unlike a
+     * later getBalanceCents, it never includes other threads' updates.
+     *
+     * @param tx      - transaction to apply.
+     * @param receipt - receipt to fill, or null.
+     *
+     * @return the outcome of the transaction.
+     *
+     * @throws IllegalArgumentException if tx is null.
+     */
+    public TransactionResult submit(Transaction tx, Receipt receipt) {
+        if (tx == null) {
+            throw new IllegalArgumentException("transaction must not be null.");
+        }
+        int row = index.get(tx.getAccountNumber());
+        if (row == -1) {
+            return fill(receipt, TransactionResult.NO_SUCH_ACCOUNT, 0);
+        }
+        int slot = row * STRIDE;
+        long amount = tx.getAmountCents();
+        if (tx.getType() == TransactionType.DEPOSIT) {
+            long balance = balances.getAndAdd(slot, amount) + amount;
+            return fill(receipt, TransactionResult.EXECUTED, balance);
+        }
+        if (DailyLimits.isEnabled()) {
+            long limit = DailyLimits.getLimitCents(accounts[row].getType());
+            if (limit != DailyLimits.NO_LIMIT) {
+                return withdrawLimited(receipt, row, amount, limit);
+            }
+        }
+        long balance = balances.get(slot);
+        while (amount < balance) {
+            long witness = balances.compareAndExchange(
+                    slot, balance, balance - amount);
+            if (witness == balance) {
+                return fill(receipt, TransactionResult.EXECUTED, balance - amount);
+            }
+            // another thread changed the balance first, check again
+            retries.increment();
+            balance = witness;
+        }
+        return fill(receipt, TransactionResult.NONSUFFICIENT_FUNDS, balance);
+    }
+
+    /**
+     * Withdraw while holding the account's window, checking the balance
+     * first and then the limit, as Withdrawal.validate does.
+     */
+    private TransactionResult withdrawLimited(
+            Receipt receipt,
+            int row,
+            long amount,
+            long limit) {
+        int slot = row * STRIDE;
+        WithdrawalWindow window = window(row);
+        synchronized (window) {
+            long now = DailyLimits.now();
+            long balance = balances.get(slot);
+            while (amount < balance) {
+                long withdrawn = window.total(now);
+                if (amount > limit - withdrawn) {
+                    return fill(receipt, TransactionResult.DAILY_LIMIT_EXCEEDED, withdrawn);
+                }
+                long witness = balances.compareAndExchange(
+                        slot, balance, balance - amount);
+                if (witness == balance) {
+                    window.add(now, amount);
+                    return fill(receipt, TransactionResult.EXECUTED, balance - amount);
+                }
+                // a deposit changed the balance first, check again
+                retries.increment();
+                balance = witness;
+            }
+            return fill(receipt, TransactionResult.NONSUFFICIENT_FUNDS, balance);
+        }
+    }
+
+    private WithdrawalWindow window(int row) {
+        WithdrawalWindow window = windows.get(row);
+        if (window == null) {
+            windows.compareAndSet(row, null, new WithdrawalWindow());
+            window = windows.get(row);
+        }
+        return window;
+    }
+
+    private static TransactionResult fill(
+            Receipt receipt,
+            TransactionResult result,
+            long balanceCents) {
+        if (receipt != null) {
+            receipt.result = result;
+            receipt.balanceCents = balanceCents;
+        }
+        return result;
+    }
+
+    /**
+     * Apply a transaction and record its outcome in an audit. An Audit is
+     * not thread-safe, so each submitting thread needs its own. The balance
+     * recorded is the one the transaction left, see submit(tx, receipt).
+     *
+     * @param tx    - transaction to apply.
+     * @param audit - this thread's audit.
+     *
+     * @return the outcome of the transaction.
+     *
+     * @throws IllegalArgumentException if tx or audit is null.
+     */
+    public TransactionResult submit(Transaction tx, Audit audit) {
+        if (audit == null) {
+            throw new IllegalArgumentException("audit must not be null.");
+        }
+        Receipt receipt = receipts.get();
+        TransactionResult result = submit(tx, receipt);
+        if (result == TransactionResult.NO_SUCH_ACCOUNT) {
+            audit.recordNoSuchAccount(tx);
+        } else if (result == TransactionResult.NONSUFFICIENT_FUNDS) {
+            audit.recordNonSufficientFunds(tx, receipt.balanceCents);
+        } else if (result == TransactionResult.DAILY_LIMIT_EXCEEDED) {
+            audit.recordDailyLimitExceeded(tx, receipt.balanceCents);
+        } else {
+            audit.recordExecute(tx, receipt.balanceCents);
+        }
+        return result;
+    }
+
+    /**
+     * @param accountID - account identifier.
+     *
+     * @return the account's balance in cents.
+     *
+     * @throws IllegalArgumentException if the account does not exist.
+     */
+    public long getBalanceCents(String accountID) {
+        int row = index.get(accountID);
+        if (row == -1) {
+            throw new IllegalArgumentException("no such account: " + accountID);
+        }
+        return balances.get(row * STRIDE);
+    }
+
+    public int getCount() {
+        return accounts.length;
+    }
+
+    /**
+     * @return the number of compare-and-set attempts that lost a race and
+     *         had to be retried, a measure of contention.
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * Outcome of a submitted transaction and the balance it left. Reusable:
+     * each submit overwrites it, so a thread can keep one.
+     */
+    public static class Receipt {
+
+        private TransactionResult result;
+        private long balanceCents;
+
+        public TransactionResult getResult() {
+            return result;
+        }
+
+        /**
+         * @return the balance the transaction left, or the balance a
+         *         refused withdrawal saw, in cents; the amount withdrawn in
+         *         the last 24 hours for a withdrawal over the daily limit;
+         *         0 for no such account.
+         */
+        public long getBalanceCents() {
+            return balanceCents;
+        }
+    }
+
+    /**
+     * Build a bank holding the accounts with their balances at this point.
+     * Only consistent once no thread is submitting.
+     *
+     * @return a new Bank; Bank's state is static, so this replaces any
+     *         other bank's accounts.
+     */
+    public Bank toBank() {
+        Bank bank = new Bank();
+        for (int i = 0; i < accounts.length; i++) {
+            bank.add(Account.make(
+                    accounts[i].getType(),
+                    accounts[i].getID(),
+                    accounts[i].getOwner(),
+                    balances.get(i * STRIDE)));
+        }
+        return bank;
+    }
+}
@@ -0,0 +1,106 @@
+package projects.bank;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Daily withdrawal limits per account type, enforced by
+ * Withdrawal.validate.
+ *
+ * A limit caps the total withdrawn from one account over the last 24
+ * hours, tracked by a WithdrawalWindow on each account. No type has a
+ * limit until one is set, and accounts only allocate a window while a
+ * limit applies to their type.
+ */
+public class DailyLimits {
+
+    /** Limit of an account type that has none. */
+    public static final long NO_LIMIT = Long.MAX_VALUE;
+
+    private static final long[] limits = new long[AccountType.values().length];
+    // read without the lock by every withdrawal
+    private static volatile boolean enabled;
+    private static LongSupplier clock = System::currentTimeMillis;
+
+    static {
+        reset();
+    }
+
+    private DailyLimits() {
+    }
+
+    /**
+     * @param type   - account type the limit applies to.
+     * @param amount - most that may be withdrawn from one account in 24
+     *               hours.
+     *
+     * @throws IllegalArgumentException if type is null or amount is not
+     *                                  positive.
+     */
+    public static void setLimit(AccountType type, double amount) {
+        setLimitCents(type, Money.toCents(amount));
+    }
+
+    /**
+     * @param type  - account type the limit applies to.
+     * @param cents - most that may be withdrawn from one account in 24
+     *              hours, in cents, or NO_LIMIT.
+     *
+     * @throws IllegalArgumentException if type is null or cents is not
+     *                                  positive.
+     */
+    public static synchronized void setLimitCents(AccountType type, long cents) {
+        if (type == null) {
+            throw new IllegalArgumentException("type must not be null.");
+        }
+        if (cents <= 0) {
+            throw new IllegalArgumentException("limit must be positive.");
+        }
+        limits[type.ordinal()] = cents;
+        enabled = false;
+        for (long limit : limits) {
+            enabled |= limit != NO_LIMIT;
+        }
+    }
+
+    /**
+     * @return the limit of the account type in cents, or NO_LIMIT.
+     */
+    public static long getLimitCents(AccountType type) {
+        return limits[type.ordinal()];
+    }
+
+    /**
+     * @return true if any account type has a limit.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Remove the limits of all account types.
+     */
+    public static synchronized void reset() {
+        for (int i = 0; i < limits.length; i++) {
+            limits[i] = NO_LIMIT;
+        }
+        enabled = false;
+        clock = System::currentTimeMillis;
+    }
+
+    /**
+     * @return the current time in milliseconds since the epoch.
+     */
+    static long now() {
+        return clock.getAsLong();
+    }
+
+    /**
+     * Replace the clock, eg to move time forward in tests. Undone by
+     * reset.
+     *
+     * @param millis - source of the current time in epoch milliseconds.
+     */
+    static void setClock(LongSupplier millis) {
+        clock = millis;
+    }
+}
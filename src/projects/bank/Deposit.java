@@ -5,6 +5,20 @@ public class Deposit extends Transaction {
         super(accountID, transactionAmt);
     }
 
+    /**
+     * @param cents     - amount in cents, positive.
+     * @param accountID - account the deposit applies to.
+     */
+    Deposit(long cents, String accountID) {
+        super(cents, accountID);
+    }
+
+    /**
+     * For views that override the accessors, see TransactionRecord.
+     */
+    Deposit() {
+    }
+
     /**
      * Returns Deposit for a given transaction.
      */
@@ -29,7 +43,7 @@ public class Deposit extends Transaction {
      */
     @Override
     public void execute(Account account, Audit audit) {
-        account.credit(getAmount());
+        account.creditCents(getAmountCents());
         audit.recordExecute(this, account);
     }
 }
@@ -0,0 +1,259 @@
+package projects.bank;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Month-end interest job: credits one month of interest to every account
+ * with a positive balance, at the annual rate of its account type, in a
+ * single pass over the account table.
+ *
+ * The interest of an account is its current balance times a twelfth of
+ * the annual rate, rounded to the nearest cent, and is added to the
+ * current balance. The pass can run on one thread, split over a fork/join
+ * pool, or over the columns of an AccountStore; all three give the same
+ * balances and totals. Instead of a line per account, the audit gets one
+ * summary line per account type with a rate.
+ *
+ * No type earns interest until a rate is set for it.
+ *
+ * The journal only records transactions, so when the bank has one, a
+ * pass over the bank ends with a journal checkpoint, which writes the
+ * credited balances. A crash before the checkpoint loses the whole
+ * month's interest rather than part of it, and the job can be run again.
+ */
+public class InterestAccrual {
+
+    /** Accounts per fork/join task below which a range is not split. */
+    private static final int SPLIT_THRESHOLD = 1 << 14;
+    private static final AccountType[] TYPES = AccountType.values();
+
+    private final double[] annualRates = new double[TYPES.length];
+    private long[] accounts = new long[TYPES.length];
+    private long[] interestCents = new long[TYPES.length];
+
+    /**
+     * @param type       - account type the rate applies to.
+     * @param annualRate - yearly interest rate, eg 0.04 for 4%.
+     *
+     * @throws IllegalArgumentException if type is null or the rate is
+     *                                  negative.
+     */
+    public void setRate(AccountType type, double annualRate) {
+        if (type == null) {
+            throw new IllegalArgumentException("type must not be null.");
+        }
+        if (!(annualRate >= 0)) {
+            throw new IllegalArgumentException("rate must not be negative.");
+        }
+        annualRates[type.ordinal()] = annualRate;
+    }
+
+    /**
+     * @return the yearly interest rate of the account type, 0 if none was
+     *         set.
+     */
+    public double getRate(AccountType type) {
+        return annualRates[type.ordinal()];
+    }
+
+    /**
+     * Credit the interest to every account of a bank on the calling
+     * thread.
+     *
+     * @param bank  - bank holding the accounts.
+     * @param audit - audit receiving the summary lines.
+     *
+     * @return the total interest credited, in cents.
+     *
+     * @throws IllegalArgumentException if bank or audit is null.
+     * @throws UncheckedIOException     if the journal checkpoint cannot be
+     *                                  written.
+     */
+    public long accrue(Bank bank, Audit audit) {
+        check(bank, audit);
+        Account[] table = bank.getAccounts();
+        start();
+        accrue(table, 0, table.length, monthlyRates(), accounts, interestCents);
+        checkpoint(bank);
+        return finish(audit);
+    }
+
+    /**
+     * Credit the interest to every account of a bank, splitting the table
+     * into ranges applied by a fork/join pool.
+     *
+     * @param bank    - bank holding the accounts.
+     * @param audit   - audit receiving the summary lines.
+     * @param threads - number of worker threads.
+     *
+     * @return the total interest credited, in cents.
+     *
+     * @throws IllegalArgumentException if bank or audit is null, or
+     *                                  threads is below 1.
+     * @throws UncheckedIOException     if the journal checkpoint cannot be
+     *                                  written.
+     */
+    public long accrueParallel(Bank bank, Audit audit, int threads) {
+        check(bank, audit);
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1.");
+        }
+        Account[] table = bank.getAccounts();
+        start();
+        Range all = new Range(table, 0, table.length, monthlyRates());
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(all);
+        } finally {
+            pool.shutdown();
+        }
+        accounts = all.accounts;
+        interestCents = all.interestCents;
+        checkpoint(bank);
+        return finish(audit);
+    }
+
+    private static void checkpoint(Bank bank) {
+        try {
+            bank.checkpointJournal();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Credit the interest to every account of a columnar store.
+     *
+     * @param store - store holding the accounts.
+     * @param audit - audit receiving the summary lines.
+     *
+     * @return the total interest credited, in cents.
+     *
+     * @throws IllegalArgumentException if store or audit is null.
+     */
+    public long accrue(AccountStore store, Audit audit) {
+        check(store, audit);
+        start();
+        store.accrueInterest(monthlyRates(), accounts, interestCents);
+        return finish(audit);
+    }
+
+    /**
+     * @return the number of accounts of the type credited by the last run.
+     */
+    public long getAccounts(AccountType type) {
+        return accounts[type.ordinal()];
+    }
+
+    /**
+     * @return the interest credited to the accounts of the type by the
+     *         last run, in cents.
+     */
+    public long getInterestCents(AccountType type) {
+        return interestCents[type.ordinal()];
+    }
+
+    private static void check(Object table, Audit audit) {
+        if (table == null || audit == null) {
+            throw new IllegalArgumentException(
+                    "accounts and audit must not be null.");
+        }
+    }
+
+    private double[] monthlyRates() {
+        double[] monthly = new double[TYPES.length];
+        for (int t = 0; t < TYPES.length; t++) {
+            monthly[t] = annualRates[t] / 12;
+        }
+        return monthly;
+    }
+
+    private void start() {
+        accounts = new long[TYPES.length];
+        interestCents = new long[TYPES.length];
+    }
+
+    /**
+     * Write the summary line of each type with a rate.
+     *
+     * @return the total interest credited, in cents.
+     */
+    private long finish(Audit audit) {
+        long total = 0;
+        for (int t = 0; t < TYPES.length; t++) {
+            if (annualRates[t] > 0) {
+                audit.recordInterestAccrued(TYPES[t], accounts[t], interestCents[t]);
+            }
+            total += interestCents[t];
+        }
+        return total;
+    }
+
+    /**
+     * Credit the accounts from index from to index to, adding the number
+     * credited and the interest per type to the totals.
+     */
+    private static void accrue(
+            Account[] table,
+            int from,
+            int to,
+            double[] monthlyRates,
+            long[] accounts,
+            long[] interestCents) {
+        for (int i = from; i < to; i++) {
+            Account account = table[i];
+            long balance = account.getCurrentBalanceCents();
+            if (balance > 0) {
+                int t = account.getType().ordinal();
+                long interest = Math.round(balance * monthlyRates[t]);
+                if (interest != 0) {
+                    account.accrueCents(interest);
+                    accounts[t]++;
+                    interestCents[t] += interest;
+                }
+            }
+        }
+    }
+
+    /**
+     * Range of the account table, halved until small enough to credit on
+     * one thread. Each range keeps its own totals, summed when the halves
+     * join.
+     */
+    @SuppressWarnings("serial") // never serialized
+    private static class Range extends RecursiveAction {
+
+        private final Account[] table;
+        private final int from;
+        private final int to;
+        private final double[] monthlyRates;
+        final long[] accounts = new long[TYPES.length];
+        final long[] interestCents = new long[TYPES.length];
+
+        Range(Account[] table, int from, int to, double[] monthlyRates) {
+            this.table = table;
+            this.from = from;
+            this.to = to;
+            this.monthlyRates = monthlyRates;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                accrue(table, from, to, monthlyRates, accounts, interestCents);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            Range left = new Range(table, from, middle, monthlyRates);
+            Range right = new Range(table, middle, to, monthlyRates);
+            invokeAll(left, right);
+            for (int t = 0; t < TYPES.length; t++) {
+                accounts[t] = left.accounts[t] + right.accounts[t];
+                interestCents[t] = left.interestCents[t] + right.interestCents[t];
+            }
+        }
+    }
+}
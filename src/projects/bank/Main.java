@@ -10,7 +10,11 @@ public class Main {
     public static void main(String[] args) {
         phase1();
         phase2();
-        phase3();
+        if (args.length > 0 && args[0].equals("pipelined")) {
+            phase3Pipelined();
+        } else {
+            phase3();
+        }
     }
 
     public static void phase1() {
@@ -78,6 +82,29 @@ public class Main {
         boolean step3 = bank.writeAccounts("data/accounts-out.csv");
         System.out.println("Transactions processed: " + step2);
         System.out.println("Result of Accounts write: " + step3);
+        System.out.println(bank.getStats());
+    }
+
+    /**
+     * Phase 3 with loading, processing, auditing and writing overlapped,
+     * see TransactionPipeline. Writes the same files as phase3.
+     */
+    public static void phase3Pipelined() {
+        TransactionPipeline pipeline = new TransactionPipeline(new Bank());
+        try {
+            int processed = pipeline.run(
+                    "data/accounts.csv",
+                    "data/transactions.csv",
+                    "data/audit.log",
+                    "data/accounts-out.csv");
+            System.out.println("Transactions processed: " + processed);
+            System.out.println(
+                    "Result of Accounts write: " + pipeline.isAccountsWritten());
+            System.out.println(pipeline.getStats());
+            System.out.println(pipeline);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
 }
@@ -0,0 +1,172 @@
+package projects.bank;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Loads an accounts CSV file by memory-mapping it and scanning its bytes.
+ *
+ * Accepts the same lines as Account.make, eg
+ * "savings,wz240833,Anna Gomez,8111.00". Delimiters are found in a single
+ * pass over the bytes; the type and balance are read in place, and owner
+ * names already in NamePool.OWNERS are found without creating a String.
+ * Only the ID always becomes a String. Files larger than one mapping window are
+ * mapped one window at a time.
+ */
+public class MappedAccountLoader {
+
+    /** Largest region mapped at once. */
+    private static final int WINDOW = 1 << 30;
+
+    private final Bank bank;
+    private final AsciiChars field = new AsciiChars();
+    private final int[] commas = new int[4];
+    private byte[] scratch = new byte[256];
+    private int lines;
+
+    /**
+     * @param bank - bank receiving the loaded accounts.
+     *
+     * @throws IllegalArgumentException if bank is null.
+     */
+    public MappedAccountLoader(Bank bank) {
+        if (bank == null) {
+            throw new IllegalArgumentException("bank must not be null.");
+        }
+        this.bank = bank;
+    }
+
+    /**
+     * Add every account of a file to the bank. Accounts whose ID is already
+     * in the bank are skipped, as in Bank.loadAccounts.
+     *
+     * @param fileName - accounts CSV file.
+     *
+     * @return the number of account lines read.
+     *
+     * @throws IOException              if the file cannot be read.
+     * @throws IllegalArgumentException if a line is empty or malformed.
+     */
+    public int load(String fileName) throws IOException {
+        lines = 0;
+        try (FileChannel channel = FileChannel.open(
+                Path.of(fileName), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                int windowSize = (int) Math.min(WINDOW, size - position);
+                MappedByteBuffer window = channel.map(
+                        FileChannel.MapMode.READ_ONLY, position, windowSize);
+                boolean last = position + windowSize == size;
+                int consumed = parseLines(window, windowSize, last);
+                if (consumed == 0) {
+                    throw new IOException("line longer than mapping window.");
+                }
+                position += consumed;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Parse the complete lines of a window.
+     *
+     * @return the number of bytes consumed; a line cut by the end of the
+     *         window is left for the next window.
+     */
+    private int parseLines(ByteBuffer bytes, int limit, boolean last) {
+        int lineStart = 0;
+        int found = 0;
+        for (int pos = 0; pos < limit; pos++) {
+            byte b = bytes.get(pos);
+            if (b == ',') {
+                if (found < commas.length) {
+                    commas[found] = pos;
+                }
+                found++;
+            } else if (b == '\n') {
+                addAccount(bytes, lineStart, pos, found);
+                lineStart = pos + 1;
+                found = 0;
+            }
+        }
+        if (last && lineStart < limit) {
+            // last line without a line separator
+            addAccount(bytes, lineStart, limit, found);
+            lineStart = limit;
+        }
+        return lineStart;
+    }
+
+    /**
+     * Build the account held by bytes [start, end) and add it to the bank.
+     */
+    private void addAccount(ByteBuffer bytes, int start, int end, int found) {
+        if (end > start && bytes.get(end - 1) == '\r') {
+            end--;
+        }
+        if (end == start) {
+            throw new IllegalArgumentException("line must not be null.");
+        }
+        if (found < 3) {
+            throw new IllegalArgumentException(
+                    "invalid account line: " + field.wrap(bytes, start, end));
+        }
+        lines++;
+
+        AccountType type;
+        field.wrap(bytes, start, commas[0]);
+        if (field.equalsIgnoreCase(AccountType.SAVINGS.label())) {
+            type = AccountType.SAVINGS;
+        } else if (field.equalsIgnoreCase(AccountType.CHECKING.label())) {
+            type = AccountType.CHECKING;
+        } else {
+            throw new IllegalArgumentException("Invalid account type.");
+        }
+        String id = string(bytes, commas[0] + 1, commas[1]);
+        String owner = owner(bytes, commas[1] + 1, commas[2]);
+        int balanceEnd = end;
+        if (found > 3) {
+            balanceEnd = commas[3]; // extra fields are ignored
+        }
+        long balance = Money.parseCents(
+                field.wrap(bytes, commas[2] + 1, balanceEnd));
+
+        bank.add(Account.make(type, id, owner, balance));
+    }
+
+    /**
+     * The pooled owner name held by bytes [start, end).
+     */
+    private String owner(ByteBuffer bytes, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (bytes.get(i) < 0) {
+                return NamePool.OWNERS.intern(string(bytes, start, end));
+            }
+        }
+        return NamePool.OWNERS.intern(field.wrap(bytes, start, end));
+    }
+
+    /**
+     * Decode bytes [start, end) as a String, taking the cheaper Latin-1 path
+     * when they are plain ASCII.
+     */
+    private String string(ByteBuffer bytes, int start, int end) {
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[length * 2];
+        }
+        bytes.get(start, scratch, 0, length);
+        for (int i = 0; i < length; i++) {
+            if (scratch[i] < 0) {
+                return new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+        }
+        return new String(scratch, 0, length, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,157 @@
+package projects.bank;
+
+/**
+ * Money amounts are kept as a whole number of cents in a long, so sums and
+ * comparisons are exact. This class converts cents to and from text without
+ * going through String.format or Double.parseDouble.
+ */
+public class Money {
+
+    /**
+     * Convert a dollar amount to cents, rounding to the nearest cent.
+     *
+     * @param amount - amount in dollars, eg 8111.07
+     *
+     * @return amount in cents, eg 811107
+     */
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * Convert cents to a dollar amount.
+     *
+     * @param cents - amount in cents, eg 811107
+     *
+     * @return amount in dollars, eg 8111.07
+     */
+    public static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * Parse a decimal amount such as "8111", "-12.5" or "766.53" into cents.
+     * Digits past the second decimal are rounded half up.
+     *
+     * @param text - amount in dollars.
+     *
+     * @return amount in cents.
+     *
+     * @throws NumberFormatException if text is not a decimal number, or
+     *                               the amount does not fit in a long.
+     */
+    public static long parseCents(CharSequence text) {
+        return parseCents(text, 0, text.length());
+    }
+
+    /**
+     * Parse the characters in [start, end) of text as an amount in cents,
+     * without creating a substring.
+     *
+     * @param text  - characters holding the amount.
+     * @param start - index of the first character of the amount.
+     * @param end   - index just past the last character of the amount.
+     *
+     * @return amount in cents.
+     *
+     * @throws NumberFormatException if the range is not a decimal number,
+     *                               or the amount does not fit in a long.
+     */
+    public static long parseCents(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        long cents = 0;
+        int digits = 0;
+        try {
+            while (i < end && text.charAt(i) != '.') {
+                cents = Math.addExact(
+                        Math.multiplyExact(cents, 10),
+                        digit(text, start, end, i));
+                digits++;
+                i++;
+            }
+            cents = Math.multiplyExact(cents, 100);
+            if (i < end) {
+                i++; // skip '.'
+                for (int scale = 10; scale >= 1 && i < end; scale /= 10) {
+                    cents = Math.addExact(
+                            cents, digit(text, start, end, i) * scale);
+                    digits++;
+                    i++;
+                }
+                if (i < end && digit(text, start, end, i) >= 5) {
+                    cents = Math.addExact(cents, 1);
+                }
+                for (; i < end; i++) {
+                    digit(text, start, end, i); // reject trailing junk
+                }
+            }
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException(
+                    "amount out of range: \"" + text.subSequence(start, end)
+                            + "\"");
+        }
+        if (digits == 0) {
+            throw invalid(text, start, end);
+        }
+        if (negative) {
+            return -cents;
+        }
+        return cents;
+    }
+
+    private static int digit(CharSequence text, int start, int end, int i) {
+        char c = text.charAt(i);
+        if (c < '0' || c > '9') {
+            throw invalid(text, start, end);
+        }
+        return c - '0';
+    }
+
+    private static NumberFormatException invalid(
+            CharSequence text,
+            int start,
+            int end) {
+        return new NumberFormatException(
+                "invalid amount: \"" + text.subSequence(start, end) + "\"");
+    }
+
+    /**
+     * Append an amount with two decimals, eg 811107 as "8111.07" and -50 as
+     * "-0.50". Same text as String.format("%.2f"), without a Formatter.
+     *
+     * @param out   - builder receiving the text.
+     * @param cents - amount in cents.
+     *
+     * @return out, for chaining.
+     */
+    public static StringBuilder appendTo(StringBuilder out, long cents) {
+        // split before dropping the sign: -Long.MIN_VALUE does not fit in a
+        // long, but its dollars and cents do
+        long dollars = cents / 100;
+        int fraction = (int) (cents % 100);
+        if (cents < 0) {
+            out.append('-');
+            dollars = -dollars;
+            fraction = -fraction;
+        }
+        out.append(dollars);
+        out.append('.');
+        out.append((char) ('0' + fraction / 10));
+        out.append((char) ('0' + fraction % 10));
+        return out;
+    }
+
+    /**
+     * @param cents - amount in cents.
+     *
+     * @return the amount with two decimals, eg "8111.07".
+     */
+    public static String format(long cents) {
+        return appendTo(new StringBuilder(24), cents).toString();
+    }
+}
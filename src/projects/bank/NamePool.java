@@ -0,0 +1,123 @@
+package projects.bank;
+
+/**
+ * Pool of distinct Strings, so values that repeat across many accounts,
+ * like owner names, are held once.
+ *
+ * Same idea as String.intern, but the pool is a plain open-addressing
+ * table of our own: lookups by CharSequence let a parser find a name
+ * without creating a String first, and the pool can be measured. Names are
+ * never removed, so it suits values drawn from a bounded set: once the pool
+ * holds maxNames, further names are returned as they are, unpooled, so a
+ * long-running process such as BankServer cannot grow it without limit.
+ *
+ * Methods are synchronized so accounts can be created on several threads.
+ * Accounts are created while loading, not per transaction, so the lock is
+ * not on the transaction path.
+ */
+public class NamePool {
+
+    /** Names a pool holds unless given another bound. */
+    public static final int DEFAULT_MAX_NAMES = 1 << 16;
+
+    /** Pool shared by all accounts for their owner names. */
+    public static final NamePool OWNERS = new NamePool();
+
+    private final int maxNames;
+    private String[] names = new String[64];
+    private int size;
+
+    /**
+     * Create a pool of at most DEFAULT_MAX_NAMES names.
+     */
+    public NamePool() {
+        this(DEFAULT_MAX_NAMES);
+    }
+
+    /**
+     * @param maxNames - names pooled at most, further ones are not kept.
+     *
+     * @throws IllegalArgumentException if maxNames is not positive.
+     */
+    public NamePool(int maxNames) {
+        if (maxNames < 1) {
+            throw new IllegalArgumentException("maxNames must be positive.");
+        }
+        this.maxNames = maxNames;
+    }
+
+    /**
+     * @param name - name to look up or add.
+     *
+     * @return the pooled String equal to name; name itself if it was not
+     *         pooled yet.
+     */
+    public synchronized String intern(String name) {
+        int slot = slot(name, name.hashCode());
+        if (names[slot] == null) {
+            if (size < maxNames) {
+                add(slot, name);
+            }
+            return name;
+        }
+        return names[slot];
+    }
+
+    /**
+     * Look a name up by its characters, creating a String only if it is
+     * not pooled yet.
+     *
+     * @param chars - sequence holding the name.
+     *
+     * @return the pooled String with the same characters, or a new one if
+     *         it is not pooled.
+     */
+    public synchronized String intern(CharSequence chars) {
+        int hash = 0;
+        for (int i = 0; i < chars.length(); i++) {
+            hash = 31 * hash + chars.charAt(i); // same as String.hashCode
+        }
+        int slot = slot(chars, hash);
+        if (names[slot] == null) {
+            String name = chars.toString();
+            if (size < maxNames) {
+                add(slot, name);
+            }
+            return name;
+        }
+        return names[slot];
+    }
+
+    /**
+     * @return the number of pooled names.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return the slot holding chars, or the empty slot where it belongs.
+     */
+    private int slot(CharSequence chars, int hash) {
+        int mask = names.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (names[slot] != null && !names[slot].contentEquals(chars)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void add(int slot, String name) {
+        names[slot] = name;
+        size++;
+        if (size > names.length / 2) {
+            String[] old = names;
+            names = new String[old.length * 2];
+            for (String pooled : old) {
+                if (pooled != null) {
+                    names[slot(pooled, pooled.hashCode())] = pooled;
+                }
+            }
+        }
+    }
+}
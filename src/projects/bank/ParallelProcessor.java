@@ -0,0 +1,250 @@
+package projects.bank;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies transactions to a bank on several threads.
+ *
+ * Transactions are split into shards by a hash of their account ID, and
+ * each shard is applied by its own worker. All transactions for one account
+ * land in the same shard, in file order, so every validate sees the same
+ * account state as in Bank.processTransactions.
+ *
+ * Work is done in batches. Each worker writes its audit lines to a memory
+ * buffer, and at the end of a batch the buffers are merged back into file
+ * order, so the audit file reads the same as a sequential run.
+ */
+public class ParallelProcessor {
+
+    /** Transactions handled per batch, bounding the audit buffers. */
+    private static final int BATCH_SIZE = 1 << 16;
+
+    private final Bank bank;
+    private final int threads;
+    private ProcessingStats stats;
+
+    /**
+     * @param bank    - bank holding the accounts to update.
+     * @param threads - number of shards and worker threads, at least 1.
+     *
+     * @throws IllegalArgumentException if bank is null or threads is below 1.
+     */
+    public ParallelProcessor(Bank bank, int threads) {
+        if (bank == null) {
+            throw new IllegalArgumentException("bank must not be null.");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1.");
+        }
+        this.bank = bank;
+        this.threads = threads;
+        stats = new ProcessingStats();
+    }
+
+    /**
+     * Apply the first count transactions and write their audit lines.
+     *
+     * @param transactions - transactions in file order.
+     * @param count        - number of transactions to apply.
+     * @param auditFile    - log file receiving the audit lines.
+     *
+     * @return count of processed transactions.
+     *
+     * @throws InterruptedIOException if the calling thread is interrupted.
+     * @throws IOException            if the audit file cannot be written.
+     */
+    public int process(Transaction[] transactions, int count, String auditFile)
+            throws IOException {
+        try (Writer out = new FileWriter(auditFile)) {
+            return process(transactions, count, out);
+        }
+    }
+
+    /**
+     * Apply the first count transactions, writing their audit lines to out
+     * in the order of the transactions.
+     *
+     * @param transactions - transactions in file order.
+     * @param count        - number of transactions to apply.
+     * @param out          - destination of the audit lines.
+     *
+     * @return count of processed transactions.
+     *
+     * @throws InterruptedIOException if the calling thread is interrupted;
+     *                                every worker has stopped by then and
+     *                                the interrupt flag is set again.
+     * @throws IOException            if out cannot be written.
+     */
+    public int process(Transaction[] transactions, int count, Writer out)
+            throws IOException {
+        stats = new ProcessingStats();
+        Shard[] shards = new Shard[threads];
+        for (int s = 0; s < threads; s++) {
+            shards[s] = new Shard();
+        }
+        int[] shardOf = new int[Math.min(count, BATCH_SIZE)];
+        int processed = 0;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int from = 0; from < count; from += BATCH_SIZE) {
+                int to = Math.min(count, from + BATCH_SIZE);
+                assign(transactions, from, to, shards, shardOf);
+
+                List<Callable<Integer>> work = new ArrayList<>();
+                for (int s = 0; s < threads; s++) {
+                    Shard shard = shards[s];
+                    work.add(() -> shard.apply(bank, transactions));
+                }
+                List<Future<Integer>> results = pool.invokeAll(work);
+                for (int s = 0; s < threads; s++) {
+                    processed += results.get(s).get();
+                }
+
+                merge(shards, shardOf, to - from, out);
+            }
+        } catch (InterruptedException e) {
+            // no worker may still be applying once process returns
+            pool.shutdownNow();
+            awaitWorkers(pool);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("processing interrupted.");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        for (int s = 0; s < threads; s++) {
+            stats.add(shards[s].stats);
+        }
+        return processed;
+    }
+
+    /**
+     * Wait until every worker of a pool that was shut down has returned,
+     * even if interrupted meanwhile; the interrupt is kept for the caller.
+     */
+    private static void awaitWorkers(ExecutorService pool) {
+        boolean interrupted = false;
+        while (!pool.isTerminated()) {
+            try {
+                pool.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Get the per-stage counters of the last run, summed over all shards.
+     * Times are the total of every worker, not wall-clock time.
+     *
+     * @return counters for lookup, validate, execute and audit.
+     */
+    public ProcessingStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Pick the shard of every transaction in [from, to), keeping file order
+     * inside each shard.
+     */
+    private void assign(
+            Transaction[] transactions,
+            int from,
+            int to,
+            Shard[] shards,
+            int[] shardOf) {
+        for (int s = 0; s < shards.length; s++) {
+            shards[s].reset();
+        }
+        for (int i = from; i < to; i++) {
+            int h = transactions[i].getAccountNumber().hashCode();
+            int s = ((h ^ (h >>> 16)) & 0x7fffffff) % shards.length;
+            shardOf[i - from] = s;
+            shards[s].add(i);
+        }
+    }
+
+    /**
+     * Write the audit lines of one batch in the order of its transactions.
+     */
+    private static void merge(Shard[] shards, int[] shardOf, int size,
+            Writer out) throws IOException {
+        char[][] text = new char[shards.length][];
+        int[] next = new int[shards.length];
+        int[] offset = new int[shards.length];
+        for (int s = 0; s < shards.length; s++) {
+            StringBuffer buffer = shards[s].buffer.getBuffer();
+            text[s] = new char[buffer.length()];
+            buffer.getChars(0, buffer.length(), text[s], 0);
+        }
+        for (int i = 0; i < size; i++) {
+            int s = shardOf[i];
+            int end = shards[s].ends[next[s]++];
+            out.write(text[s], offset[s], end - offset[s]);
+            offset[s] = end;
+        }
+    }
+
+    /**
+     * The transactions of one worker for the current batch, with the audit
+     * lines they produced.
+     */
+    private static class Shard {
+        private int[] positions = new int[1024];
+        private int[] ends = new int[1024];
+        private int size;
+        private final StringWriter buffer = new StringWriter();
+        private final Audit audit = new Audit(buffer);
+        private final ProcessingStats stats = new ProcessingStats();
+
+        void reset() {
+            size = 0;
+            buffer.getBuffer().setLength(0);
+        }
+
+        void add(int position) {
+            if (size == positions.length) {
+                int[] newPositions = new int[size * 2];
+                System.arraycopy(positions, 0, newPositions, 0, size);
+                positions = newPositions;
+                ends = new int[size * 2];
+            }
+            positions[size++] = position;
+        }
+
+        /**
+         * Apply this shard's transactions in order, noting where the audit
+         * text of each one ends.
+         */
+        int apply(Bank bank, Transaction[] transactions) {
+            int processed = 0;
+            StringBuffer text = buffer.getBuffer();
+            for (int k = 0; k < size; k++) {
+                int i = positions[k];
+                if (bank.apply(transactions[i], i + 1, audit, stats)) {
+                    processed++;
+                }
+                ends[k] = text.length();
+            }
+            return processed;
+        }
+    }
+}
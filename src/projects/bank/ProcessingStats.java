@@ -0,0 +1,244 @@
+package projects.bank;
+
+/**
+ * Counters for one run of transaction processing, split by stage:
+ *
+ * lookup - resolving the transaction's account ID to an account
+ * validate - Transaction.validate, not counting its audit writes
+ * execute - Transaction.execute, not counting its audit writes
+ * audit - formatting and writing audit lines
+ *
+ * Each stage keeps the number of times it ran and the nanoseconds it took.
+ * Lookups of absent accounts also count how many the account filter
+ * rejected without probing the index.
+ *
+ * Reading the clock costs about as much as applying a transaction, so
+ * processing one transaction at a time only times every 64th (see
+ * sample), weighting its times by 64. The counts are exact and the times
+ * estimates; setSampleInterval(1) times every transaction.
+ */
+public class ProcessingStats {
+
+    private static volatile int defaultSampleInterval = 64;
+
+    private long transactions;
+    private long processed;
+    private long lookups;
+    private long lookupNanos;
+    private long validations;
+    private long validateNanos;
+    private long executions;
+    private long executeNanos;
+    private long auditRecords;
+    private long auditNanos;
+    private long misses;
+    private long filterRejects;
+    private final int sampleInterval = defaultSampleInterval;
+    private int untilSample;
+
+    /**
+     * Set how often stats created afterwards time a transaction.
+     *
+     * @param every - time one transaction in this many, 1 to time all.
+     *
+     * @throws IllegalArgumentException if every is below 1.
+     */
+    public static void setSampleInterval(int every) {
+        if (every < 1) {
+            throw new IllegalArgumentException(
+                    "sample interval must be at least 1.");
+        }
+        defaultSampleInterval = every;
+    }
+
+    /**
+     * Decide whether to time the next transaction. The first one is
+     * always timed.
+     *
+     * @return the weight of its stage times: the sample interval for a
+     *         timed transaction, 0 for one that is only counted.
+     */
+    int sample() {
+        if (--untilSample > 0) {
+            return 0;
+        }
+        untilSample = sampleInterval;
+        return sampleInterval;
+    }
+
+    void addTransaction(boolean wasProcessed) {
+        transactions++;
+        if (wasProcessed) {
+            processed++;
+        }
+    }
+
+    void addLookup(long nanos) {
+        lookups++;
+        lookupNanos += nanos;
+    }
+
+    void addValidate(long nanos) {
+        validations++;
+        validateNanos += nanos;
+    }
+
+    void addExecute(long nanos) {
+        executions++;
+        executeNanos += nanos;
+    }
+
+    void addAudit(long nanos) {
+        auditRecords++;
+        auditNanos += nanos;
+    }
+
+    /**
+     * Count a lookup of an absent account.
+     *
+     * @param rejected - whether the account filter rejected it.
+     */
+    void addMiss(boolean rejected) {
+        misses++;
+        if (rejected) {
+            filterRejects++;
+        }
+    }
+
+    /**
+     * Count a stage that ran for a whole batch at once.
+     */
+    void addLookups(int count, long nanos) {
+        lookups += count;
+        lookupNanos += nanos;
+    }
+
+    void addValidations(int count, long nanos) {
+        validations += count;
+        validateNanos += nanos;
+    }
+
+    void addExecutions(int count, long nanos) {
+        executions += count;
+        executeNanos += nanos;
+    }
+
+    void addAudits(int count, long nanos) {
+        auditRecords += count;
+        auditNanos += nanos;
+    }
+
+    /**
+     * Add the counters of another run to this one.
+     *
+     * @param other - counters to add.
+     */
+    public void add(ProcessingStats other) {
+        transactions += other.transactions;
+        processed += other.processed;
+        lookups += other.lookups;
+        lookupNanos += other.lookupNanos;
+        validations += other.validations;
+        validateNanos += other.validateNanos;
+        executions += other.executions;
+        executeNanos += other.executeNanos;
+        auditRecords += other.auditRecords;
+        auditNanos += other.auditNanos;
+        misses += other.misses;
+        filterRejects += other.filterRejects;
+    }
+
+    public long getTransactions() {
+        return transactions;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getLookups() {
+        return lookups;
+    }
+
+    public long getLookupNanos() {
+        return lookupNanos;
+    }
+
+    public long getValidations() {
+        return validations;
+    }
+
+    public long getValidateNanos() {
+        return validateNanos;
+    }
+
+    public long getExecutions() {
+        return executions;
+    }
+
+    public long getExecuteNanos() {
+        return executeNanos;
+    }
+
+    public long getAuditRecords() {
+        return auditRecords;
+    }
+
+    public long getAuditNanos() {
+        return auditNanos;
+    }
+
+    /**
+     * @return the number of lookups of absent accounts.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of absent accounts rejected by the filter.
+     */
+    public long getFilterRejects() {
+        return filterRejects;
+    }
+
+    /**
+     * @return the share of absent accounts the filter let through to the
+     *         index, from 0 to 1; 0 if there were none.
+     */
+    public double getFalsePositiveRate() {
+        if (misses == 0) {
+            return 0;
+        }
+        return (double) (misses - filterRejects) / misses;
+    }
+
+    /**
+     * Report each stage on its own line, eg
+     * "lookup: 1000 ops, 0.21 ms, 210 ns/op".
+     */
+    @Override
+    public String toString() {
+        return String.format(
+                "transactions: %d, processed: %d%n%s%n%s%n%s%n%s",
+                transactions,
+                processed,
+                stage("lookup", lookups, lookupNanos),
+                stage("validate", validations, validateNanos),
+                stage("execute", executions, executeNanos),
+                stage("audit", auditRecords, auditNanos));
+    }
+
+    private static String stage(String name, long ops, long nanos) {
+        long perOp = 0;
+        if (ops > 0) {
+            perOp = nanos / ops;
+        }
+        return String.format(
+                "%s: %d ops, %.2f ms, %d ns/op",
+                name,
+                ops,
+                nanos / 1e6,
+                perOp);
+    }
+}
@@ -0,0 +1,576 @@
+package projects.bank;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Audit writing to a series of segment files instead of one ever-growing
+ * log. A new segment is started once the current one reaches maxBytes or
+ * has been open for maxMillis. Segment numbers carry on from the segments
+ * already in the directory, so a new run never overwrites an old one.
+ *
+ * Each segment is cut into blocks of about 64 KB of whole lines. When a
+ * segment is closed, its sparse index is written next to it: the offset
+ * and length of every block, and for each account the blocks holding its
+ * lines. readHistory uses it to read only those blocks.
+ *
+ * With compression on, a closed segment is rewritten in the background as
+ * name.log.gz, each block as its own GZIP member. The members together
+ * are still a valid GZIP file, and any single block can be inflated on its
+ * own.
+ *
+ * The .gz and .idx files are written under a .tmp name, forced to disk and
+ * renamed into place, and the raw segment is only deleted once both are
+ * there. A segment left without an index by a crash is indexed again from
+ * its raw lines, and compressed again, by the next audit opened on the
+ * directory.
+ *
+ * Files, for base name "audit":
+ *
+ * audit-000001.log or audit-000001.log.gz - the audit lines
+ * audit-000001.idx - the index, written when the segment is closed
+ */
+public class RotatingAudit extends Audit {
+
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private final File directory;
+    private final String baseName;
+    private final long maxBytes;
+    private final long maxMillis;
+    private final ExecutorService compressor;
+
+    private int segment;
+    private OutputStream out;
+    private long segmentBytes;
+    private long segmentStart;
+    private long[] blockOffsets = new long[16];
+    private int blockCount;
+    private Map<String, int[]> accountBlocks = new HashMap<>();
+    private byte[] bytes = new byte[512];
+    private int segments;
+    private boolean closed;
+
+    /**
+     * @param directory - directory receiving the segments, created if
+     *                  missing.
+     * @param baseName  - file name prefix of the segments, eg "audit".
+     * @param maxBytes  - size after which a segment is closed, or 0 for no
+     *                  size limit.
+     * @param maxMillis - age after which a segment is closed, or 0 for no
+     *                  age limit.
+     * @param compress  - whether closed segments are compressed.
+     *
+     * @throws IOException              if the first segment cannot be
+     *                                  created.
+     * @throws IllegalArgumentException if directory or baseName is null or
+     *                                  a limit is negative.
+     */
+    public RotatingAudit(
+            String directory,
+            String baseName,
+            long maxBytes,
+            long maxMillis,
+            boolean compress) throws IOException {
+        super(Writer.nullWriter());
+        if (directory == null || baseName == null) {
+            throw new IllegalArgumentException(
+                    "directory and baseName cannot be null.");
+        }
+        if (maxBytes < 0 || maxMillis < 0) {
+            throw new IllegalArgumentException("limits must not be negative.");
+        }
+        this.directory = new File(directory);
+        this.baseName = baseName;
+        this.maxBytes = maxBytes;
+        this.maxMillis = maxMillis;
+        compressor = compress ? Executors.newSingleThreadExecutor() : null;
+        this.directory.mkdirs();
+        // any file of an earlier segment, indexed or not
+        File[] existing = segmentFiles(this.directory, baseName, "\\..*");
+        for (int i = 0; i < existing.length; i++) {
+            segment = Math.max(segment, segmentNumber(existing[i], baseName));
+        }
+        File[] raw = segmentFiles(this.directory, baseName, "\\.log");
+        for (int i = 0; i < raw.length; i++) {
+            recover(segmentNumber(raw[i], baseName));
+        }
+        openSegment();
+    }
+
+    /**
+     * Finish a segment a crash left behind: delete the raw lines if the
+     * compressed copy was already indexed, otherwise drop any partial
+     * output and index the raw lines again.
+     */
+    private void recover(int number) throws IOException {
+        File raw = segmentFile(number, ".log");
+        File gz = segmentFile(number, ".log.gz");
+        if (segmentFile(number, ".idx").exists()) {
+            if (gz.exists()) {
+                raw.delete();
+            }
+            return;
+        }
+        gz.delete();
+        segmentFile(number, ".log.gz.tmp").delete();
+        segmentFile(number, ".idx.tmp").delete();
+
+        segmentBytes = 0;
+        blockOffsets = new long[16];
+        blockCount = 0;
+        startBlock();
+        accountBlocks = new HashMap<>();
+        try (InputStream in = new BufferedInputStream(
+                new FileInputStream(raw), 1 << 16)) {
+            // the same blocks as write, each line under the field after its
+            // first comma; a line that is not about an account only costs
+            // readHistory a block it filters out
+            int length = 0;
+            int b = in.read();
+            while (b != -1) {
+                if (length == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, length * 2);
+                }
+                bytes[length++] = (byte) b;
+                b = in.read();
+                if (bytes[length - 1] == '\n' || b == -1) {
+                    if (segmentBytes - blockOffsets[blockCount - 1] >= BLOCK_SIZE) {
+                        startBlock();
+                    }
+                    String accountID = field(bytes, length);
+                    if (accountID != null) {
+                        indexLine(accountID);
+                    }
+                    segmentBytes += length;
+                    length = 0;
+                }
+            }
+        }
+        finishSegment(number);
+    }
+
+    /**
+     * @return the text between the first and second commas of a line, or
+     *         null if it has fewer than two.
+     */
+    private static String field(byte[] line, int length) {
+        int first = -1;
+        for (int i = 0; i < length; i++) {
+            if (line[i] == ',') {
+                if (first != -1) {
+                    return new String(
+                            line, first + 1, i - first - 1, StandardCharsets.UTF_8);
+                }
+                first = i;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected void write(StringBuilder s) {
+        write(s, (Transaction) null);
+    }
+
+    /**
+     * Append a line to the current segment and index it under its account,
+     * rotating first if the segment is full or too old.
+     */
+    @Override
+    protected void write(StringBuilder s, Transaction t) {
+        try {
+            if ((maxBytes > 0 && segmentBytes >= maxBytes)
+                    || (maxMillis > 0
+                            && System.currentTimeMillis() - segmentStart >= maxMillis)) {
+                rotate();
+            }
+            if (segmentBytes - blockOffsets[blockCount - 1] >= BLOCK_SIZE) {
+                startBlock();
+            }
+            if (t != null) {
+                indexLine(t.getAccountNumber());
+            }
+            s.append(System.lineSeparator());
+            int length = encode(s);
+            out.write(bytes, 0, length);
+            segmentBytes += length;
+        } catch (IOException e) { // fall back to console output
+            e.printStackTrace();
+        }
+    }
+
+    private void indexLine(String accountID) {
+        int block = blockCount - 1;
+        int[] blocks = accountBlocks.get(accountID);
+        if (blocks == null) {
+            blocks = new int[] { 1, block };
+            accountBlocks.put(accountID, blocks);
+        } else if (blocks[blocks[0]] != block) {
+            if (blocks[0] + 1 == blocks.length) {
+                blocks = Arrays.copyOf(blocks, blocks.length * 2);
+                accountBlocks.put(accountID, blocks);
+            }
+            blocks[0]++;
+            blocks[blocks[0]] = block;
+        }
+    }
+
+    private int encode(StringBuilder s) {
+        if (bytes.length < s.length() * 3) {
+            bytes = new byte[s.length() * 3];
+        }
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                byte[] utf8 = s.toString().getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(utf8, 0, bytes, 0, utf8.length);
+                return utf8.length;
+            }
+            bytes[i] = (byte) c;
+        }
+        return s.length();
+    }
+
+    private void startBlock() {
+        if (blockCount == blockOffsets.length) {
+            blockOffsets = Arrays.copyOf(blockOffsets, blockCount * 2);
+        }
+        blockOffsets[blockCount++] = segmentBytes;
+    }
+
+    private void openSegment() throws IOException {
+        segment++;
+        segments++;
+        out = new BufferedOutputStream(
+                new FileOutputStream(segmentFile(segment, ".log")), 1 << 16);
+        segmentBytes = 0;
+        segmentStart = System.currentTimeMillis();
+        blockOffsets = new long[16];
+        blockCount = 0;
+        startBlock();
+        accountBlocks = new HashMap<>();
+    }
+
+    /**
+     * Close the current segment, index or compress it, and start the next.
+     */
+    private void rotate() throws IOException {
+        closeSegment();
+        openSegment();
+    }
+
+    private void closeSegment() throws IOException {
+        out.close();
+        finishSegment(segment);
+    }
+
+    /**
+     * Index the blocks just written to a segment, compressing it first
+     * when compression is on.
+     */
+    private void finishSegment(int closed) throws IOException {
+        long[] offsets = Arrays.copyOf(blockOffsets, blockCount + 1);
+        offsets[blockCount] = segmentBytes; // end of the last block
+        Map<String, int[]> blocks = accountBlocks;
+        if (compressor == null) {
+            writeIndex(closed, offsets, blocks);
+        } else {
+            compressor.submit(() -> {
+                try {
+                    writeIndex(closed, compress(closed, offsets), blocks);
+                    segmentFile(closed, ".log").delete();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+    }
+
+    /**
+     * Rewrite a closed segment as GZIP, one member per block. The raw
+     * segment is left for the caller to delete once the index is written.
+     *
+     * @return the offsets of the members in the compressed file, followed
+     *         by its length.
+     */
+    private long[] compress(int closed, long[] offsets) throws IOException {
+        File raw = segmentFile(closed, ".log");
+        File next = segmentFile(closed, ".log.gz.tmp");
+        long[] stored = new long[offsets.length];
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try (RandomAccessFile in = new RandomAccessFile(raw, "r");
+                FileOutputStream file = new FileOutputStream(next);
+                OutputStream gzip = new BufferedOutputStream(file, 1 << 16)) {
+            byte[] block = new byte[BLOCK_SIZE * 2];
+            byte[] deflated = new byte[BLOCK_SIZE];
+            long written = 0;
+            for (int b = 0; b + 1 < offsets.length; b++) {
+                stored[b] = written;
+                int length = (int) (offsets[b + 1] - offsets[b]);
+                if (block.length < length) {
+                    block = new byte[length];
+                }
+                in.seek(offsets[b]);
+                in.readFully(block, 0, length);
+                written += writeMember(gzip, block, length, deflater, deflated);
+            }
+            stored[offsets.length - 1] = written;
+            gzip.flush();
+            file.getFD().sync();
+        } finally {
+            deflater.end();
+        }
+        moveIntoPlace(next, segmentFile(closed, ".log.gz"));
+        return stored;
+    }
+
+    /**
+     * Write one GZIP member: header, raw deflate data, CRC32 and length.
+     *
+     * @return the number of bytes written.
+     */
+    private static long writeMember(
+            OutputStream out,
+            byte[] data,
+            int length,
+            Deflater deflater,
+            byte[] deflated) throws IOException {
+        // magic, deflate method, no flags, no time, no extra flags, unknown OS
+        byte[] header = { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+        out.write(header);
+        long written = header.length;
+        deflater.reset();
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+        while (!deflater.finished()) {
+            int n = deflater.deflate(deflated);
+            out.write(deflated, 0, n);
+            written += n;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        writeIntLE(out, (int) crc.getValue());
+        writeIntLE(out, length);
+        return written + 8;
+    }
+
+    private static void writeIntLE(OutputStream out, int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    private void writeIndex(int closed, long[] offsets, Map<String, int[]> blocks)
+            throws IOException {
+        File next = segmentFile(closed, ".idx.tmp");
+        try (FileOutputStream file = new FileOutputStream(next);
+                Writer index = new BufferedWriter(new OutputStreamWriter(
+                        file, StandardCharsets.UTF_8))) {
+            index.write("blocks," + (offsets.length - 1) + "\n");
+            for (int b = 0; b + 1 < offsets.length; b++) {
+                index.write(offsets[b] + "," + (offsets[b + 1] - offsets[b]) + "\n");
+            }
+            StringBuilder line = new StringBuilder(64);
+            for (Map.Entry<String, int[]> entry : blocks.entrySet()) {
+                int[] list = entry.getValue();
+                line.setLength(0);
+                line.append(entry.getKey());
+                for (int i = 1; i <= list[0]; i++) {
+                    line.append(',').append(list[i]);
+                }
+                index.append(line).append('\n');
+            }
+            index.flush();
+            file.getFD().sync();
+        }
+        // the index only appears once complete
+        moveIntoPlace(next, segmentFile(closed, ".idx"));
+    }
+
+    private static void moveIntoPlace(File next, File target) throws IOException {
+        Files.move(
+                next.toPath(),
+                target.toPath(),
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private File segmentFile(int number, String suffix) {
+        return new File(directory, name(baseName, number) + suffix);
+    }
+
+    private static String name(String baseName, int number) {
+        return String.format("%s-%06d", baseName, number);
+    }
+
+    /**
+     * @return the number of segments this audit has opened.
+     */
+    public int getSegments() {
+        return segments;
+    }
+
+    /**
+     * Close the last segment and wait for its index and any compression
+     * still running. Later calls do nothing.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            closeSegment();
+            if (compressor != null) {
+                compressor.shutdown();
+                compressor.awaitTermination(1, TimeUnit.HOURS);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        super.close();
+    }
+
+    /**
+     * Read every audit line about one account from the closed segments of
+     * a directory, oldest first, using the segment indexes to skip blocks
+     * that do not mention it.
+     *
+     * @param directory - directory holding the segments.
+     * @param baseName  - file name prefix of the segments.
+     * @param accountID - account to look up.
+     *
+     * @return the account's audit lines, without line separators.
+     *
+     * @throws IOException if a segment or index cannot be read.
+     */
+    public static List<String> readHistory(
+            String directory,
+            String baseName,
+            String accountID) throws IOException {
+        List<String> history = new ArrayList<>();
+        File dir = new File(directory);
+        String field = "," + accountID + ",";
+        File[] indexes = segmentFiles(dir, baseName, "\\.idx");
+        for (int i = 0; i < indexes.length; i++) {
+            String name = name(baseName, segmentNumber(indexes[i], baseName));
+            File segmentFile = new File(dir, name + ".log.gz");
+            boolean compressed = segmentFile.exists();
+            if (!compressed) {
+                segmentFile = new File(dir, name + ".log");
+            }
+            long[][] blocks = readIndex(indexes[i], accountID);
+            try (RandomAccessFile in = new RandomAccessFile(segmentFile, "r")) {
+                for (int b = 0; b < blocks.length; b++) {
+                    byte[] stored = new byte[(int) blocks[b][1]];
+                    in.seek(blocks[b][0]);
+                    in.readFully(stored);
+                    InputStream block = new ByteArrayInputStream(stored);
+                    if (compressed) {
+                        block = new GZIPInputStream(block);
+                    }
+                    BufferedReader lines = new BufferedReader(new InputStreamReader(
+                            block, StandardCharsets.UTF_8));
+                    String line = lines.readLine();
+                    while (line != null) {
+                        if (line.contains(field)) {
+                            history.add(line);
+                        }
+                        line = lines.readLine();
+                    }
+                }
+            }
+        }
+        return history;
+    }
+
+    /**
+     * @return the offset and stored length of each block of the segment
+     *         that mentions the account.
+     */
+    private static long[][] readIndex(File index, String accountID)
+            throws IOException {
+        try (BufferedReader in = new BufferedReader(new FileReader(index))) {
+            int count = Integer.parseInt(in.readLine().split(",")[1]);
+            long[][] blocks = new long[count][];
+            for (int b = 0; b < count; b++) {
+                String[] token = in.readLine().split(",");
+                blocks[b] = new long[] {
+                        Long.parseLong(token[0]), Long.parseLong(token[1]) };
+            }
+            String prefix = accountID + ",";
+            String line = in.readLine();
+            while (line != null) {
+                if (line.startsWith(prefix)) {
+                    String[] token = line.split(",");
+                    long[][] found = new long[token.length - 1][];
+                    for (int i = 1; i < token.length; i++) {
+                        found[i - 1] = blocks[Integer.parseInt(token[i])];
+                    }
+                    return found;
+                }
+                line = in.readLine();
+            }
+            return new long[0][];
+        }
+    }
+
+    /**
+     * @return the segment files whose name ends with a suffix matching a
+     *         pattern, oldest first.
+     */
+    private static File[] segmentFiles(
+            File directory,
+            String baseName,
+            String suffix) {
+        File[] found = directory.listFiles(
+                (dir, file) -> file.matches(
+                        Pattern.quote(baseName) + "-\\d{6,}" + suffix));
+        if (found == null) {
+            return new File[0];
+        }
+        Arrays.sort(found, (a, b) -> Integer.compare(
+                segmentNumber(a, baseName), segmentNumber(b, baseName)));
+        return found;
+    }
+
+    private static int segmentNumber(File segmentFile, String baseName) {
+        String file = segmentFile.getName();
+        return Integer.parseInt(file.substring(
+                baseName.length() + 1, file.indexOf('.', baseName.length())));
+    }
+}
@@ -9,6 +9,15 @@ public class SavingsAccount extends Account {
         super(accountNumber, name, startingBalance);
     }
 
+    /**
+     * @param startingCents - current balance of the account, in cents.
+     * @param accountNumber - unique account identifier.
+     * @param name          - name of the account owner.
+     */
+    SavingsAccount(long startingCents, String accountNumber, String name) {
+        super(startingCents, accountNumber, name);
+    }
+
     /**
      * Returns a Savings Account type for a given account.
      */
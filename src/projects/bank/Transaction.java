@@ -2,7 +2,8 @@
 package projects.bank;
 
 public abstract class Transaction {
-    private double amount;
+    // amount is kept in cents so arithmetic on it is exact
+    private long amount;
     private String accountID;
 
     /**
@@ -15,19 +16,37 @@ public abstract class Transaction {
      *                       This method is only accessible by its subclasses.
      */
     protected Transaction(String accountNumber, double transactionAmt) {
+        this(Money.toCents(transactionAmt), accountNumber);
+    }
+
+    /**
+     * Create a transaction from an amount already in cents, exact for any
+     * long. The amount comes first so that an int amount still selects the
+     * dollar constructor.
+     *
+     * @param cents         - amount of the transaction in cents, positive.
+     * @param accountNumber - account the transaction applies to.
+     */
+    Transaction(long cents, String accountNumber) {
         if (accountNumber == null) {
             throw new IllegalArgumentException("account number cannot be null.");
         }
-        if (transactionAmt <= 0) {
+        if (cents <= 0) {
             throw new IllegalArgumentException(
                     "transaction amount must be positive.");
         }
 
-        amount = transactionAmt;
+        amount = cents;
         accountID = accountNumber;
 
     }
 
+    /**
+     * For views that override the accessors, see TransactionRecord.
+     */
+    Transaction() {
+    }
+
     /**
      * This method gets a given transaction's amount
      * 
@@ -36,6 +55,13 @@ public abstract class Transaction {
      * 
      */
     public double getAmount() {
+        return Money.toDouble(amount);
+    }
+
+    /**
+     * @return the transaction's amount in cents, eg 50000 for 500.00
+     */
+    public long getAmountCents() {
         return amount;
     }
 
@@ -99,17 +125,35 @@ public abstract class Transaction {
             throw new IllegalArgumentException("line must not be null.");
         }
 
-        String[] token = line.split(",");
-        TransactionType type = TransactionType.valueOf(token[0].toUpperCase());
-        String id = token[1];
-        Double amount = Double.parseDouble(token[2]);
-        Transaction dep = new Deposit(id, amount);
-        if (type == TransactionType.WITHDRAWAL) {
-            Transaction wdraw = new Withdrawal(id, amount);
-            return wdraw;
-        } else
-            return dep;
+        // find the fields in place instead of splitting the line
+        int first = line.indexOf(',');
+        int second = first == -1 ? -1 : line.indexOf(',', first + 1);
+        if (second == -1) {
+            throw new IllegalArgumentException(
+                    "invalid transaction line: " + line);
+        }
+        int amountEnd = line.indexOf(',', second + 1);
+        if (amountEnd == -1) {
+            amountEnd = line.length();
+        }
+        String id = line.substring(first + 1, second);
+        long amount = Money.parseCents(line, second + 1, amountEnd);
+        if (isType(line, first, TransactionType.WITHDRAWAL)) {
+            return new Withdrawal(amount, id);
+        } else if (isType(line, first, TransactionType.DEPOSIT)) {
+            return new Deposit(amount, id);
+        }
+        throw new IllegalArgumentException("Invalid transaction type.");
+    }
 
+    /**
+     * @return true if the first length characters of line are the type's
+     *         label, ignoring case.
+     */
+    private static boolean isType(String line, int length, TransactionType type) {
+        String label = type.label();
+        return length == label.length()
+                && line.regionMatches(true, 0, label, 0, length);
     }
 
     /*
@@ -122,11 +166,21 @@ public abstract class Transaction {
      */
     @Override
     public String toString() {
-        return String.format(
-                "%s,%s,%.2f", // format double to 2 decimal places
-                getType().name().toLowerCase(),
-                getAccountNumber(),
-                getAmount());
+        return appendTo(new StringBuilder(48)).toString();
+    }
+
+    /**
+     * Append this transaction's CSV text to out, without a line separator.
+     * Lets the audit reuse one builder instead of creating Strings.
+     *
+     * @param out - builder receiving the text.
+     *
+     * @return out, for chaining.
+     */
+    public StringBuilder appendTo(StringBuilder out) {
+        out.append(getType().label()).append(',');
+        out.append(getAccountNumber()).append(',');
+        return Money.appendTo(out, amount);
     }
 
     /*
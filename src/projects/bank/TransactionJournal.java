@@ -0,0 +1,337 @@
+package projects.bank;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Write-ahead journal of the transactions applied to a bank, with periodic
+ * checkpoints of the account table.
+ *
+ * Every executed transaction is appended to journal.log as
+ * "seq,type,accountID,amount". Records are written and forced to disk in
+ * groups of groupSize (group commit), so a crash can lose at most the last
+ * uncommitted group.
+ *
+ * A checkpoint writes the accounts with Bank.writeAccounts to
+ * accounts-SEQ.csv, then atomically replaces the checkpoint file, which
+ * names that accounts file and the last sequence number it includes. The
+ * checkpoint file is the commit point: a crash at any step leaves either the
+ * old or the new checkpoint in force, and recovery replays only records
+ * after it.
+ *
+ * Records hold no time, so replayed withdrawals are not counted against the
+ * daily limits: they may be from an earlier day, and counting them at the
+ * time of recovery would refuse withdrawals that are allowed.
+ *
+ * Checkpoints taken automatically by record() assume a single processing
+ * thread. With ParallelProcessor, pass checkpointEvery = 0 and call
+ * checkpoint() between runs.
+ */
+public class TransactionJournal {
+
+    private static final String JOURNAL = "journal.log";
+    private static final String CHECKPOINT = "checkpoint";
+
+    private final Bank bank;
+    private final File directory;
+    private final int groupSize;
+    private final long checkpointEvery;
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+    private final StringBuilder line = new StringBuilder(64);
+    private FileChannel channel;
+    private long lastSequence;
+    private long checkpointSequence;
+    private String checkpointFile;
+    private int pending;
+    private long sinceCheckpoint;
+
+    /**
+     * @param bank            - bank whose transactions are journaled.
+     * @param directory       - directory holding the journal, checkpoint
+     *                        and checkpointed account files.
+     * @param groupSize       - records written and forced to disk together.
+     * @param checkpointEvery - records between automatic checkpoints, or 0
+     *                        to only checkpoint when checkpoint() is called.
+     *
+     * @throws IllegalArgumentException if bank or directory is null, the
+     *                                  group size is below 1 or the
+     *                                  checkpoint interval is negative.
+     */
+    public TransactionJournal(
+            Bank bank,
+            String directory,
+            int groupSize,
+            long checkpointEvery) {
+        if (bank == null || directory == null) {
+            throw new IllegalArgumentException(
+                    "bank and directory must not be null.");
+        }
+        if (groupSize < 1 || checkpointEvery < 0) {
+            throw new IllegalArgumentException(
+                    "invalid group size or checkpoint interval.");
+        }
+        this.bank = bank;
+        this.directory = new File(directory);
+        this.groupSize = groupSize;
+        this.checkpointEvery = checkpointEvery;
+    }
+
+    /**
+     * Rebuild the bank after a restart and open the journal for appending.
+     *
+     * Loads the accounts of the last checkpoint, or initialAccounts if no
+     * checkpoint was taken yet, then executes every journaled transaction
+     * recorded after that checkpoint. A record cut short by a crash is
+     * dropped. A complete record that cannot be read is corruption rather
+     * than a crash, so recovery stops with the journal left untouched.
+     * Replayed transactions already passed validation, so they are executed
+     * without validating again.
+     *
+     * @param initialAccounts - accounts CSV file used when there is no
+     *                        checkpoint.
+     * @param audit           - audit receiving the replayed executions.
+     *
+     * @return the number of replayed transactions.
+     *
+     * @throws IOException if the journal or checkpoint cannot be read, or a
+     *                     journal record is malformed.
+     */
+    public int recover(String initialAccounts, Audit audit) throws IOException {
+        directory.mkdirs();
+        readCheckpoint();
+        String accountsFile = initialAccounts;
+        if (checkpointFile != null) {
+            accountsFile = new File(directory, checkpointFile).getPath();
+        }
+        if (!bank.loadAccounts(accountsFile)) {
+            throw new IOException("cannot load accounts: " + accountsFile);
+        }
+
+        int replayed = 0;
+        lastSequence = checkpointSequence;
+        long validBytes = 0;
+        File journal = new File(directory, JOURNAL);
+        if (journal.exists()) {
+            byte[] bytes = Files.readAllBytes(journal.toPath());
+            int start = 0;
+            int lineNumber = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] == '\n') {
+                    lineNumber++;
+                    String record = new String(
+                            bytes, start, i - start, StandardCharsets.UTF_8);
+                    int comma = record.indexOf(',');
+                    long sequence;
+                    Transaction tx;
+                    try {
+                        if (comma <= 0) {
+                            throw new IllegalArgumentException("no sequence number.");
+                        }
+                        sequence = Long.parseLong(record.substring(0, comma));
+                        tx = Transaction.make(record.substring(comma + 1));
+                    } catch (IllegalArgumentException e) {
+                        throw new IOException(
+                                "corrupt journal record at line " + lineNumber
+                                        + ": " + record,
+                                e);
+                    }
+                    if (sequence > checkpointSequence) {
+                        Account target = bank.resolve(tx.getAccountNumber());
+                        if (target != null) {
+                            replay(tx, target, audit);
+                            replayed++;
+                        }
+                    }
+                    lastSequence = Math.max(lastSequence, sequence);
+                    start = i + 1;
+                    validBytes = start;
+                }
+            }
+        }
+
+        channel = FileChannel.open(
+                journal.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        channel.truncate(validBytes); // drop a torn last record
+        channel.position(validBytes);
+        return replayed;
+    }
+
+    /**
+     * Execute a journaled transaction again, as tx.execute would, but
+     * without adding a withdrawal to the account's daily limit window.
+     */
+    private static void replay(Transaction tx, Account target, Audit audit) {
+        if (tx.getType() == TransactionType.WITHDRAWAL) {
+            target.debitCents(tx.getAmountCents(), false);
+        } else {
+            target.creditCents(tx.getAmountCents());
+        }
+        audit.recordExecute(tx, target);
+    }
+
+    /**
+     * Journal an executed transaction. Writes the group once groupSize
+     * records are pending, and checkpoints once checkpointEvery records
+     * were journaled since the last checkpoint.
+     *
+     * @param tx - transaction that was just executed.
+     *
+     * @return the sequence number given to the record.
+     *
+     * @throws IOException if the journal cannot be written.
+     */
+    public synchronized long record(Transaction tx) throws IOException {
+        if (channel == null) {
+            throw new IllegalStateException("journal is not open, call recover.");
+        }
+        lastSequence++;
+        line.setLength(0);
+        line.append(lastSequence).append(',');
+        tx.appendTo(line).append('\n');
+        if (buffer.remaining() < line.length() * 3) {
+            flushBuffer();
+        }
+        encode(line);
+        pending++;
+        sinceCheckpoint++;
+        if (pending >= groupSize) {
+            commit();
+        }
+        if (checkpointEvery > 0 && sinceCheckpoint >= checkpointEvery) {
+            checkpoint();
+        }
+        return lastSequence;
+    }
+
+    /**
+     * Write every pending record and force it to disk.
+     *
+     * @throws IOException if the journal cannot be written.
+     */
+    public synchronized void commit() throws IOException {
+        flushBuffer();
+        if (pending > 0) {
+            channel.force(false);
+            pending = 0;
+        }
+    }
+
+    /**
+     * Commit the journal, write the accounts, then make them the checkpoint
+     * and empty the journal.
+     *
+     * @throws IOException if a file cannot be written.
+     */
+    public synchronized void checkpoint() throws IOException {
+        commit();
+        String accountsName = "accounts-" + lastSequence + ".csv";
+        File accounts = new File(directory, accountsName);
+        if (!bank.writeAccounts(accounts.getPath())) {
+            throw new IOException("cannot write accounts: " + accounts);
+        }
+        force(accounts.toPath());
+
+        // the rename is the commit point of the checkpoint
+        File next = new File(directory, CHECKPOINT + ".tmp");
+        try (FileWriter out = new FileWriter(next)) {
+            out.write(lastSequence + "," + accountsName + "\n");
+        }
+        force(next.toPath());
+        Files.move(
+                next.toPath(),
+                new File(directory, CHECKPOINT).toPath(),
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+
+        String previous = checkpointFile;
+        checkpointFile = accountsName;
+        checkpointSequence = lastSequence;
+        sinceCheckpoint = 0;
+        // every record is now covered by the checkpoint
+        channel.truncate(0);
+        channel.position(0);
+        if (previous != null && !previous.equals(accountsName)) {
+            new File(directory, previous).delete();
+        }
+    }
+
+    /**
+     * Commit pending records and close the journal.
+     */
+    public synchronized void close() {
+        try {
+            if (channel != null) {
+                commit();
+                channel.close();
+                channel = null;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return the sequence number of the last journaled record.
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * @return the last sequence number included in the current checkpoint.
+     */
+    public synchronized long getCheckpointSequence() {
+        return checkpointSequence;
+    }
+
+    private void readCheckpoint() throws IOException {
+        checkpointFile = null;
+        checkpointSequence = 0;
+        File checkpoint = new File(directory, CHECKPOINT);
+        if (!checkpoint.exists()) {
+            return;
+        }
+        try (BufferedReader in = new BufferedReader(new FileReader(checkpoint))) {
+            String[] token = in.readLine().split(",");
+            checkpointSequence = Long.parseLong(token[0]);
+            checkpointFile = token[1];
+        }
+    }
+
+    private void encode(StringBuilder text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                buffer.put(text.substring(i).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            buffer.put((byte) c);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void force(Path file) throws IOException {
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            out.force(true);
+        }
+    }
+}
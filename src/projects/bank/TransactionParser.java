@@ -0,0 +1,169 @@
+package projects.bank;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads transaction lines, eg "withdrawal,wz240833,500.00", into a
+ * reusable TransactionRecord.
+ *
+ * Lines are found in a byte buffer that is refilled from the stream and
+ * parsed in place: the type is matched against the labels ignoring case
+ * without converting it, the amount is read into cents, and the ID is
+ * packed. Nothing is allocated per line, so parsing a large file creates
+ * no garbage. Empty lines are skipped; fields after the amount are
+ * ignored, as in Transaction.make.
+ */
+public class TransactionParser implements AutoCloseable {
+
+    private final InputStream in;
+    private byte[] buffer = new byte[1 << 16];
+    private ByteBuffer bytes = ByteBuffer.wrap(buffer);
+    private final AsciiChars field = new AsciiChars();
+    private int position;
+    private int limit;
+    private boolean ended;
+    private long lines;
+
+    /**
+     * @param in - stream of transaction lines.
+     *
+     * @throws IllegalArgumentException if in is null.
+     */
+    public TransactionParser(InputStream in) {
+        if (in == null) {
+            throw new IllegalArgumentException("input must not be null.");
+        }
+        this.in = in;
+    }
+
+    /**
+     * @param fileName - CSV file of transactions.
+     *
+     * @throws IOException if the file cannot be opened.
+     */
+    public TransactionParser(String fileName) throws IOException {
+        this(new FileInputStream(fileName));
+    }
+
+    /**
+     * Parse the next non-empty line into a record.
+     *
+     * @param out - record receiving the line.
+     *
+     * @return true if a line was parsed, false at the end of the input.
+     *
+     * @throws IOException              if the input cannot be read.
+     * @throws IllegalArgumentException if the line is malformed.
+     */
+    public boolean next(TransactionRecord out) throws IOException {
+        while (true) {
+            int end = lineEnd();
+            if (end == -1) {
+                return false;
+            }
+            int start = position;
+            position = end < limit ? end + 1 : end; // past the '\n'
+            if (end > start && buffer[end - 1] == '\r') {
+                end--;
+            }
+            if (end > start) {
+                lines++;
+                parse(start, end, out);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return the number of lines parsed so far.
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * Find the end of the line starting at position, reading more input
+     * when the buffer holds no complete line.
+     *
+     * @return the index of the line's '\n', limit for a last line without
+     *         one, or -1 at the end of the input.
+     */
+    private int lineEnd() throws IOException {
+        int scanned = position;
+        while (true) {
+            for (int i = scanned; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    return i;
+                }
+            }
+            if (ended) {
+                return position < limit ? limit : -1;
+            }
+            // keep the partial line, growing the buffer for very long ones
+            int kept = limit - position;
+            if (kept == buffer.length) {
+                byte[] larger = new byte[buffer.length * 2];
+                System.arraycopy(buffer, position, larger, 0, kept);
+                buffer = larger;
+                bytes = ByteBuffer.wrap(buffer);
+            } else {
+                System.arraycopy(buffer, position, buffer, 0, kept);
+            }
+            position = 0;
+            limit = kept;
+            scanned = kept;
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read == -1) {
+                ended = true;
+            } else {
+                limit += read;
+            }
+        }
+    }
+
+    private void parse(int start, int end, TransactionRecord out) {
+        int first = indexOf(',', start, end);
+        int second = first == -1 ? -1 : indexOf(',', first + 1, end);
+        if (second == -1) {
+            throw new IllegalArgumentException(
+                    "invalid transaction line: " + field.wrap(bytes, start, end));
+        }
+        TransactionType type;
+        field.wrap(bytes, start, first);
+        if (field.equalsIgnoreCase(TransactionType.DEPOSIT.label())) {
+            type = TransactionType.DEPOSIT;
+        } else if (field.equalsIgnoreCase(TransactionType.WITHDRAWAL.label())) {
+            type = TransactionType.WITHDRAWAL;
+        } else {
+            throw new IllegalArgumentException("Invalid transaction type.");
+        }
+        int amountEnd = indexOf(',', second + 1, end);
+        if (amountEnd == -1) {
+            amountEnd = end;
+        }
+        long cents = Money.parseCents(field.wrap(bytes, second + 1, amountEnd));
+        if (cents <= 0) {
+            throw new IllegalArgumentException(
+                    "transaction amount must be positive.");
+        }
+        long packed = AccountID.pack(field.wrap(bytes, first + 1, second));
+        out.set(type, bytes, first + 1, second, packed, cents);
+    }
+
+    private int indexOf(char c, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (buffer[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,452 @@
+package projects.bank;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs phase 3 - load accounts, read transactions, apply them, write the
+ * audit and the accounts - as four stages on their own threads, connected
+ * by bounded queues of transaction batches:
+ *
+ * parse  - reads the transactions file with a TransactionParser
+ * apply  - loads the accounts, then applies each batch through Bank.apply,
+ *          keeping the outcomes instead of formatting audit lines, and
+ *          writes the accounts file at the end
+ * format - turns the outcomes of a batch into audit text
+ * write  - appends the text to the audit file
+ *
+ * Parsing overlaps loading the accounts, and formatting and writing the
+ * audit overlap applying the next batches. Batches keep file order through
+ * every stage, so the audit and accounts files are the same as
+ * Bank.processTransactions writes, apart from the timestamps. When a queue
+ * is full the stage feeding it waits, which bounds the memory in use.
+ */
+public class TransactionPipeline {
+
+    private static final int DEFAULT_BATCH_SIZE = 1 << 10;
+    private static final int DEFAULT_CAPACITY = 16;
+    // marks the end of the stream in every queue
+    private static final Batch END = new Batch(0);
+
+    private final Bank bank;
+    private final int batchSize;
+    private final int capacity;
+    private Stage parse;
+    private Stage apply;
+    private Stage format;
+    private Stage write;
+    private ProcessingStats stats = new ProcessingStats();
+    private int processed;
+    private boolean accountsLoaded;
+    private boolean accountsWritten;
+    private long loadNanos;
+    private long writeAccountsNanos;
+
+    /**
+     * Create a pipeline with batches of 1024 transactions and queues of 16
+     * batches.
+     *
+     * @param bank - bank receiving the accounts and transactions.
+     *
+     * @throws IllegalArgumentException if bank is null.
+     */
+    public TransactionPipeline(Bank bank) {
+        this(bank, DEFAULT_BATCH_SIZE, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param bank      - bank receiving the accounts and transactions.
+     * @param batchSize - transactions passed between stages at a time.
+     * @param capacity  - batches each queue holds.
+     *
+     * @throws IllegalArgumentException if bank is null, or a size is not
+     *                                  positive.
+     */
+    public TransactionPipeline(Bank bank, int batchSize, int capacity) {
+        if (bank == null) {
+            throw new IllegalArgumentException("bank must not be null.");
+        }
+        if (batchSize < 1 || capacity < 1) {
+            throw new IllegalArgumentException("sizes must be positive.");
+        }
+        this.bank = bank;
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Load the accounts, apply the transactions and write the audit and the
+     * accounts files.
+     *
+     * @param accountsFile     - CSV file of accounts to load.
+     * @param transactionsFile - CSV file of transactions, one per line.
+     * @param auditFile        - log file receiving the audit lines.
+     * @param accountsOutFile  - CSV file receiving the accounts afterwards.
+     *
+     * @return count of processed transactions.
+     *
+     * @throws InterruptedIOException   if the calling thread is interrupted;
+     *                                  every stage has stopped by then and
+     *                                  the interrupt flag is set again.
+     * @throws IOException              if a file cannot be read or written.
+     * @throws IllegalArgumentException if a file name is null or a
+     *                                  transaction line is malformed.
+     */
+    public int run(
+            String accountsFile,
+            String transactionsFile,
+            String auditFile,
+            String accountsOutFile) throws IOException {
+        if (accountsFile == null || transactionsFile == null
+                || auditFile == null || accountsOutFile == null) {
+            throw new IllegalArgumentException("File cannot be null.");
+        }
+        BlockingQueue<Batch> parsed = new ArrayBlockingQueue<>(capacity);
+        BlockingQueue<Batch> applied = new ArrayBlockingQueue<>(capacity);
+        BlockingQueue<Batch> formatted = new ArrayBlockingQueue<>(capacity);
+        parse = new Stage("parse", parsed);
+        apply = new Stage("apply", applied);
+        format = new Stage("format", formatted);
+        write = new Stage("write", null);
+        stats = new ProcessingStats();
+        processed = 0;
+
+        Callable<Void> parser = () -> parse(transactionsFile);
+        Callable<Void> applier = () -> apply(
+                accountsFile, accountsOutFile, parsed);
+        Callable<Void> formatter = () -> format(applied);
+        Callable<Void> writer = () -> write(auditFile, formatted);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        CompletionService<Void> stages = new ExecutorCompletionService<>(pool);
+        try {
+            stages.submit(parser);
+            stages.submit(applier);
+            stages.submit(formatter);
+            stages.submit(writer);
+            for (int i = 0; i < 4; i++) {
+                stages.take().get();
+            }
+        } catch (InterruptedException e) {
+            // no stage may still be writing once run returns
+            pool.shutdownNow();
+            awaitStages(pool);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("pipeline interrupted.");
+        } catch (ExecutionException e) {
+            // the other stages may be waiting on a queue that will never move
+            pool.shutdownNow();
+            awaitStages(pool);
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            pool.shutdown();
+        }
+        return processed;
+    }
+
+    /**
+     * Wait until every stage of a pool that was shut down has returned,
+     * even if interrupted meanwhile; the interrupt is kept for the caller.
+     */
+    private static void awaitStages(ExecutorService pool) {
+        boolean interrupted = false;
+        while (!pool.isTerminated()) {
+            try {
+                pool.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Void parse(String transactionsFile)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        try (TransactionParser parser = new TransactionParser(transactionsFile)) {
+            TransactionRecord record = new TransactionRecord();
+            Batch batch = new Batch(batchSize);
+            while (parser.next(record)) {
+                batch.transactions[batch.size++] = record.toTransaction();
+                if (batch.size == batchSize) {
+                    parse.put(batch);
+                    batch = new Batch(batchSize);
+                }
+            }
+            if (batch.size > 0) {
+                parse.put(batch);
+            }
+        }
+        parse.put(END);
+        parse.finish(start);
+        return null;
+    }
+
+    private Void apply(
+            String accountsFile,
+            String accountsOutFile,
+            BlockingQueue<Batch> in) throws IOException, InterruptedException {
+        long loading = System.nanoTime();
+        accountsLoaded = bank.loadAccounts(accountsFile);
+        long start = System.nanoTime();
+        loadNanos = start - loading;
+        RecordingAudit audit = new RecordingAudit();
+        long sequence = 0; // of the transaction in the file
+        Batch batch = apply.take(in);
+        while (batch != END) {
+            audit.batch = batch;
+            for (int i = 0; i < batch.size; i++) {
+                sequence++;
+                if (bank.apply(batch.transactions[i], sequence, audit, stats)) {
+                    processed++;
+                }
+            }
+            apply.put(batch);
+            batch = apply.take(in);
+        }
+        bank.commitJournal();
+        apply.put(END);
+        apply.finish(start);
+        long written = System.nanoTime();
+        accountsWritten = bank.writeAccounts(accountsOutFile);
+        writeAccountsNanos = System.nanoTime() - written;
+        return null;
+    }
+
+    private Void format(BlockingQueue<Batch> in) throws InterruptedException {
+        long start = System.nanoTime();
+        StringWriter text = new StringWriter(1 << 16);
+        Audit audit = new Audit(text);
+        Batch batch = format.take(in);
+        while (batch != END) {
+            for (int i = 0; i < batch.records; i++) {
+                Transaction tx = batch.recorded[i];
+                byte outcome = batch.outcomes[i];
+                if (outcome == BinaryAudit.EXECUTED) {
+                    audit.recordExecute(tx, batch.cents[i]);
+                } else if (outcome == BinaryAudit.NONSUFFICIENT_FUNDS) {
+                    audit.recordNonSufficientFunds(tx, batch.cents[i]);
+                } else if (outcome == BinaryAudit.DAILY_LIMIT_EXCEEDED) {
+                    audit.recordDailyLimitExceeded(tx, batch.cents[i]);
+                } else {
+                    audit.recordNoSuchAccount(tx);
+                }
+            }
+            batch.text = text.toString();
+            text.getBuffer().setLength(0);
+            format.put(batch);
+            batch = format.take(in);
+        }
+        format.put(END);
+        format.finish(start);
+        return null;
+    }
+
+    private Void write(String auditFile, BlockingQueue<Batch> in)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        try (Writer out = new BufferedWriter(Audit.open(auditFile), 1 << 20)) {
+            Batch batch = write.take(in);
+            while (batch != END) {
+                out.write(batch.text);
+                write.items += batch.size;
+                batch = write.take(in);
+            }
+        }
+        write.finish(start);
+        return null;
+    }
+
+    /**
+     * @return the per-stage counters of Bank.apply for the last run.
+     */
+    public ProcessingStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return true if the accounts file of the last run was loaded.
+     */
+    public boolean isAccountsLoaded() {
+        return accountsLoaded;
+    }
+
+    /**
+     * @return true if the accounts file of the last run was written.
+     */
+    public boolean isAccountsWritten() {
+        return accountsWritten;
+    }
+
+    /**
+     * Report each stage of the last run on its own line, eg
+     * "parse: 1000 transactions, 2.10 ms busy, 476190 transactions/sec,
+     * 0.40 ms waiting, queue 3.2 of 16 batches on average, 16 at most".
+     */
+    @Override
+    public String toString() {
+        if (parse == null) {
+            return "not run";
+        }
+        return String.format(
+                "load accounts: %.2f ms%n%s%n%s%n%s%n%s%nwrite accounts: %.2f ms",
+                loadNanos / 1e6,
+                parse,
+                apply,
+                format,
+                write,
+                writeAccountsNanos / 1e6);
+    }
+
+    /**
+     * Transactions passed between stages, with their outcomes once applied
+     * and their audit text once formatted.
+     */
+    private static class Batch {
+
+        final Transaction[] transactions;
+        int size;
+        // one entry per audit record, normally one per transaction
+        Transaction[] recorded;
+        byte[] outcomes;
+        long[] cents;
+        int records;
+        String text;
+
+        Batch(int capacity) {
+            transactions = new Transaction[capacity];
+            recorded = new Transaction[capacity];
+            outcomes = new byte[capacity];
+            cents = new long[capacity];
+        }
+
+        void record(byte outcome, Transaction t, long amountCents) {
+            if (records == outcomes.length) {
+                int larger = Math.max(16, records * 2);
+                recorded = Arrays.copyOf(recorded, larger);
+                outcomes = Arrays.copyOf(outcomes, larger);
+                cents = Arrays.copyOf(cents, larger);
+            }
+            recorded[records] = t;
+            outcomes[records] = outcome;
+            cents[records] = amountCents;
+            records++;
+        }
+    }
+
+    /**
+     * Audit keeping the outcome of each transaction in the current batch,
+     * so the apply stage does not format lines itself.
+     */
+    private static class RecordingAudit extends Audit {
+
+        Batch batch;
+
+        RecordingAudit() {
+            super(Writer.nullWriter());
+        }
+
+        @Override
+        public void recordNoSuchAccount(Transaction t) {
+            batch.record(BinaryAudit.NO_SUCH_ACCOUNT, t, 0);
+        }
+
+        @Override
+        public void recordNonSufficientFunds(Transaction t, long balanceCents) {
+            batch.record(BinaryAudit.NONSUFFICIENT_FUNDS, t, balanceCents);
+        }
+
+        @Override
+        public void recordDailyLimitExceeded(Transaction t, long withdrawnCents) {
+            batch.record(BinaryAudit.DAILY_LIMIT_EXCEEDED, t, withdrawnCents);
+        }
+
+        @Override
+        public void recordExecute(Transaction t, long balanceCents) {
+            batch.record(BinaryAudit.EXECUTED, t, balanceCents);
+        }
+    }
+
+    /**
+     * Counters of one stage and of the queue it feeds. Only the stage's
+     * own thread updates them.
+     */
+    private class Stage {
+
+        private final String name;
+        private final BlockingQueue<Batch> out;
+        long items;
+        private long nanos;
+        private long waitNanos;
+        private long occupancy;
+        private long samples;
+        private int maxOccupancy;
+
+        Stage(String name, BlockingQueue<Batch> out) {
+            this.name = name;
+            this.out = out;
+        }
+
+        Batch take(BlockingQueue<Batch> in) throws InterruptedException {
+            long start = System.nanoTime();
+            Batch batch = in.take();
+            waitNanos += System.nanoTime() - start;
+            return batch;
+        }
+
+        void put(Batch batch) throws InterruptedException {
+            long start = System.nanoTime();
+            out.put(batch);
+            waitNanos += System.nanoTime() - start;
+            items += batch.size;
+            int size = out.size();
+            occupancy += size;
+            samples++;
+            maxOccupancy = Math.max(maxOccupancy, size);
+        }
+
+        void finish(long startNanos) {
+            nanos = System.nanoTime() - startNanos;
+        }
+
+        @Override
+        public String toString() {
+            long busy = nanos - waitNanos;
+            String line = String.format(
+                    "%s: %d transactions, %.2f ms busy, %.0f transactions/sec, %.2f ms waiting",
+                    name,
+                    items,
+                    busy / 1e6,
+                    busy > 0 ? items * 1e9 / busy : 0.0,
+                    waitNanos / 1e6);
+            if (out == null) {
+                return line;
+            }
+            return line + String.format(
+                    ", queue %.1f of %d batches on average, %d at most",
+                    samples > 0 ? (double) occupancy / samples : 0.0,
+                    capacity,
+                    maxOccupancy);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package projects.bank;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mutable transaction, filled by TransactionParser one line after another
+ * so parsing a file does not create an object per line.
+ *
+ * The account ID is kept as bytes and, when it fits, packed in a long (see
+ * AccountID), which is enough to look the account up. A String for it is
+ * only created if getAccountNumber is called, and an immutable Deposit or
+ * Withdrawal only if toTransaction is. asTransaction instead returns a view
+ * of the current line, so a line can be applied and audited without either.
+ */
+public class TransactionRecord {
+
+    private TransactionType type;
+    private long amountCents;
+    private byte[] id = new byte[16];
+    private int idLength;
+    private long packedID;
+    private String accountNumber;
+    private final Deposit depositView = new DepositView();
+    private final Withdrawal withdrawalView = new WithdrawalView();
+
+    /**
+     * Fill the record. The ID bytes are copied, so the buffer can be
+     * reused afterwards.
+     */
+    void set(
+            TransactionType type,
+            ByteBuffer bytes,
+            int idStart,
+            int idEnd,
+            long packedID,
+            long amountCents) {
+        this.type = type;
+        this.amountCents = amountCents;
+        this.packedID = packedID;
+        idLength = idEnd - idStart;
+        if (id.length < idLength) {
+            id = new byte[idLength * 2];
+        }
+        bytes.get(idStart, id, 0, idLength);
+        accountNumber = null;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    /**
+     * @return the amount in cents, always positive.
+     */
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    /**
+     * @return the account ID packed in a long, or AccountID.NOT_PACKED if
+     *         it does not fit in one.
+     */
+    public long getPackedID() {
+        return packedID;
+    }
+
+    /**
+     * @return the account ID, decoded on first use for each line.
+     */
+    public String getAccountNumber() {
+        if (accountNumber == null) {
+            accountNumber = new String(id, 0, idLength, StandardCharsets.UTF_8);
+        }
+        return accountNumber;
+    }
+
+    /**
+     * @return a Deposit or Withdrawal holding the current line.
+     */
+    public Transaction toTransaction() {
+        if (type == TransactionType.WITHDRAWAL) {
+            return new Withdrawal(amountCents, getAccountNumber());
+        }
+        return new Deposit(amountCents, getAccountNumber());
+    }
+
+    /**
+     * The view is reused for every line: it must not be kept once the
+     * record is filled again, use toTransaction for that.
+     * 
+     * @return a Deposit or Withdrawal reading the current line.
+     */
+    Transaction asTransaction() {
+        if (type == TransactionType.WITHDRAWAL) {
+            return withdrawalView;
+        }
+        return depositView;
+    }
+
+    /**
+     * Append the line's CSV text like Transaction.appendTo, writing a packed
+     * ID straight from its long.
+     */
+    private StringBuilder appendTo(StringBuilder out) {
+        out.append(type.label()).append(',');
+        if (packedID == AccountID.NOT_PACKED) {
+            out.append(getAccountNumber());
+        } else {
+            AccountID.appendTo(out, packedID);
+        }
+        return Money.appendTo(out.append(','), amountCents);
+    }
+
+    private final class DepositView extends Deposit {
+        @Override
+        public double getAmount() {
+            return Money.toDouble(amountCents);
+        }
+
+        @Override
+        public long getAmountCents() {
+            return amountCents;
+        }
+
+        @Override
+        public String getAccountNumber() {
+            return TransactionRecord.this.getAccountNumber();
+        }
+
+        @Override
+        public StringBuilder appendTo(StringBuilder out) {
+            return TransactionRecord.this.appendTo(out);
+        }
+    }
+
+    private final class WithdrawalView extends Withdrawal {
+        @Override
+        public double getAmount() {
+            return Money.toDouble(amountCents);
+        }
+
+        @Override
+        public long getAmountCents() {
+            return amountCents;
+        }
+
+        @Override
+        public String getAccountNumber() {
+            return TransactionRecord.this.getAccountNumber();
+        }
+
+        @Override
+        public StringBuilder appendTo(StringBuilder out) {
+            return TransactionRecord.this.appendTo(out);
+        }
+    }
+}
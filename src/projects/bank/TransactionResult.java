@@ -0,0 +1,13 @@
+package projects.bank;
+
+/**
+ * Outcome of a transaction submitted to a ConcurrentBank, or read back from
+ * a BinaryAudit.
+ */
+public enum TransactionResult {
+    EXECUTED,
+    NONSUFFICIENT_FUNDS,
+    NO_SUCH_ACCOUNT,
+    DAILY_LIMIT_EXCEEDED,
+    INTEREST_ACCRUED
+}
@@ -4,6 +4,19 @@ package projects.bank;
  * There are two Transaction types supported in this bank.
  */
 public enum TransactionType {
-    DEPOSIT,
-    WITHDRAWAL
+    DEPOSIT("deposit"),
+    WITHDRAWAL("withdrawal");
+
+    private final String label;
+
+    TransactionType(String label) {
+        this.label = label;
+    }
+
+    /**
+     * @return the lowercase name used in CSV files, eg "deposit".
+     */
+    public String label() {
+        return label;
+    }
 }
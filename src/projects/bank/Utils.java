@@ -1,8 +1,5 @@
 package projects.bank;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-
 public class Utils {
 
     /**
@@ -11,10 +8,11 @@ public class Utils {
      * 
      *         yyyy-MM-dd@HH:mm:ss 2025-11-03@10:30:25
      * 
+     *         Shares lib.Utils' cache, so it is formatted once a second.
+     * 
      */
     public static String timestamp() {
-        return LocalDateTime.now().format(
-                DateTimeFormatter.ofPattern("yyyy-MM-dd@HH:mm:ss"));
+        return lib.Utils.timestamp();
     }
 
 }
\ No newline at end of file
@@ -12,6 +12,20 @@ public class Withdrawal extends Transaction {
         super(accountID, transactionAmt);
     }
 
+    /**
+     * @param cents     - amount in cents, positive.
+     * @param accountID - account the withdrawal applies to.
+     */
+    Withdrawal(long cents, String accountID) {
+        super(cents, accountID);
+    }
+
+    /**
+     * For views that override the accessors, see TransactionRecord.
+     */
+    Withdrawal() {
+    }
+
     /**
      * /**
      * Returns Withdrawal for a given transaction.
@@ -25,18 +39,22 @@ public class Withdrawal extends Transaction {
      *
      * Returns boolean
      * true - to allow the withdrawal to proceed without hold.
-     * false - to halt the transaction due to insufficient funds.
+     * false - to halt the transaction due to insufficient funds, or
+     * because it would exceed the daily limit of the account type.
      * 
      */
     @Override
     public boolean validate(Account account, Audit audit) {
-        if (getAmount() < account.getCurrentBalance()) {
+        if (getAmountCents() >= account.getCurrentBalanceCents()) {
             // Account can't debit more than the current balance
             // on the account as overdrafts are not allowed in this bank.
-            return true;
-        } else {
             audit.recordNonSufficientFunds(this, account);
             return false;
+        } else if (!account.withinDailyLimit(getAmountCents())) {
+            audit.recordDailyLimitExceeded(this, account);
+            return false;
+        } else {
+            return true;
         }
     }
 
@@ -46,7 +64,7 @@ public class Withdrawal extends Transaction {
      */
     @Override
     public void execute(Account account, Audit audit) {
-        account.debit(getAmount());
+        account.debitCents(getAmountCents());
         audit.recordExecute(this, account);
     }
 }
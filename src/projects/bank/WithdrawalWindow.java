@@ -0,0 +1,62 @@
+package projects.bank;
+
+import java.util.Arrays;
+
+/**
+ * Total withdrawn from one account over the last 24 hours, kept in 24
+ * hourly buckets.
+ *
+ * The window covers the current hour and the 23 before it. Moving it
+ * forward clears the buckets of the hours that left it and subtracts them
+ * from the running total, so adding a withdrawal or reading the total costs
+ * at most 24 bucket updates however many withdrawals there were, and the
+ * memory used never grows. Amounts leave the window between 23 and 24
+ * hours after they were added.
+ */
+public class WithdrawalWindow {
+
+    static final int HOURS = 24;
+    static final long HOUR_MILLIS = 3_600_000;
+
+    private final long[] buckets = new long[HOURS];
+    private long hour;
+    private long total;
+
+    /**
+     * @param nowMillis - current time in epoch milliseconds.
+     *
+     * @return the cents withdrawn in the window ending now.
+     */
+    public long total(long nowMillis) {
+        advance(nowMillis);
+        return total;
+    }
+
+    /**
+     * @param nowMillis - time of the withdrawal in epoch milliseconds.
+     * @param cents     - amount withdrawn, in cents.
+     */
+    public void add(long nowMillis, long cents) {
+        advance(nowMillis);
+        buckets[(int) (hour % HOURS)] += cents;
+        total += cents;
+    }
+
+    private void advance(long nowMillis) {
+        long now = Math.floorDiv(nowMillis, HOUR_MILLIS);
+        if (now <= hour) {
+            return; // same hour, or the clock went back: keep the window
+        }
+        if (now - hour >= HOURS) {
+            Arrays.fill(buckets, 0);
+            total = 0;
+        } else {
+            for (long h = hour + 1; h <= now; h++) {
+                int i = (int) (h % HOURS);
+                total -= buckets[i];
+                buckets[i] = 0;
+            }
+        }
+        hour = now;
+    }
+}
@@ -0,0 +1,79 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+public class AccountFilterTest {
+
+    /*
+     * Test confirms every added ID is reported as maybe present, and that
+     * the false positive rate of a full filter stays near the expected one.
+     */
+    @Test
+    void falsePositiveRateTest() {
+        AccountFilter filter = new AccountFilter(100_000);
+        int capacity = filter.getCapacity();
+        assertTrue(capacity >= 100_000);
+        for (int i = 0; i < capacity; i++) {
+            filter.add(BenchSupport.accountID(i));
+        }
+        assertEquals(true, filter.isFull());
+        for (int i = 0; i < capacity; i++) {
+            assertEquals(true, filter.mightContain(BenchSupport.accountID(i)));
+        }
+        int positives = 0;
+        int absent = 200_000;
+        for (int i = 0; i < absent; i++) {
+            if (filter.mightContain(BenchSupport.missingAccountID(i))) {
+                positives++;
+            }
+        }
+        double expected = filter.getExpectedFalsePositiveRate();
+        assertTrue(expected < 0.01);
+        assertEquals(expected, (double) positives / absent, 0.005);
+        assertEquals(capacity * AccountFilter.BITS_PER_KEY / 8,
+                filter.getMemoryBytes());
+    }
+
+    /*
+     * Test confirms the bank keeps its filter in step with add, also when
+     * it has to grow, and counts the misses the filter rejected.
+     */
+    @Test
+    void bankFilterTest() {
+        Bank bank = new Bank();
+        for (int i = 0; i < 5_000; i++) {
+            bank.add(new CheckingAccount(
+                    BenchSupport.accountID(i), "Owner Name", 100.0));
+        }
+        assertEquals(5_000, bank.getFilter().size());
+        for (int i = 0; i < 5_000; i++) {
+            assertEquals(i, bank.find(BenchSupport.accountID(i)));
+        }
+
+        Audit audit = new Audit(new StringWriter());
+        ProcessingStats stats = new ProcessingStats();
+        for (int i = 0; i < 1_000; i++) {
+            bank.apply(new Deposit(BenchSupport.accountID(i), 1.0), audit, stats);
+            bank.apply(
+                    new Deposit(BenchSupport.missingAccountID(i), 1.0),
+                    audit,
+                    stats);
+        }
+        audit.close();
+        assertEquals(1_000, stats.getProcessed());
+        assertEquals(1_000, stats.getMisses());
+        assertTrue(stats.getFalsePositiveRate() < 0.05);
+        assertEquals(
+                stats.getMisses() - stats.getFilterRejects(),
+                Math.round(stats.getFalsePositiveRate() * stats.getMisses()));
+
+        bank.setFastReject(false);
+        assertEquals(-1, bank.find(BenchSupport.missingAccountID(0)));
+        assertEquals(0, bank.find(BenchSupport.accountID(0)));
+    }
+
+} // end: class AccountFilterTest
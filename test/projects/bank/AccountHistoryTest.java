@@ -0,0 +1,218 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AccountHistoryTest {
+
+    private long[] balances;
+
+    /*
+     * Setting up the balances recorded by fillHistory: 3 accounts taking
+     * turns, 300 entries, so each account has several groups.
+     */
+    @BeforeEach
+    void setup() {
+        balances = new long[300];
+        for (int i = 0; i < balances.length; i++) {
+            // going up and down so deltas are negative too
+            balances[i] = 100_000 + (i % 2 == 0 ? i * 37 : -i * 11);
+        }
+    }
+
+    private void fillHistory(AccountHistory history) {
+        for (int i = 0; i < balances.length; i++) {
+            assertEquals(
+                    i + 1,
+                    history.record("id" + i % 3, 1_000L * i, balances[i]));
+        }
+    }
+
+    /*
+     * Expected balance of an account after transaction N, by scanning.
+     */
+    private long expected(int account, long sequence, long opening) {
+        long balance = opening;
+        for (int i = 0; i < sequence && i < balances.length; i++) {
+            if (i % 3 == account) {
+                balance = balances[i];
+            }
+        }
+        return balance;
+    }
+
+    private void checkQueries(AccountHistory history) {
+        for (int account = 0; account < 3; account++) {
+            for (long n = 0; n <= balances.length + 1; n++) {
+                assertEquals(
+                        expected(account, n, -1),
+                        history.balanceAfter("id" + account, n, -1));
+                // transaction n is recorded at time 1000 * (n - 1)
+                assertEquals(
+                        expected(account, n, -1),
+                        history.balanceAt("id" + account, 1_000L * (n - 1), -1));
+            }
+        }
+    }
+
+    /*
+     * Test confirms balances after a sequence number and at a time match a
+     * scan of the recorded entries, including before the first entry.
+     */
+    @Test
+    void balanceQueriesTest() throws IOException {
+        try (AccountHistory history = new AccountHistory(null, 0)) {
+            fillHistory(history);
+            assertEquals(balances.length, history.getSequence());
+            checkQueries(history);
+            assertEquals(42, history.balanceAfter("id9", 100, 42));
+            assertEquals(42, history.balanceAt("id0", -1, 42));
+        }
+    }
+
+    /*
+     * Test confirms groups moved to the spill file are still found.
+     */
+    @Test
+    void spillTest() throws IOException {
+        File directory = Files.createTempDirectory("history").toFile();
+        directory.deleteOnExit();
+        try (AccountHistory history = new AccountHistory(
+                directory.getPath(), 64)) {
+            fillHistory(history);
+            assertTrue(history.getMemoryBytes() <= 64 + 3 * 32 * 30);
+            checkQueries(history);
+        }
+        assertEquals(0, directory.list().length);
+    }
+
+    /*
+     * Test confirms a closed history refuses records and queries instead
+     * of failing on its deleted spill file.
+     */
+    @Test
+    void closedHistoryTest() throws IOException {
+        File directory = Files.createTempDirectory("history").toFile();
+        directory.deleteOnExit();
+        AccountHistory history = new AccountHistory(directory.getPath(), 64);
+        fillHistory(history);
+        history.close();
+        history.close();
+        assertThrows(
+                IllegalStateException.class,
+                () -> {
+                    history.balanceAfter("id0", 1, -1);
+                });
+        assertThrows(
+                IllegalStateException.class,
+                () -> {
+                    history.balanceAt("id0", 0, -1);
+                });
+        assertThrows(
+                IllegalStateException.class,
+                () -> {
+                    history.record("id0", 0);
+                });
+    }
+
+    /*
+     * Test confirms times never go backwards and that the bank records
+     * only executed transactions.
+     */
+    @Test
+    void bankHistoryTest() throws IOException {
+        File accounts = File.createTempFile("accounts", ".csv");
+        accounts.deleteOnExit();
+        try (FileWriter out = new FileWriter(accounts)) {
+            out.write("savings,wz240833,Anna Gomez,8111.00\n");
+            out.write("checking,hr108256,Anna Gomez,1715.18\n");
+        }
+        File transactions = File.createTempFile("transactions", ".csv");
+        transactions.deleteOnExit();
+        try (FileWriter out = new FileWriter(transactions)) {
+            out.write("deposit,wz240833,500.00\n");
+            out.write("withdrawal,xx000000,10.00\n");
+            out.write("withdrawal,hr108256,9000.00\n");
+            out.write("withdrawal,hr108256,15.18\n");
+        }
+        Bank bank = new Bank();
+        assertTrue(bank.loadAccounts(accounts.getPath()));
+        try (AccountHistory history = new AccountHistory(null, 0)) {
+            bank.setHistory(history);
+            bank.processTransactionFile(
+                    transactions.getPath(), new Audit(new StringWriter()));
+            // numbered by line, refused lines included
+            assertEquals(4, history.getSequence());
+            assertEquals(811100, history.balanceAfter("wz240833", 0, 811100));
+            assertEquals(861100, history.balanceAfter("wz240833", 1, 811100));
+            assertEquals(171518, history.balanceAfter("hr108256", 3, 171518));
+            assertEquals(170000, history.balanceAfter("hr108256", 4, 171518));
+        }
+        bank.setHistory(null);
+
+        try (AccountHistory history = new AccountHistory(null, 0)) {
+            history.record("id1", 5_000, 1);
+            history.record("id1", 4_000, 2); // moved up to 5000
+            assertEquals(2, history.balanceAt("id1", 5_000, 0));
+            assertThrows(
+                    IllegalArgumentException.class,
+                    () -> history.record("id1", 2, 6_000, 3));
+        }
+    }
+
+    /*
+     * Test confirms ParallelProcessor numbers the history like a sequential
+     * run, whatever order its workers finish in.
+     */
+    @Test
+    void parallelHistoryTest() throws IOException {
+        File accounts = File.createTempFile("accounts", ".csv");
+        accounts.deleteOnExit();
+        File transactions = File.createTempFile("transactions", ".csv");
+        transactions.deleteOnExit();
+        BenchSupport.writeAccountsFile(accounts.getPath(), 20);
+        BenchSupport.writeTransactionsFile(transactions.getPath(), 500, 20, 0.1);
+
+        Bank bank = new Bank();
+        bank.loadAccounts(accounts.getPath());
+        long[] opening = new long[20];
+        for (int i = 0; i < 20; i++) {
+            opening[i] = bank.resolve(BenchSupport.accountID(i))
+                    .getCurrentBalanceCents();
+        }
+        try (AccountHistory sequential = new AccountHistory(null, 0);
+                AccountHistory parallel = new AccountHistory(null, 0)) {
+            bank.setHistory(sequential);
+            bank.processTransactionFile(
+                    transactions.getPath(), new Audit(new StringWriter()));
+
+            bank = new Bank();
+            bank.loadAccounts(accounts.getPath());
+            Transaction[] trs = bank.loadTransactions(transactions.getPath());
+            bank.setHistory(parallel);
+            new ParallelProcessor(bank, 4).process(
+                    trs, bank.getTransactionsCount(), new StringWriter());
+
+            assertEquals(sequential.getSequence(), parallel.getSequence());
+            for (int i = 0; i < 20; i++) {
+                String id = BenchSupport.accountID(i);
+                for (long n = 0; n <= 500; n++) {
+                    assertEquals(
+                            sequential.balanceAfter(id, n, opening[i]),
+                            parallel.balanceAfter(id, n, opening[i]));
+                }
+            }
+        } finally {
+            bank.setHistory(null);
+        }
+    }
+
+} // end: class AccountHistoryTest
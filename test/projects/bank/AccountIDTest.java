@@ -0,0 +1,106 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class AccountIDTest {
+
+    /*
+     * Test confirms IDs of 1 to 8 ASCII characters round-trip through a
+     * long, and that longer or non-ASCII IDs do not pack.
+     */
+    @Test
+    void packTest() {
+        assertEquals(0x777A323430383333L, AccountID.pack("wz240833"));
+        String[] ids = { "a", "id7", "wz240833", "~!@#$%^&", "A1b2" };
+        for (String id : ids) {
+            long packed = AccountID.pack(id);
+            assertNotEquals(AccountID.NOT_PACKED, packed);
+            assertEquals(id.length(), AccountID.length(packed));
+            assertEquals(id, AccountID.unpack(packed));
+            assertEquals(
+                    "[" + id + "]",
+                    AccountID.appendTo(new StringBuilder("["), packed)
+                            .append(']').toString());
+        }
+        assertEquals(AccountID.NOT_PACKED, AccountID.pack(""));
+        assertEquals(AccountID.NOT_PACKED, AccountID.pack("wz2408331"));
+        assertEquals(AccountID.NOT_PACKED, AccountID.pack("José"));
+        assertEquals(AccountID.pack("id7"), AccountID.pack("xid7,", 1, 4));
+    }
+
+    /*
+     * Test confirms accounts and the index handle packed and unpacked IDs
+     * side by side, including when the index grows.
+     */
+    @Test
+    void mixedIDsTest() {
+        Bank bank = new Bank();
+        for (int i = 0; i < 1_000; i++) {
+            String id = i % 3 == 0 ? "long-account-" + i : "id" + i;
+            assertEquals(true, bank.add(
+                    new SavingsAccount(id, "Owner Name", 1.0)));
+        }
+        assertEquals(false, bank.add(new SavingsAccount("id1", "X", 1.0)));
+        assertEquals(
+                false,
+                bank.add(new SavingsAccount("long-account-0", "X", 1.0)));
+        for (int i = 0; i < 1_000; i++) {
+            String id = i % 3 == 0 ? "long-account-" + i : "id" + i;
+            assertEquals(i, bank.find(id));
+            assertEquals(id, bank.getAccounts()[i].getID());
+        }
+        assertEquals(-1, bank.find("id0"));
+        assertEquals(-1, bank.find("long-account-1"));
+        assertEquals(
+                "savings,José,Owner Name,1.00",
+                new SavingsAccount("José", "Owner Name", 1.0).toCSV());
+    }
+
+    /*
+     * Test confirms equal owner names share one String, whether looked up
+     * by String or by characters.
+     */
+    @Test
+    void ownerNamesTest() {
+        NamePool pool = new NamePool();
+        String first = pool.intern(new String("Anna Gomez"));
+        assertSame(first, pool.intern(new String("Anna Gomez")));
+        assertSame(first, pool.intern(new StringBuilder("Anna Gomez")));
+        for (int i = 0; i < 1_000; i++) {
+            pool.intern("Owner " + i);
+        }
+        assertEquals(1_001, pool.size());
+        assertSame(first, pool.intern("Anna Gomez"));
+
+        Account checking = new CheckingAccount(
+                "id1", new String("Anna Gomez"), 1.0);
+        Account savings = new SavingsAccount(
+                "id2", new String("Anna Gomez"), 1.0);
+        assertSame(checking.getOwner(), savings.getOwner());
+
+        // a full pool hands names back without keeping them
+        NamePool small = new NamePool(2);
+        String a = small.intern(new String("a"));
+        small.intern("b");
+        String c = new String("c");
+        assertSame(c, small.intern(c));
+        assertNotSame(c, small.intern(new String("c")));
+        assertEquals(2, small.size());
+        assertSame(a, small.intern(new StringBuilder("a")));
+    }
+
+    /*
+     * Test confirms a packed ID is decoded once, so getID keeps returning
+     * the same String.
+     */
+    @Test
+    void cachedIDTest() {
+        Account account = new CheckingAccount("wz240833", "Owner Name", 1.0);
+        String id = account.getID();
+        assertEquals("wz240833", id);
+        assertSame(id, account.getID());
+    }
+
+} // end: class AccountIDTest
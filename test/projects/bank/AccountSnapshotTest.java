@@ -0,0 +1,144 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AccountSnapshotTest {
+
+    private Bank bank;
+    private File file;
+
+    /*
+     * Setting up a bank with three accounts, one of them with a non-ASCII
+     * owner and a negative balance.
+     */
+    @BeforeEach
+    void setup() throws IOException {
+        bank = new Bank();
+        bank.add(new SavingsAccount("wz240833", "Anna Gomez", 8111.00));
+        bank.add(new CheckingAccount("hr108256", "Anna Gomez", 1715.18));
+        bank.add(new SavingsAccount("rp332960", "José Peña", -12.50));
+        file = File.createTempFile("accounts", ".snapshot");
+        file.deleteOnExit();
+    }
+
+    /*
+     * Test confirms a snapshot reloads into the same accounts.
+     */
+    @Test
+    void roundTripTest() {
+        assertEquals(true, bank.writeSnapshot(file.getPath()));
+        Account[] expected = bank.getAccounts();
+
+        Bank reloaded = new Bank();
+        assertEquals(true, reloaded.loadSnapshot(file.getPath()));
+        Account[] actual = reloaded.getAccounts();
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].toCSV(), actual[i].toCSV());
+            assertEquals(expected[i].getType(), actual[i].getType());
+        }
+        assertEquals(1, reloaded.find("hr108256"));
+    }
+
+    /*
+     * Test confirms a damaged snapshot is rejected and adds nothing.
+     */
+    @Test
+    void checksumMismatchTest() throws IOException {
+        bank.writeSnapshot(file.getPath());
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(20); // inside the first account ID
+            int b = raw.read();
+            raw.seek(20);
+            raw.write(b ^ 1);
+        }
+
+        Bank reloaded = new Bank();
+        Exception e = assertThrows(
+                IOException.class,
+                () -> {
+                    AccountSnapshot.load(file.getPath(), reloaded);
+                });
+        assertEquals("corrupt snapshot: checksum mismatch.", e.getMessage());
+        assertEquals(0, reloaded.getCount());
+    }
+
+    /*
+     * Test confirms an account count larger than the file could hold is
+     * rejected before anything is allocated for it.
+     */
+    @Test
+    void countTooLargeTest() throws IOException {
+        AccountSnapshot.write(bank.getAccounts(), bank.getCount(), file.getPath());
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(6); // the account count
+            raw.writeInt(Integer.MAX_VALUE);
+        }
+        Exception e = assertThrows(
+                IOException.class,
+                () -> {
+                    AccountSnapshot.load(file.getPath(), new Bank());
+                });
+        assertEquals("corrupt snapshot: count too large.", e.getMessage());
+    }
+
+    /*
+     * Test confirms a field longer than a snapshot allows is rejected with
+     * an IllegalArgumentException, even when larger than the write buffer.
+     */
+    @Test
+    void fieldTooLongTest() {
+        Account[] accounts = {
+                new SavingsAccount("id1", "x".repeat(70_000), 1.0),
+                new SavingsAccount("x".repeat(2_000_000), "Owner Name", 1.0) };
+        for (int i = 0; i < accounts.length; i++) {
+            Account[] one = { accounts[i] };
+            Exception e = assertThrows(
+                    IllegalArgumentException.class,
+                    () -> {
+                        AccountSnapshot.write(one, 1, file.getPath());
+                    });
+            assertEquals("field too long for snapshot.", e.getMessage());
+        }
+    }
+
+    /*
+     * Test confirms a write that fails partway leaves the previous snapshot
+     * whole and no temporary file behind.
+     */
+    @Test
+    void failedWriteKeepsSnapshotTest() {
+        assertEquals(true, bank.writeSnapshot(file.getPath()));
+        Account[] accounts = {
+                new SavingsAccount("id1", "Owner Name", 1.0),
+                new SavingsAccount("id2", "x".repeat(70_000), 1.0) };
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> {
+                    AccountSnapshot.write(accounts, 2, file.getPath());
+                });
+        assertEquals(false, new File(file.getPath() + ".tmp").exists());
+
+        Bank reloaded = new Bank();
+        assertEquals(true, reloaded.loadSnapshot(file.getPath()));
+        assertEquals(3, reloaded.getCount());
+        assertEquals(-1250, reloaded.resolve("rp332960").getCurrentBalanceCents());
+    }
+
+    /*
+     * Test confirms a file that is not a snapshot is rejected.
+     */
+    @Test
+    void notASnapshotTest() {
+        assertEquals(false, bank.loadSnapshot("data/testAccounts.csv"));
+        assertEquals(false, bank.loadSnapshot("not/a/real.file"));
+    }
+
+} // end: class AccountSnapshotTest
@@ -0,0 +1,103 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AccountStoreTest {
+
+        private Bank bank;
+        private Transaction[] trs;
+
+        /*
+         * Setting up the mixed bank and transactions of TestFixtures.
+         */
+        @BeforeEach
+        void setup() {
+                bank = TestFixtures.mixedBank(20);
+                trs = TestFixtures.transactions(500);
+        }
+
+        /*
+         * Test confirms the store holds the bank's accounts, with equal owner
+         * names shared.
+         */
+        @Test
+        void fromBankTest() {
+                AccountStore store = AccountStore.from(bank);
+                assertEquals(20, store.getCount());
+                int row = store.find("id3");
+                assertEquals(3, row);
+                assertEquals(AccountType.SAVINGS, store.getType(row));
+                assertEquals("Owner 3", store.getOwner(row));
+                assertEquals(5025, store.getBalanceCents(row));
+                assertEquals(-1, store.find("id20"));
+                assertSame(store.getOwner(0), store.getOwner(2));
+                assertEquals(false, store.add(AccountType.SAVINGS, "id3", "Other", 0));
+        }
+
+        /*
+         * Test confirms the store processes transactions exactly as the bank
+         * does, audit lines included.
+         */
+        @Test
+        void processMatchesBankTest() throws IOException {
+                AccountStore store = AccountStore.from(bank);
+                StringWriter bankLines = new StringWriter();
+                int expected = new ParallelProcessor(bank, 1).process(
+                                trs, trs.length, bankLines);
+
+                StringWriter storeLines = new StringWriter();
+                Audit audit = new Audit(storeLines);
+                assertEquals(expected, store.processTransactions(trs, trs.length, audit));
+                audit.close();
+                assertEquals(trs.length, store.getStats().getTransactions());
+
+                String[] bankSplit = bankLines.toString().split("\\R");
+                String[] storeSplit = storeLines.toString().split("\\R");
+                assertEquals(bankSplit.length, storeSplit.length);
+                for (int i = 0; i < bankSplit.length; i++) {
+                        // avoiding timestamps
+                        assertEquals(
+                                        withoutTimestamp(bankSplit[i]),
+                                        withoutTimestamp(storeSplit[i]));
+                }
+                int row = store.find("id0");
+                assertEquals(
+                                bank.resolve("id0").getNewBalanceCents(),
+                                store.getNewBalanceCents(row));
+        }
+
+        /*
+         * Test confirms the store reads and writes the accounts CSV format of
+         * the bank.
+         */
+        @Test
+        void loadAndWriteAccountsTest() throws IOException {
+                File expected = File.createTempFile("bank-accounts", ".csv");
+                File actual = File.createTempFile("store-accounts", ".csv");
+                expected.deleteOnExit();
+                actual.deleteOnExit();
+                bank.writeAccounts(expected.getPath());
+
+                AccountStore store = new AccountStore(0);
+                assertEquals(true, store.loadAccounts(expected.getPath()));
+                assertEquals(20, store.getCount());
+                assertEquals(true, store.writeAccounts(actual.getPath()));
+                assertEquals(
+                                Files.readString(expected.toPath()),
+                                Files.readString(actual.toPath()));
+                assertEquals(false, store.loadAccounts("not/a/real.file"));
+        }
+
+        private static String withoutTimestamp(String line) {
+                return line.substring(line.indexOf(' ') + 1);
+        }
+
+} // end: class AccountStoreTest
@@ -0,0 +1,151 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+public class AsyncAuditTest {
+
+    /*
+     * Test confirms the constructor rejects invalid arguments.
+     */
+    @Test
+    void constructorDataValidationTest() {
+        Exception e = assertThrows(
+                IllegalArgumentException.class,
+                () -> {
+                    new AsyncAudit(new StringWriter(), 10, null, 10, 10);
+                });
+        assertEquals("policy cannot be null.", e.getMessage());
+
+        e = assertThrows(
+                IllegalArgumentException.class,
+                () -> {
+                    new AsyncAudit(new StringWriter(), 0,
+                            AsyncAudit.OverflowPolicy.BLOCK, 10, 10);
+                });
+        assertEquals("sizes and intervals must be positive.", e.getMessage());
+    }
+
+    /*
+     * Test confirms every line reaches the output, in order, once the
+     * audit is closed, even when the buffer is much smaller than the number
+     * of lines.
+     */
+    @Test
+    void writesAllLinesInOrderTest() {
+        StringWriter out = new StringWriter();
+        AsyncAudit audit = new AsyncAudit(
+                out, 8, AsyncAudit.OverflowPolicy.BLOCK, 100, 1000);
+        for (int i = 1; i <= 500; i++) {
+            audit.recordNoSuchAccount(new Deposit("id" + i, i));
+        }
+        audit.close();
+
+        String[] lines = out.toString().split("\\R");
+        assertEquals(500, lines.length);
+        for (int i = 1; i <= 500; i++) {
+            assertTrue(lines[i - 1].endsWith(
+                    "[WARN]: no such account: deposit,id" + i + "," + i + ".00"));
+        }
+        assertEquals(500, audit.getWritten());
+        assertEquals(0, audit.getDropped());
+        assertTrue(audit.getFlushes() >= 5);
+    }
+
+    /*
+     * Test confirms lines are dropped and counted when the buffer is full
+     * and the writer is stuck.
+     */
+    @Test
+    void dropsWhenFullTest() {
+        CountDownLatch release = new CountDownLatch(1);
+        StringWriter out = new StringWriter();
+        Writer stuck = new Writer() {
+            @Override
+            public void write(char[] chars, int offset, int length) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                out.write(chars, offset, length);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        // flushing on every line makes the writer wait on the first one
+        AsyncAudit audit = new AsyncAudit(
+                stuck, 4, AsyncAudit.OverflowPolicy.DROP, 1, 1000);
+        for (int i = 1; i <= 100; i++) {
+            audit.recordNoSuchAccount(new Deposit("id", i));
+        }
+        release.countDown();
+        audit.close();
+
+        assertTrue(audit.getDropped() > 0);
+        assertEquals(100, audit.getDropped() + audit.getWritten());
+        assertEquals(audit.getWritten(), out.toString().split("\\R").length);
+    }
+
+    /*
+     * Test confirms lines are counted as dropped once the output stream
+     * fails, including those it had buffered, and that close still returns.
+     */
+    @Test
+    void failingStreamTest() {
+        Writer failing = new Writer() {
+            @Override
+            public void write(char[] chars, int offset, int length)
+                    throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        AsyncAudit audit = new AsyncAudit(
+                failing, 1000, AsyncAudit.OverflowPolicy.BLOCK, 50, 1000);
+        for (int i = 1; i <= 120; i++) {
+            audit.recordNoSuchAccount(new Deposit("id", i));
+        }
+        audit.close();
+
+        assertEquals(120, audit.getDropped());
+        assertEquals(0, audit.getWritten());
+    }
+
+    /*
+     * Test confirms lines pending in a quiet audit are flushed after the
+     * flush interval, without waiting for close.
+     */
+    @Test
+    void flushesOnIntervalTest() throws InterruptedException, IOException {
+        StringWriter out = new StringWriter();
+        AsyncAudit audit = new AsyncAudit(
+                out, 16, AsyncAudit.OverflowPolicy.BLOCK, 1000, 20);
+        audit.recordNoSuchAccount(new Deposit("id", 1));
+        for (int i = 0; i < 100 && out.toString().isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(out.toString().contains("no such account: deposit,id,1.00"));
+        audit.close();
+    }
+
+} // end: class AsyncAuditTest
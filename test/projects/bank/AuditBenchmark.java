@@ -0,0 +1,72 @@
+package projects.bank;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Compares the synchronous Audit with AsyncAudit, blocking and dropping.
+ *
+ * For each, reports how long the recording thread spent in the record
+ * methods and how long it took until every line was on disk (close).
+ * Argument: number of audit lines (default 2 million).
+ */
+public class AuditBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int lines = 2_000_000;
+        if (args.length > 0) {
+            lines = Integer.parseInt(args[0]);
+        }
+        Transaction[] trs = new Transaction[1024];
+        Account account = new CheckingAccount("wz240833", "Anna Gomez", 8111);
+        for (int i = 0; i < trs.length; i++) {
+            trs[i] = new Deposit("wz240833", 1 + i);
+        }
+
+        System.out.println("audit,record ms,total ms,lines/sec,dropped,blocked");
+        for (int round = 0; round < 2; round++) { // first round warms up
+            File file = File.createTempFile("bench-audit", ".log");
+            file.deleteOnExit();
+            run("sync", new Audit(file.getPath()), trs, account, lines);
+            run("async-block", new AsyncAudit(file.getPath()), trs, account,
+                    lines);
+            run("async-drop", new AsyncAudit(
+                    Audit.open(file.getPath()),
+                    1 << 16,
+                    AsyncAudit.OverflowPolicy.DROP,
+                    1 << 14,
+                    1000), trs, account, lines);
+        }
+    }
+
+    static void run(
+            String name,
+            Audit audit,
+            Transaction[] trs,
+            Account account,
+            int lines) {
+        account.credit(1);
+        long start = System.nanoTime();
+        for (int i = 0; i < lines; i++) {
+            audit.recordExecute(trs[i & (trs.length - 1)], account);
+        }
+        double recordMillis = BenchSupport.millisSince(start);
+        audit.close();
+        double totalMillis = BenchSupport.millisSince(start);
+
+        long dropped = 0;
+        long blocked = 0;
+        if (audit instanceof AsyncAudit) {
+            dropped = ((AsyncAudit) audit).getDropped();
+            blocked = ((AsyncAudit) audit).getBlocked();
+        }
+        System.out.println(String.format(
+                "%s,%.0f,%.0f,%.0f,%d,%d",
+                name,
+                recordMillis,
+                totalMillis,
+                lines / totalMillis * 1000,
+                dropped,
+                blocked));
+    }
+}
@@ -0,0 +1,119 @@
+package projects.bank;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Compares the text Audit with BinaryAudit: time to write the same
+ * records, file size, time to aggregate them back (total executed amount
+ * and number of refused withdrawals), and time to convert binary to text.
+ *
+ * Argument: number of records (default 5 million).
+ */
+public class AuditRecordBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int records = BenchSupport.sizes(args, 5_000_000)[0];
+        Transaction[] trs = new Transaction[1024];
+        for (int i = 0; i < trs.length; i++) {
+            String id = BenchSupport.accountID(i);
+            if (i % 2 == 0) {
+                trs[i] = new Deposit(id, 1 + i);
+            } else {
+                trs[i] = new Withdrawal(id, 1 + i);
+            }
+        }
+        File text = File.createTempFile("bench-audit", ".log");
+        File binary = File.createTempFile("bench-audit", ".bin");
+        File converted = File.createTempFile("bench-audit-converted", ".log");
+        text.deleteOnExit();
+        binary.deleteOnExit();
+        converted.deleteOnExit();
+
+        System.out.println("step,ms,records/sec,MB");
+        for (int round = 0; round < 2; round++) { // first round warms up
+            long start = System.nanoTime();
+            write(new Audit(text.getPath()), trs, records);
+            report("write text", start, records, text);
+
+            start = System.nanoTime();
+            write(new BinaryAudit(binary.getPath()), trs, records);
+            report("write binary", start, records, binary);
+
+            start = System.nanoTime();
+            long textTotal = aggregateText(text.getPath());
+            report("aggregate text", start, records, text);
+
+            start = System.nanoTime();
+            long binaryTotal = aggregateBinary(binary.getPath());
+            report("aggregate binary", start, records, binary);
+            if (textTotal != binaryTotal) {
+                throw new IllegalStateException("aggregates differ.");
+            }
+
+            start = System.nanoTime();
+            AuditRecordReader.convert(binary.getPath(), converted.getPath());
+            report("convert to text", start, records, converted);
+        }
+    }
+
+    static void write(Audit audit, Transaction[] trs, int records) {
+        for (int i = 0; i < records; i++) {
+            Transaction tx = trs[i & (trs.length - 1)];
+            if (i % 10 == 9) {
+                audit.recordNonSufficientFunds(tx, 100);
+            } else {
+                audit.recordExecute(tx, 100_000 + i);
+            }
+        }
+        audit.close();
+    }
+
+    /**
+     * @return executed cents plus refused withdrawals, parsed from text.
+     */
+    static long aggregateText(String fileName) throws IOException {
+        long total = 0;
+        try (BufferedReader in = new BufferedReader(
+                new FileReader(fileName), 1 << 16)) {
+            String line = in.readLine();
+            while (line != null) {
+                if (line.contains("[INFO]: ")) {
+                    String[] token = line.split(",");
+                    total += Money.parseCents(token[2]);
+                } else if (line.contains("nonsufficient funds")) {
+                    total++;
+                }
+                line = in.readLine();
+            }
+        }
+        return total;
+    }
+
+    static long aggregateBinary(String fileName) throws IOException {
+        long total = 0;
+        try (AuditRecordReader in = new AuditRecordReader(fileName)) {
+            while (in.next()) {
+                if (in.getOutcome() == TransactionResult.EXECUTED) {
+                    total += in.getAmountCents();
+                } else if (in.getOutcome()
+                        == TransactionResult.NONSUFFICIENT_FUNDS) {
+                    total++;
+                }
+            }
+        }
+        return total;
+    }
+
+    static void report(String step, long start, int records, File file) {
+        double millis = BenchSupport.millisSince(start);
+        System.out.println(String.format(
+                "%s,%.0f,%.0f,%.1f",
+                step,
+                millis,
+                records / millis * 1000,
+                file.length() / 1e6));
+    }
+}
@@ -135,4 +135,25 @@ public class AuditTest {
         }
     }
 
+    /**
+     * Test verifies that lines are only timed while the audit is timed,
+     * so unsampled transactions do not read the clock.
+     */
+    @Test
+    void timedRecordsTest() {
+        Transaction t = new Deposit("id1", 1.0);
+        audit.recordNoSuchAccount(t);
+        assertEquals(0, audit.getRecordNanos());
+        audit.setTimed(true);
+        for (int i = 0; i < 100; i++) {
+            audit.recordNoSuchAccount(t);
+        }
+        audit.setTimed(false);
+        long timed = audit.getRecordNanos();
+        assertEquals(true, timed > 0);
+        audit.recordNoSuchAccount(t);
+        assertEquals(timed, audit.getRecordNanos());
+        audit.close();
+    }
+
 }// end of AuditTest
\ No newline at end of file
@@ -0,0 +1,68 @@
+package projects.bank;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Measures how long it takes to load accounts and process transactions as
+ * the number of accounts grows.
+ *
+ * Run from the repository root, since Bank writes its audit log under
+ * data/. Sizes can be given as arguments; the default is 10^4, 10^5 and
+ * 10^6 accounts.
+ */
+public class BankBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = BenchSupport.sizes(args, 10_000, 100_000, 1_000_000);
+        System.out.println(
+                "accounts,load ms,process ms,transactions,find ns/op");
+        for (int i = 0; i < sizes.length; i++) {
+            run(sizes[i]);
+        }
+    }
+
+    static void run(int accounts) throws IOException {
+        File accountsFile = File.createTempFile("bench-accounts", ".csv");
+        File transactionsFile = File.createTempFile("bench-trs", ".csv");
+        accountsFile.deleteOnExit();
+        transactionsFile.deleteOnExit();
+        BenchSupport.writeAccountsFile(accountsFile.getPath(), accounts);
+        // Bank buffers up to 1000 loaded transactions
+        int transactions = 1000;
+        BenchSupport.writeTransactionsFile(
+                transactionsFile.getPath(), transactions, accounts, 0.1);
+
+        Bank bank = new Bank();
+        long start = System.nanoTime();
+        bank.loadAccounts(accountsFile.getPath());
+        double loadMillis = BenchSupport.millisSince(start);
+
+        Transaction[] trs = bank.loadTransactions(transactionsFile.getPath());
+        start = System.nanoTime();
+        bank.processTransactions(trs);
+        double processMillis = BenchSupport.millisSince(start);
+
+        // look every account up once, in a scattered order
+        int found = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < accounts; i++) {
+            int acct = (int) ((i * 2654435761L) % accounts);
+            if (bank.find(BenchSupport.accountID(acct)) != -1) {
+                found++;
+            }
+        }
+        double findNanos = (System.nanoTime() - start) / (double) accounts;
+        if (found != accounts) {
+            throw new IllegalStateException("lookup missed an account.");
+        }
+
+        System.out.println(String.format(
+                "%d,%.1f,%.1f,%d,%.0f",
+                accounts,
+                loadMillis,
+                processMillis,
+                transactions,
+                findNanos));
+    }
+}
@@ -0,0 +1,127 @@
+package projects.bank;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Load generator for BankServer on loopback. Each client runs on a virtual
+ * thread over its own connection, sending one request and waiting for the
+ * reply before the next, and every round trip is timed. Reports requests
+ * per second and the p50, p99 and p99.9 latencies.
+ *
+ * Arguments: number of clients (default 64), requests per client (default
+ * 20 thousand) and number of accounts (default 100 thousand). The server
+ * runs in this process unless a fourth argument gives the port of one
+ * already running.
+ */
+public class BankServerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = BenchSupport.sizes(args, 64, 20_000, 100_000);
+        int clients = sizes[0];
+        int requests = sizes[1];
+        int accounts = sizes[2];
+
+        BankServer server = null;
+        int port;
+        if (sizes.length > 3) {
+            port = sizes[3];
+        } else {
+            Bank source = new Bank();
+            for (int i = 0; i < accounts; i++) {
+                source.add(new CheckingAccount(
+                        BenchSupport.accountID(i), "Owner Name", 1000.0));
+            }
+            server = BankServer.start(new ConcurrentBank(source), 0);
+            port = server.getPort();
+        }
+
+        run(port, clients, Math.min(requests, 2_000), accounts); // warm up
+        System.out.println("clients,requests/sec,p50 us,p99 us,p99.9 us");
+        long[] latencies = run(port, clients, requests, accounts);
+        double seconds = latencies[latencies.length - 1] / 1e9;
+        long[] sorted = Arrays.copyOf(latencies, latencies.length - 1);
+        Arrays.sort(sorted);
+        System.out.println(String.format(
+                "%d,%.0f,%.1f,%.1f,%.1f",
+                clients,
+                sorted.length / seconds,
+                percentile(sorted, 0.50) / 1e3,
+                percentile(sorted, 0.99) / 1e3,
+                percentile(sorted, 0.999) / 1e3));
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /**
+     * @return the latency of every request in nanoseconds, followed by the
+     *         wall time of the whole run.
+     */
+    static long[] run(int port, int clients, int requests, int accounts)
+            throws Exception {
+        long[] latencies = new long[clients * requests + 1];
+        long start = System.nanoTime();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?>[] done = new Future<?>[clients];
+            for (int c = 0; c < clients; c++) {
+                final int client = c;
+                done[c] = pool.submit(() -> {
+                    client(port, client, requests, accounts, latencies);
+                    return null;
+                });
+            }
+            for (int c = 0; c < clients; c++) {
+                done[c].get();
+            }
+        }
+        latencies[latencies.length - 1] = System.nanoTime() - start;
+        return latencies;
+    }
+
+    static void client(
+            int port,
+            int client,
+            int requests,
+            int accounts,
+            long[] latencies) throws IOException {
+        Random random = new Random(client);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                BufferedReader in = new BufferedReader(new InputStreamReader(
+                        socket.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new OutputStreamWriter(
+                        socket.getOutputStream(), StandardCharsets.UTF_8)) {
+            socket.setTcpNoDelay(true);
+            StringBuilder line = new StringBuilder(48);
+            for (int i = 0; i < requests; i++) {
+                line.setLength(0);
+                line.append(random.nextBoolean() ? "deposit," : "withdrawal,");
+                line.append(BenchSupport.accountID(random.nextInt(accounts)));
+                line.append(',').append(1 + random.nextInt(500)).append(".00\n");
+                long start = System.nanoTime();
+                out.append(line);
+                out.flush();
+                if (in.readLine() == null) {
+                    throw new IOException("server closed the connection.");
+                }
+                latencies[client * requests + i] = System.nanoTime() - start;
+            }
+        }
+    }
+
+    static long percentile(long[] sorted, double fraction) {
+        int i = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, i)];
+    }
+}
@@ -0,0 +1,126 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BankServerTest {
+
+    private BankServer server;
+
+    /*
+     * Setting up a server on a free port for a bank with one account of
+     * 100.00.
+     */
+    @BeforeEach
+    void setup() throws IOException {
+        Bank source = new Bank();
+        source.add(new CheckingAccount("id0", "Owner Name", 100.0));
+        server = BankServer.start(new ConcurrentBank(source), 0);
+    }
+
+    @AfterEach
+    void teardown() {
+        server.close();
+    }
+
+    /*
+     * Test confirms each request line gets its reply, including pipelined
+     * requests and malformed lines.
+     */
+    @Test
+    void requestReplyTest() throws IOException {
+        try (Socket socket = new Socket(
+                InetAddress.getLoopbackAddress(), server.getPort());
+                BufferedReader in = new BufferedReader(new InputStreamReader(
+                        socket.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new OutputStreamWriter(
+                        socket.getOutputStream(), StandardCharsets.UTF_8)) {
+            out.write("deposit,id0,2.51\n");
+            out.write("withdrawal,id0,500.00\n");
+            out.write("withdrawal,id0,2.51\n");
+            out.write("deposit,id9,1.00\n");
+            out.write("deposit,id0,-1.00\n");
+            out.flush();
+            assertEquals("executed,102.51", in.readLine());
+            assertEquals("nonsufficient funds,102.51", in.readLine());
+            assertEquals("executed,100.00", in.readLine());
+            assertEquals("no such account", in.readLine());
+            assertEquals(
+                    "error,transaction amount must be positive.",
+                    in.readLine());
+        }
+    }
+
+    /*
+     * Test confirms several clients are served at once.
+     */
+    @Test
+    void concurrentClientsTest() throws Exception {
+        Socket[] sockets = new Socket[3];
+        for (int i = 0; i < sockets.length; i++) {
+            sockets[i] = new Socket(
+                    InetAddress.getLoopbackAddress(), server.getPort());
+        }
+        // reply to the last client first, while the others stay open
+        for (int i = sockets.length - 1; i >= 0; i--) {
+            Writer out = new OutputStreamWriter(
+                    sockets[i].getOutputStream(), StandardCharsets.UTF_8);
+            out.write("deposit,id0,1.00\n");
+            out.flush();
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                    sockets[i].getInputStream(), StandardCharsets.UTF_8));
+            assertTrue(in.readLine().startsWith("executed,"));
+        }
+        for (int i = 0; i < sockets.length; i++) {
+            sockets[i].close();
+        }
+    }
+
+    /*
+     * Test confirms a request line longer than MAX_LINE closes that
+     * connection only, and other clients are still served.
+     */
+    @Test
+    void longLineTest() throws IOException {
+        try (Socket socket = new Socket(
+                InetAddress.getLoopbackAddress(), server.getPort());
+                BufferedReader in = new BufferedReader(new InputStreamReader(
+                        socket.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new OutputStreamWriter(
+                        socket.getOutputStream(), StandardCharsets.UTF_8)) {
+            out.write("deposit,id0," + "1".repeat(BankServer.MAX_LINE));
+            out.flush();
+            String reply;
+            try {
+                reply = in.readLine();
+            } catch (SocketException e) {
+                reply = null; // reset by the server, also a close
+            }
+            assertEquals(null, reply);
+        }
+        try (Socket socket = new Socket(
+                InetAddress.getLoopbackAddress(), server.getPort());
+                BufferedReader in = new BufferedReader(new InputStreamReader(
+                        socket.getInputStream(), StandardCharsets.UTF_8));
+                Writer out = new OutputStreamWriter(
+                        socket.getOutputStream(), StandardCharsets.UTF_8)) {
+            out.write("deposit,id0,1.00\r\n");
+            out.flush();
+            assertEquals("executed,101.00", in.readLine());
+        }
+    }
+
+} // end: class BankServerTest
@@ -2,6 +2,10 @@ package projects.bank;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -94,6 +98,31 @@ public class BankTest {
                                 "bank should hold 101 accounts");
         }
 
+        /*
+         * Test confirms find() locates every account after the bank grew
+         * past its starting capacity.
+         */
+        @Test
+        void findAfterGrowthTest() {
+                for (int idx = 0; idx < 1000; idx++) {
+                        Integer id = idx;
+                        bank.add(
+                                        new CheckingAccount(
+                                                        id.toString(),
+                                                        "Owner Name",
+                                                        1.0));
+                }
+                assertEquals(1000, bank.getCount());
+                for (int idx = 0; idx < 1000; idx++) {
+                        Integer id = idx;
+                        assertEquals(
+                                        idx,
+                                        bank.find(id.toString()),
+                                        "acct should be at its insertion index");
+                }
+                assertEquals(-1, bank.find("1000"));
+        }
+
         /*
          * Test confirms find() throws an invalid argument exception on null account Id
          * argumment.
@@ -343,6 +372,123 @@ public class BankTest {
                 assertEquals(1, bank.processTransactions(trs));
         }
 
+        /*
+         * Test confirms resolve() returns the account itself, or null when
+         * the bank holds no account with the given ID.
+         */
+        @Test
+        void resolveTest() {
+                bank.add(svacct);
+                assertSame(svacct, bank.resolve("id0"));
+                assertNull(bank.resolve("id1"));
+        }
+
+        /*
+         * Test confirms per-stage counters match the transactions file:
+         * 3 transactions, all looked up, 1 with a known account.
+         */
+        @Test
+        void processTransactionsStatsTest() {
+                bank.add(svacct);
+                trs = bank.loadTransactions("data/testtransactions.csv");
+                bank.processTransactions(trs);
+                ProcessingStats stats = bank.getStats();
+                assertEquals(3, stats.getTransactions());
+                assertEquals(1, stats.getProcessed());
+                assertEquals(3, stats.getLookups());
+                assertEquals(1, stats.getValidations());
+                assertEquals(1, stats.getExecutions());
+                assertEquals(3, stats.getAuditRecords());
+        }
+
+        /*
+         * Test confirms stage times are sampled: every 64th transaction is
+         * timed with a weight of 64 and the others only counted, unless the
+         * interval is set to 1.
+         */
+        @Test
+        void statsSamplingTest() {
+                ProcessingStats stats = new ProcessingStats();
+                assertEquals(64, stats.sample());
+                for (int i = 1; i < 64; i++) {
+                        assertEquals(0, stats.sample());
+                }
+                assertEquals(64, stats.sample());
+                try {
+                        ProcessingStats.setSampleInterval(1);
+                        stats = new ProcessingStats();
+                        assertEquals(1, stats.sample());
+                        assertEquals(1, stats.sample());
+                } finally {
+                        ProcessingStats.setSampleInterval(64);
+                }
+                assertThrows(
+                                IllegalArgumentException.class,
+                                () -> ProcessingStats.setSampleInterval(0));
+        }
+
+        /*
+         * Test confirms streaming a transactions file gives the same result
+         * as loading it first: 1 of the 3 transactions is processed.
+         */
+        @Test
+        void processTransactionFileTest() {
+                bank.add(svacct);
+                assertEquals(
+                                1,
+                                bank.processTransactionFile(
+                                                "data/testtransactions.csv",
+                                                "data/audittest.log"));
+                assertEquals(3, bank.getStats().getTransactions());
+        }
+
+        /*
+         * Test confirms loadTransactions keeps every line of a file larger
+         * than the starting buffer of 1000 transactions.
+         */
+        @Test
+        void loadTransactionsBeyondBufferTest() throws IOException {
+                StringBuilder lines = new StringBuilder();
+                for (int i = 0; i < 1500; i++) {
+                        lines.append("deposit,id").append(i).append(",1.00\n");
+                }
+                File file = File.createTempFile("transactions", ".csv");
+                file.deleteOnExit();
+                Files.writeString(file.toPath(), lines);
+
+                trs = bank.loadTransactions(file.getPath());
+                assertEquals(1500, bank.getTransactionsCount());
+                assertEquals("id0", trs[0].getAccountNumber());
+                assertEquals("id1000", trs[1000].getAccountNumber());
+                assertEquals("id1499", trs[1499].getAccountNumber());
+        }
+
+        /*
+         * Test confirms loadTransactions skips empty lines, as
+         * TransactionParser does, instead of failing on them.
+         */
+        @Test
+        void loadTransactionsSkipsEmptyLinesTest() throws IOException {
+                File file = File.createTempFile("transactions", ".csv");
+                file.deleteOnExit();
+                Files.writeString(
+                                file.toPath(),
+                                "deposit,id0,1.00\n\nwithdrawal,id0,0.25\n\n");
+
+                trs = bank.loadTransactions(file.getPath());
+                assertEquals(2, bank.getTransactionsCount());
+                assertEquals(TransactionType.WITHDRAWAL, trs[1].getType());
+
+                TransactionRecord record = new TransactionRecord();
+                try (TransactionParser parser = new TransactionParser(
+                                file.getPath())) {
+                        assertTrue(parser.next(record));
+                        assertTrue(parser.next(record));
+                        assertEquals(false, parser.next(record));
+                        assertEquals(2, parser.getLines());
+                }
+        }
+
         /*
          * Test to confirm that failed ProcessTransactions should result in
          * no transaction being processed.
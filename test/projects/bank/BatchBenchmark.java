@@ -0,0 +1,60 @@
+package projects.bank;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Compares applying transactions one at a time (Bank.apply) with
+ * BatchProcessor, both auditing to a discarding writer, and prints the
+ * per-stage counters of the last round of each.
+ *
+ * Arguments: number of accounts (default 100 thousand) and number of
+ * transactions (default 5 million).
+ */
+public class BatchBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = BenchSupport.sizes(args, 100_000, 5_000_000);
+        File accountsFile = File.createTempFile("bench-accounts", ".csv");
+        File transactionsFile = File.createTempFile("bench-trs", ".csv");
+        accountsFile.deleteOnExit();
+        transactionsFile.deleteOnExit();
+        BenchSupport.writeAccountsFile(accountsFile.getPath(), sizes[0]);
+        BenchSupport.writeTransactionsFile(
+                transactionsFile.getPath(), sizes[1], sizes[0], 0.1);
+
+        Bank bank = new Bank();
+        bank.loadAccounts(accountsFile.getPath());
+        Transaction[] trs = bank.loadTransactions(transactionsFile.getPath());
+        int count = bank.getTransactionsCount();
+
+        ProcessingStats single = null;
+        BatchProcessor batch = new BatchProcessor(bank);
+        System.out.println("mode,ms,transactions/sec");
+        for (int round = 0; round < 5; round++) { // first rounds warm up
+            Audit audit = new Audit(Writer.nullWriter());
+            single = new ProcessingStats();
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                bank.apply(trs[i], audit, single);
+            }
+            report("single", start, count);
+
+            start = System.nanoTime();
+            batch.process(trs, count, audit);
+            report("batch", start, count);
+            audit.close();
+        }
+        System.out.println("single:");
+        System.out.println(single);
+        System.out.println("batch:");
+        System.out.println(batch.getStats());
+    }
+
+    static void report(String mode, long start, int count) {
+        double millis = BenchSupport.millisSince(start);
+        System.out.println(String.format(
+                "%s,%.0f,%.0f", mode, millis, count / millis * 1000));
+    }
+}
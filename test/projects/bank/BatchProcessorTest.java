@@ -0,0 +1,99 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BatchProcessorTest {
+
+    private Bank bank;
+    private Transaction[] trs;
+
+    /*
+     * Setting up a bank with 20 accounts and 10000 transactions, more than
+     * two batches, some of them overdrawing, some withdrawing the whole
+     * balance and some targeting absent accounts.
+     */
+    @BeforeEach
+    void setup() {
+        bank = TestFixtures.bank(20);
+        bank.add(new SavingsAccount("id20", "Owner Name", -5.0));
+        // ids 21 and 22 are absent
+        trs = TestFixtures.transactions(10000);
+    }
+
+    /*
+     * Test confirms the batch mode writes the same audit lines, processes
+     * the same transactions and leaves the same new balances as applying
+     * them one at a time.
+     */
+    @Test
+    void batchMatchesSequentialTest() throws IOException {
+        StringWriter sequential = new StringWriter();
+        int expected = new ParallelProcessor(bank, 1).process(
+                trs, trs.length, sequential);
+        long[] expectedBalances = new long[21];
+        for (int i = 0; i < expectedBalances.length; i++) {
+            expectedBalances[i] = bank.resolve("id" + i).getNewBalanceCents();
+        }
+
+        StringWriter batched = new StringWriter();
+        Audit audit = new Audit(batched);
+        BatchProcessor processor = new BatchProcessor(bank);
+        assertEquals(expected, processor.process(trs, trs.length, audit));
+        audit.close();
+        assertEquals(trs.length, processor.getStats().getTransactions());
+        assertEquals(expected, processor.getStats().getProcessed());
+
+        String[] sequentialLines = sequential.toString().split("\\R");
+        String[] batchedLines = batched.toString().split("\\R");
+        assertEquals(sequentialLines.length, batchedLines.length);
+        for (int i = 0; i < sequentialLines.length; i++) {
+            // avoiding timestamps
+            assertEquals(
+                    withoutTimestamp(sequentialLines[i]),
+                    withoutTimestamp(batchedLines[i]));
+        }
+        for (int i = 0; i < expectedBalances.length; i++) {
+            assertEquals(
+                    expectedBalances[i],
+                    bank.resolve("id" + i).getNewBalanceCents());
+        }
+    }
+
+    /*
+     * Test confirms withdrawing exactly the balance is rejected, as in
+     * Withdrawal.validate.
+     */
+    @Test
+    void withdrawWholeBalanceTest() {
+        Transaction[] whole = { new Withdrawal("id0", 100.0) };
+        StringWriter out = new StringWriter();
+        Audit audit = new Audit(out);
+        assertEquals(0, new BatchProcessor(bank).process(whole, 1, audit));
+        audit.close();
+        assertTrue(out.toString().contains("nonsufficient funds"));
+    }
+
+    /*
+     * Test confirms the constructor rejects a null bank.
+     */
+    @Test
+    void constructorDataValidationTest() {
+        Exception e = assertThrows(
+                IllegalArgumentException.class,
+                () -> {
+                    new BatchProcessor(null);
+                });
+        assertEquals("bank must not be null.", e.getMessage());
+    }
+
+    private static String withoutTimestamp(String line) {
+        return line.substring(line.indexOf(' ') + 1);
+    }
+
+} // end: class BatchProcessorTest
@@ -0,0 +1,90 @@
+package projects.bank;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compare two results files written by BenchSuite, eg from the previous
+ * and the current version, and report the benchmarks that got slower.
+ *
+ * A benchmark regressed if its mean time per operation grew by more than
+ * the threshold and by more than twice the combined standard deviation of
+ * the two runs, so noise alone does not flag it. The exit status is 1 if
+ * any benchmark regressed, for use in scripts.
+ *
+ * Arguments: baseline results, new results, threshold in percent (default
+ * 10).
+ */
+public class BenchCompare {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println(
+                    "usage: BenchCompare baseline.csv results.csv [percent]");
+            System.exit(2);
+        }
+        double threshold = 0.10;
+        if (args.length > 2) {
+            threshold = Double.parseDouble(args[2]) / 100;
+        }
+        Map<String, double[]> baseline = read(args[0]);
+        Map<String, double[]> results = read(args[1]);
+        int regressions = 0;
+        System.out.println("benchmark,size,baseline ns/op,ns/op,change,status");
+        for (Map.Entry<String, double[]> entry : results.entrySet()) {
+            double[] before = baseline.get(entry.getKey());
+            double[] after = entry.getValue();
+            if (before == null) {
+                System.out.println(String.format(
+                        "%s,,%.2f,,new", entry.getKey(), after[0]));
+                continue;
+            }
+            double change = after[0] / before[0] - 1;
+            double noise = 2 * Math.sqrt(
+                    before[1] * before[1] + after[1] * after[1]);
+            String status = "ok";
+            if (change > threshold && after[0] - before[0] > noise) {
+                status = "REGRESSION";
+                regressions++;
+            } else if (-change > threshold && before[0] - after[0] > noise) {
+                status = "faster";
+            }
+            System.out.println(String.format(
+                    "%s,%.2f,%.2f,%+.1f%%,%s",
+                    entry.getKey(),
+                    before[0],
+                    after[0],
+                    change * 100,
+                    status));
+        }
+        System.out.println(regressions + " regression(s)");
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return mean and standard deviation per "benchmark,size", in file
+     *         order.
+     */
+    static Map<String, double[]> read(String fileName) throws IOException {
+        List<String> lines = Files.readAllLines(Path.of(fileName));
+        Map<String, double[]> results = new LinkedHashMap<>();
+        for (int i = 1; i < lines.size(); i++) { // skipping the header
+            String[] token = lines.get(i).split(",");
+            if (token.length < 5) {
+                continue;
+            }
+            results.put(
+                    token[0] + "," + token[1],
+                    new double[] {
+                            Double.parseDouble(token[3]),
+                            Double.parseDouble(token[4]) });
+        }
+        return results;
+    }
+}
@@ -0,0 +1,203 @@
+package projects.bank;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark suite for the bank's basic operations, writing its results to
+ * a CSV file so runs of different versions can be compared with
+ * BenchCompare.
+ *
+ * Each benchmark runs on generated data at every size: WARMUP untimed
+ * iterations to let the JIT compile the code, then ITERATIONS timed ones.
+ * The result line gives the mean time per operation (per account, line or
+ * transaction), its standard deviation and the fastest iteration:
+ *
+ * benchmark,size,iterations,ns/op,stddev ns/op,min ns/op
+ *
+ * Run from the repository root, since processTransactions writes its audit
+ * log under data/. Arguments: the results file (default
+ * bench-results.csv), then the sizes (default 10^3 to 10^6). 10^7 works
+ * too, given a heap of about 4 GB (-Xmx4g).
+ */
+public class BenchSuite {
+
+    static final int WARMUP = 3;
+    static final int ITERATIONS = 5;
+
+    /**
+     * One timed iteration of a benchmark.
+     */
+    interface Body {
+        void run() throws IOException;
+    }
+
+    private final PrintWriter results;
+    private final File directory;
+
+    BenchSuite(PrintWriter results, File directory) {
+        this.results = results;
+        this.directory = directory;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String resultsFile = "bench-results.csv";
+        int[] sizes = { 1_000, 10_000, 100_000, 1_000_000 };
+        if (args.length > 0) {
+            resultsFile = args[0];
+        }
+        if (args.length > 1) {
+            sizes = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                sizes[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+        File directory = Files.createTempDirectory("bench-suite").toFile();
+        try (PrintWriter results = new PrintWriter(
+                new FileWriter(resultsFile))) {
+            results.println(
+                    "benchmark,size,iterations,ns/op,stddev ns/op,min ns/op");
+            BenchSuite suite = new BenchSuite(results, directory);
+            for (int size : sizes) {
+                suite.runAll(size);
+            }
+        }
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+        System.out.println("results written to " + resultsFile);
+    }
+
+    void runAll(int size) throws IOException {
+        File accountsFile = new File(directory, "accounts-" + size + ".csv");
+        File transactionsFile = new File(directory, "trs-" + size + ".csv");
+        File outputFile = new File(directory, "out-" + size + ".csv");
+        BenchSupport.writeAccountsFile(accountsFile.getPath(), size);
+        BenchSupport.writeTransactionsFile(
+                transactionsFile.getPath(), size, size, 0.1);
+        List<String> accountLines = readLines(accountsFile);
+        List<String> transactionLines = readLines(transactionsFile);
+
+        // Bank keeps its tables in static fields, so each benchmark builds
+        // its bank right before using it
+        Account[] made = new Account[size];
+        measure("Account.make", size, () -> {
+            for (int i = 0; i < size; i++) {
+                made[i] = Account.make(accountLines.get(i));
+            }
+        });
+
+        Transaction[] parsed = new Transaction[size];
+        measure("Transaction.make", size, () -> {
+            for (int i = 0; i < size; i++) {
+                parsed[i] = Transaction.make(transactionLines.get(i));
+            }
+        });
+
+        measure("Bank.add", size, () -> {
+            Bank fresh = new Bank();
+            for (int i = 0; i < size; i++) {
+                fresh.add(made[i]);
+            }
+        });
+
+        Bank bank = new Bank();
+        for (int i = 0; i < size; i++) {
+            bank.add(made[i]);
+        }
+        String[] ids = new String[size];
+        for (int i = 0; i < size; i++) {
+            // scattered order, every account once
+            ids[i] = made[(int) (i * 2654435761L % size)].getID();
+        }
+        long[] found = new long[1];
+        measure("Bank.find", size, () -> {
+            for (int i = 0; i < size; i++) {
+                found[0] += bank.find(ids[i]);
+            }
+        });
+
+        measure("Bank.loadAccounts", size, () -> {
+            new Bank().loadAccounts(accountsFile.getPath());
+        });
+
+        Bank loaded = new Bank();
+        loaded.loadAccounts(accountsFile.getPath());
+        Transaction[] trs = loaded.loadTransactions(transactionsFile.getPath());
+        measure("Bank.processTransactions", size, () -> {
+            loaded.processTransactions(trs);
+        });
+
+        measure("Bank.writeAccounts", size, () -> {
+            loaded.writeAccounts(outputFile.getPath());
+        });
+
+        accountsFile.delete();
+        transactionsFile.delete();
+        outputFile.delete();
+        if (found[0] == Long.MIN_VALUE) {
+            System.out.println(found[0]); // keep the lookups alive
+        }
+    }
+
+    /**
+     * Run a benchmark and write its result line.
+     *
+     * @param name - benchmark name.
+     * @param ops  - operations done by one iteration.
+     * @param body - one iteration.
+     */
+    void measure(String name, int ops, Body body) throws IOException {
+        for (int i = 0; i < WARMUP; i++) {
+            body.run();
+        }
+        double[] nanosPerOp = new double[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            body.run();
+            nanosPerOp[i] = (double) (System.nanoTime() - start) / ops;
+        }
+        double mean = 0;
+        double min = Double.MAX_VALUE;
+        for (double value : nanosPerOp) {
+            mean += value / ITERATIONS;
+            min = Math.min(min, value);
+        }
+        double variance = 0;
+        for (double value : nanosPerOp) {
+            variance += (value - mean) * (value - mean) / (ITERATIONS - 1);
+        }
+        String line = String.format(
+                "%s,%d,%d,%.2f,%.2f,%.2f",
+                name,
+                ops,
+                ITERATIONS,
+                mean,
+                Math.sqrt(variance),
+                min);
+        results.println(line);
+        results.flush();
+        System.out.println(line);
+    }
+
+    private static List<String> readLines(File file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(
+                new FileReader(file), 1 << 16)) {
+            String line = in.readLine();
+            while (line != null) {
+                lines.add(line);
+                line = in.readLine();
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,160 @@
+package projects.bank;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Helpers shared by the bank benchmarks: synthetic data files in the same
+ * CSV formats as data/accounts.csv and data/transactions.csv, and simple
+ * timing.
+ *
+ * Data is generated from a fixed seed so every run sees the same files.
+ */
+public class BenchSupport {
+
+    private static final String[] FIRST_NAMES = {
+            "Anna", "Brian", "Carla", "David", "Elena", "Frank", "Grace",
+            "Henry", "Irene", "James", "Karen", "Luis", "Maria", "Nathan",
+            "Olivia", "Peter", "Rosa", "Samuel", "Tara", "Victor" };
+
+    private static final String[] LAST_NAMES = {
+            "Gomez", "Smith", "Nguyen", "Johnson", "Garcia", "Brown",
+            "Miller", "Davis", "Lopez", "Wilson", "Moore", "Taylor",
+            "Anderson", "Thomas", "Jackson", "White", "Harris", "Martin" };
+
+    /**
+     * Account ID for the i-th generated account, in the same shape as the
+     * real data (two letters and six digits, eg "wz240833").
+     *
+     * @param i - account number, from 0 up to 676 million.
+     *
+     * @return the account ID.
+     */
+    public static String accountID(int i) {
+        int prefix = i / 1_000_000;
+        char[] id = new char[8];
+        id[0] = (char) ('a' + prefix / 26);
+        id[1] = (char) ('a' + prefix % 26);
+        int digits = i % 1_000_000;
+        for (int pos = 7; pos >= 2; pos--) {
+            id[pos] = (char) ('0' + digits % 10);
+            digits /= 10;
+        }
+        return new String(id);
+    }
+
+    /**
+     * Account ID that no generated account uses. It is one character
+     * longer than the real IDs, so it can never match one.
+     *
+     * @param i - miss number.
+     *
+     * @return the unknown account ID.
+     */
+    public static String missingAccountID(int i) {
+        return "x" + accountID(i);
+    }
+
+    /**
+     * Write an accounts CSV file, eg "savings,aa000001,Anna Gomez,8111.00".
+     *
+     * Owner names are drawn from a small pool, so they repeat the way they
+     * do when one person holds several accounts.
+     *
+     * @param fileName - file to create or overwrite.
+     * @param count    - number of accounts.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public static void writeAccountsFile(String fileName, int count)
+            throws IOException {
+        Random random = new Random(131);
+        try (BufferedWriter out = new BufferedWriter(
+                new FileWriter(fileName), 1 << 16)) {
+            for (int i = 0; i < count; i++) {
+                out.write(random.nextBoolean() ? "savings," : "checking,");
+                out.write(accountID(i));
+                out.write(',');
+                out.write(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]);
+                out.write(' ');
+                out.write(LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+                out.write(',');
+                writeAmount(out, random.nextInt(1_000_000));
+                out.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Write a transactions CSV file, eg "deposit,aa000001,766.53".
+     *
+     * @param fileName - file to create or overwrite.
+     * @param count    - number of transactions.
+     * @param accounts - number of accounts written by writeAccountsFile.
+     * @param missRate - share of transactions, from 0 to 1, that target an
+     *                 account the bank doesn't hold.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public static void writeTransactionsFile(
+            String fileName,
+            long count,
+            int accounts,
+            double missRate) throws IOException {
+        Random random = new Random(216);
+        try (BufferedWriter out = new BufferedWriter(
+                new FileWriter(fileName), 1 << 16)) {
+            for (long i = 0; i < count; i++) {
+                out.write(random.nextBoolean() ? "deposit," : "withdrawal,");
+                int acct = random.nextInt(accounts);
+                if (random.nextDouble() < missRate) {
+                    out.write(missingAccountID(acct));
+                } else {
+                    out.write(accountID(acct));
+                }
+                out.write(',');
+                writeAmount(out, 1 + random.nextInt(100_000));
+                out.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Write an amount given in cents with two decimals, eg 76653 as 766.53.
+     */
+    private static void writeAmount(BufferedWriter out, int cents)
+            throws IOException {
+        out.write(Integer.toString(cents / 100));
+        out.write('.');
+        out.write((char) ('0' + cents / 10 % 10));
+        out.write((char) ('0' + cents % 10));
+    }
+
+    /**
+     * @return milliseconds elapsed since startNanos, a System.nanoTime value.
+     */
+    public static double millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1e6;
+    }
+
+    /**
+     * Parse the benchmark sizes given on the command line.
+     *
+     * @param args     - command line arguments, each one a size.
+     * @param defaults - sizes to use when no arguments are given.
+     *
+     * @return the sizes to run.
+     */
+    public static int[] sizes(String[] args, int... defaults) {
+        if (args.length == 0) {
+            return defaults;
+        }
+        int[] sizes = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        return sizes;
+    }
+}
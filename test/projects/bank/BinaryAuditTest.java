@@ -0,0 +1,163 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BinaryAuditTest {
+
+        private Bank bank;
+        private Transaction[] trs;
+        private File file;
+
+        /*
+         * Setting up the bank and transactions of TestFixtures, and a file for
+         * the binary audit.
+         */
+        @BeforeEach
+        void setup() throws IOException {
+                bank = TestFixtures.bank(20);
+                trs = TestFixtures.transactions(500);
+                file = File.createTempFile("audit", ".bin");
+                file.deleteOnExit();
+        }
+
+        private void process(Audit audit) {
+                ProcessingStats stats = new ProcessingStats();
+                for (int i = 0; i < trs.length; i++) {
+                        bank.apply(trs[i], audit, stats);
+                }
+                audit.close();
+        }
+
+        /*
+         * Test confirms the reader returns each record's fields.
+         */
+        @Test
+        void readRecordsTest() throws IOException {
+                BinaryAudit audit = new BinaryAudit(file.getPath());
+                audit.recordExecute(new Deposit("id1", 2.51), 10251);
+                audit.recordNonSufficientFunds(new Withdrawal("José", 500.0), 10000);
+                audit.recordNoSuchAccount(new Deposit("id99", 1.0));
+                audit.close();
+
+                try (AuditRecordReader in = new AuditRecordReader(file.getPath())) {
+                        assertTrue(in.next());
+                        assertEquals(TransactionResult.EXECUTED, in.getOutcome());
+                        assertEquals(TransactionType.DEPOSIT, in.getType());
+                        assertEquals("id1", in.getAccountID());
+                        assertEquals(251, in.getAmountCents());
+                        assertEquals(10251, in.getBalanceCents());
+                        assertTrue(in.next());
+                        assertEquals(TransactionResult.NONSUFFICIENT_FUNDS, in.getOutcome());
+                        assertEquals(TransactionType.WITHDRAWAL, in.getType());
+                        assertEquals("José", in.getAccountID());
+                        assertTrue(in.next());
+                        assertEquals(TransactionResult.NO_SUCH_ACCOUNT, in.getOutcome());
+                        assertEquals(false, in.next());
+                        assertEquals(3, in.getCount());
+                }
+        }
+
+        /*
+         * Test confirms converting the binary records gives the lines the text
+         * audit writes for the same transactions.
+         */
+        @Test
+        void convertMatchesTextAuditTest() throws IOException {
+                StringWriter text = new StringWriter();
+                process(new Audit(text));
+                process(new BinaryAudit(file.getPath()));
+
+                File converted = File.createTempFile("audit", ".log");
+                converted.deleteOnExit();
+                assertEquals(
+                                trs.length,
+                                AuditRecordReader.convert(file.getPath(), converted.getPath()));
+                String[] expected = text.toString().split("\\R");
+                List<String> actual = Files.readAllLines(converted.toPath());
+                assertEquals(expected.length, actual.size());
+                for (int i = 0; i < expected.length; i++) {
+                        // avoiding timestamps
+                        assertEquals(
+                                        withoutTimestamp(expected[i]),
+                                        withoutTimestamp(actual.get(i)));
+                }
+        }
+
+        /*
+         * Test confirms a truncated file and a file that is not a binary audit
+         * are reported.
+         */
+        @Test
+        void badFileTest() throws IOException {
+                process(new BinaryAudit(file.getPath()));
+                try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+                        raw.setLength(raw.length() - 3);
+                }
+                Exception e = assertThrows(
+                                IOException.class,
+                                () -> {
+                                        try (AuditRecordReader in = new AuditRecordReader(
+                                                        file.getPath())) {
+                                                while (in.next()) {
+                                                }
+                                        }
+                                });
+                assertEquals("truncated audit record.", e.getMessage());
+
+                e = assertThrows(
+                                IOException.class,
+                                () -> {
+                                        new AuditRecordReader("data/testAccounts.csv");
+                                });
+                assertEquals(
+                                "not a binary audit file: data/testAccounts.csv",
+                                e.getMessage());
+        }
+
+        /*
+         * Test confirms an account ID too long for a record is rejected before
+         * anything is written, so the records around it still read back.
+         */
+        @Test
+        void longAccountIDTest() throws IOException {
+                BinaryAudit audit = new BinaryAudit(file.getPath());
+                audit.recordNoSuchAccount(new Deposit("id1", 1.0));
+                assertThrows(
+                                IllegalArgumentException.class,
+                                () -> {
+                                        audit.recordNoSuchAccount(
+                                                        new Deposit("x".repeat(70_000), 1.0));
+                                });
+                assertThrows(
+                                IllegalArgumentException.class,
+                                () -> {
+                                        audit.recordNoSuchAccount(
+                                                        new Deposit("é".repeat(40_000), 1.0));
+                                });
+                audit.recordNoSuchAccount(new Deposit("id2", 1.0));
+                audit.close();
+
+                try (AuditRecordReader in = new AuditRecordReader(file.getPath())) {
+                        assertTrue(in.next());
+                        assertEquals("id1", in.getAccountID());
+                        assertTrue(in.next());
+                        assertEquals("id2", in.getAccountID());
+                        assertEquals(false, in.next());
+                }
+        }
+
+        private static String withoutTimestamp(String line) {
+                return line.substring(line.indexOf(' ') + 1);
+        }
+
+} // end: class BinaryAuditTest
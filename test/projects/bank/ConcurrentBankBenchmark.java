@@ -0,0 +1,106 @@
+package projects.bank;
+
+import java.util.Random;
+
+/**
+ * Stress harness for ConcurrentBank: 1 to 64 submitter threads share the
+ * same transactions, once spread over every account and once concentrated
+ * on a few hot accounts. Reports throughput and compare-and-set retries,
+ * then checks that money was neither created nor lost and that no account
+ * was overdrawn.
+ *
+ * Arguments: number of accounts (default 100 thousand), number of
+ * transactions per run (default 4 million) and number of hot accounts
+ * (default 8).
+ */
+public class ConcurrentBankBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int[] sizes = BenchSupport.sizes(args, 100_000, 4_000_000, 8);
+        int accounts = sizes[0];
+        int count = sizes[1];
+        int hot = sizes[2];
+
+        System.out.println("accounts,submitters,ms,transactions/sec,retries/M");
+        run(accounts, count, accounts, 1); // warm up
+        for (int target : new int[] { accounts, hot }) {
+            for (int submitters = 1; submitters <= 64; submitters *= 2) {
+                run(accounts, count, target, submitters);
+            }
+        }
+    }
+
+    static void run(int accounts, int count, int targets, int submitters)
+            throws InterruptedException {
+        Bank source = new Bank();
+        for (int i = 0; i < accounts; i++) {
+            source.add(new CheckingAccount(
+                    BenchSupport.accountID(i), "Owner Name", 1000.0));
+        }
+        ConcurrentBank bank = new ConcurrentBank(source);
+        Transaction[] trs = new Transaction[count];
+        Random random = new Random(216);
+        for (int i = 0; i < count; i++) {
+            String id = BenchSupport.accountID(random.nextInt(targets));
+            double amount = (1 + random.nextInt(50_000)) / 100.0;
+            if (random.nextBoolean()) {
+                trs[i] = new Deposit(id, amount);
+            } else {
+                trs[i] = new Withdrawal(id, amount);
+            }
+        }
+
+        long[] net = new long[submitters];
+        Thread[] threads = new Thread[submitters];
+        int slice = count / submitters;
+        for (int t = 0; t < submitters; t++) {
+            final int thread = t;
+            threads[t] = new Thread(() -> {
+                long change = 0;
+                for (int i = thread * slice; i < (thread + 1) * slice; i++) {
+                    Transaction tx = trs[i];
+                    if (bank.submit(tx) == TransactionResult.EXECUTED) {
+                        if (tx.getType() == TransactionType.DEPOSIT) {
+                            change += tx.getAmountCents();
+                        } else {
+                            change -= tx.getAmountCents();
+                        }
+                    }
+                }
+                net[thread] = change;
+            });
+        }
+        long start = System.nanoTime();
+        for (int t = 0; t < submitters; t++) {
+            threads[t].start();
+        }
+        for (int t = 0; t < submitters; t++) {
+            threads[t].join();
+        }
+        double millis = BenchSupport.millisSince(start);
+
+        long expected = accounts * 100_000L;
+        for (int t = 0; t < submitters; t++) {
+            expected += net[t];
+        }
+        long total = 0;
+        for (int i = 0; i < accounts; i++) {
+            long balance = bank.getBalanceCents(BenchSupport.accountID(i));
+            if (balance <= 0) {
+                throw new IllegalStateException("account overdrawn.");
+            }
+            total += balance;
+        }
+        if (total != expected) {
+            throw new IllegalStateException("lost update.");
+        }
+        int submitted = slice * submitters;
+        System.out.println(String.format(
+                "%d,%d,%.0f,%.0f,%.1f",
+                targets,
+                submitters,
+                millis,
+                submitted / millis * 1000,
+                bank.getRetries() * 1e6 / submitted));
+    }
+}
@@ -0,0 +1,179 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentBankTest {
+
+    private ConcurrentBank bank;
+
+    /*
+     * Setting up a concurrent bank with four accounts of 100.00 each.
+     */
+    @BeforeEach
+    void setup() {
+        Bank source = new Bank();
+        for (int i = 0; i < 4; i++) {
+            source.add(new CheckingAccount("id" + i, "Owner Name", 100.0));
+        }
+        bank = new ConcurrentBank(source);
+    }
+
+    /*
+     * Test confirms balances accumulate and a withdrawal needs an amount
+     * below the balance.
+     */
+    @Test
+    void submitTest() {
+        assertEquals(
+                TransactionResult.EXECUTED,
+                bank.submit(new Deposit("id0", 2.51)));
+        assertEquals(
+                TransactionResult.EXECUTED,
+                bank.submit(new Deposit("id0", 2.51)));
+        assertEquals(10502, bank.getBalanceCents("id0"));
+        assertEquals(
+                TransactionResult.NONSUFFICIENT_FUNDS,
+                bank.submit(new Withdrawal("id0", 105.02)));
+        assertEquals(
+                TransactionResult.EXECUTED,
+                bank.submit(new Withdrawal("id0", 105.01)));
+        assertEquals(1, bank.getBalanceCents("id0"));
+        assertEquals(
+                TransactionResult.NO_SUCH_ACCOUNT,
+                bank.submit(new Deposit("id9", 1.0)));
+    }
+
+    /*
+     * Test confirms the audit overload writes one line per transaction.
+     */
+    @Test
+    void submitWithAuditTest() {
+        StringWriter out = new StringWriter();
+        Audit audit = new Audit(out);
+        bank.submit(new Deposit("id1", 1.0), audit);
+        bank.submit(new Withdrawal("id1", 500.0), audit);
+        bank.submit(new Deposit("id9", 1.0), audit);
+        audit.close();
+        String[] lines = out.toString().split("\\R");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].endsWith(
+                "deposit,id1,1.00, ending account balance is now 101.00"));
+        assertTrue(lines[1].contains("nonsufficient funds"));
+        assertTrue(lines[2].contains("no such account"));
+    }
+
+    /*
+     * Test confirms that with eight threads racing on four accounts no
+     * update is lost and no account is overdrawn.
+     */
+    @Test
+    void concurrentSubmitTest() throws InterruptedException {
+        AtomicLong deposited = new AtomicLong();
+        AtomicLong withdrawn = new AtomicLong();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int seed = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    String id = "id" + ((i + seed) % 4);
+                    int cents = 1 + (i * 31 + seed) % 700;
+                    if (i % 2 == 0) {
+                        bank.submit(new Deposit(id, cents / 100.0));
+                        deposited.addAndGet(cents);
+                    } else if (bank.submit(new Withdrawal(id, cents / 100.0))
+                            == TransactionResult.EXECUTED) {
+                        withdrawn.addAndGet(cents);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+        }
+
+        long total = 0;
+        for (int i = 0; i < 4; i++) {
+            long balance = bank.getBalanceCents("id" + i);
+            assertTrue(balance > 0);
+            total += balance;
+        }
+        assertEquals(40000 + deposited.get() - withdrawn.get(), total);
+        assertEquals(
+                bank.getBalanceCents("id2"),
+                bank.toBank().resolve("id2").getCurrentBalanceCents());
+    }
+
+    /*
+     * Test confirms each receipt holds the balance its own transaction
+     * installed: with four threads depositing one cent at a time into one
+     * account, every receipt shows a different balance.
+     */
+    @Test
+    void receiptBalanceTest() throws InterruptedException {
+        long start = bank.getBalanceCents("id0");
+        int perThread = 5000;
+        long[][] seen = new long[4][perThread];
+        Thread[] threads = new Thread[seen.length];
+        for (int t = 0; t < threads.length; t++) {
+            final long[] balances = seen[t];
+            threads[t] = new Thread(() -> {
+                ConcurrentBank.Receipt receipt = new ConcurrentBank.Receipt();
+                Deposit cent = new Deposit("id0", 0.01);
+                for (int i = 0; i < balances.length; i++) {
+                    bank.submit(cent, receipt);
+                    balances[i] = receipt.getBalanceCents();
+                }
+            });
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+        }
+        Set<Long> distinct = new HashSet<>();
+        for (long[] balances : seen) {
+            for (long balance : balances) {
+                assertTrue(balance > start);
+                assertTrue(distinct.add(balance));
+            }
+        }
+        assertEquals(start + 4 * perThread, bank.getBalanceCents("id0"));
+
+        ConcurrentBank.Receipt receipt = new ConcurrentBank.Receipt();
+        assertEquals(
+                TransactionResult.NONSUFFICIENT_FUNDS,
+                bank.submit(new Withdrawal("id0", 1_000_000.0), receipt));
+        assertEquals(start + 4 * perThread, receipt.getBalanceCents());
+    }
+
+    /*
+     * Test confirms invalid arguments are rejected.
+     */
+    @Test
+    void dataValidationTest() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> {
+                    new ConcurrentBank(null);
+                });
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> {
+                    bank.submit(null);
+                });
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> {
+                    bank.getBalanceCents("id9");
+                });
+    }
+
+} // end: class ConcurrentBankTest
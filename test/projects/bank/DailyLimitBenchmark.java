@@ -0,0 +1,75 @@
+package projects.bank;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Measures the cost of enforcing daily withdrawal limits: transactions per
+ * second through Bank.apply and BatchProcessor with no limits, and with a
+ * limit on both account types that most withdrawals stay under. The audit
+ * writes to nowhere.
+ *
+ * Arguments: number of accounts (default 1 million) and number of
+ * transactions (default 5 million).
+ */
+public class DailyLimitBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = BenchSupport.sizes(args, 1_000_000, 5_000_000);
+        int accounts = sizes[0];
+        int count = sizes[1];
+        File accountsFile = File.createTempFile("bench-accounts", ".csv");
+        accountsFile.deleteOnExit();
+        BenchSupport.writeAccountsFile(accountsFile.getPath(), accounts);
+        File transactionsFile = File.createTempFile("bench-trs", ".csv");
+        transactionsFile.deleteOnExit();
+        BenchSupport.writeTransactionsFile(
+                transactionsFile.getPath(), count, accounts, 0.0);
+        Bank feed = new Bank(); // the bank keeps loaded transactions
+        Transaction[] trs = feed.loadTransactions(transactionsFile.getPath());
+        int loaded = feed.getTransactionsCount();
+
+        System.out.println("limits,mode,transactions/sec,ns/transaction,rejected");
+        for (int round = 0; round < 2; round++) { // first round warms up
+            for (int limited = 0; limited < 2; limited++) {
+                for (int batch = 0; batch < 2; batch++) {
+                    DailyLimits.reset();
+                    if (limited == 1) {
+                        DailyLimits.setLimit(AccountType.CHECKING, 1_000.0);
+                        DailyLimits.setLimit(AccountType.SAVINGS, 500.0);
+                    }
+                    Bank bank = new Bank();
+                    bank.loadAccounts(accountsFile.getPath());
+                    Audit audit = new Audit(Writer.nullWriter());
+                    long start = System.nanoTime();
+                    int processed;
+                    if (batch == 1) {
+                        processed = new BatchProcessor(bank).process(
+                                trs, loaded, audit);
+                    } else {
+                        ProcessingStats stats = new ProcessingStats();
+                        processed = 0;
+                        for (int i = 0; i < loaded; i++) {
+                            if (bank.apply(trs[i], audit, stats)) {
+                                processed++;
+                            }
+                        }
+                    }
+                    double millis = BenchSupport.millisSince(start);
+                    audit.close();
+                    if (round == 1) {
+                        System.out.println(String.format(
+                                "%s,%s,%.0f,%.1f,%d",
+                                limited == 1 ? "on" : "off",
+                                batch == 1 ? "batch" : "apply",
+                                loaded / millis * 1000,
+                                millis * 1e6 / loaded,
+                                loaded - processed));
+                    }
+                }
+            }
+        }
+        DailyLimits.reset();
+    }
+}
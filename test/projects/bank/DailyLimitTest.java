@@ -0,0 +1,253 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DailyLimitTest {
+
+    private static final long HOUR = WithdrawalWindow.HOUR_MILLIS;
+
+    private long now;
+
+    /*
+     * Setting up a clock the tests move by hand, starting mid-hour.
+     */
+    @BeforeEach
+    void setup() {
+        now = 1_000 * HOUR + HOUR / 2;
+        DailyLimits.setClock(() -> now);
+    }
+
+    @AfterEach
+    void teardown() {
+        DailyLimits.reset();
+    }
+
+    /*
+     * Test confirms amounts leave the window 24 hours after the hour they
+     * were added in, and that a long gap or a clock going back is handled.
+     */
+    @Test
+    void windowTest() {
+        WithdrawalWindow window = new WithdrawalWindow();
+        assertEquals(0, window.total(now));
+        window.add(now, 100);
+        window.add(now + 5 * HOUR, 20);
+        assertEquals(120, window.total(now + 23 * HOUR));
+        assertEquals(20, window.total(now + 24 * HOUR));
+        window.add(now, 3); // clock went back, counted in the current hour
+        assertEquals(23, window.total(now + 24 * HOUR));
+        assertEquals(3, window.total(now + 29 * HOUR));
+        assertEquals(0, window.total(now + 48 * HOUR));
+        window.add(now + 100 * HOUR, 7);
+        assertEquals(7, window.total(now + 100 * HOUR));
+        assertEquals(0, window.total(now + 1000 * HOUR));
+    }
+
+    /*
+     * Test confirms withdrawals over the limit of the account type are
+     * rejected and audited, and allowed again a day later.
+     */
+    @Test
+    void validateTest() {
+        DailyLimits.setLimit(AccountType.CHECKING, 100.0);
+        assertTrue(DailyLimits.isEnabled());
+        Account checking = new CheckingAccount("id1", "Owner Name", 1000.0);
+        Account savings = new SavingsAccount("id2", "Owner Name", 1000.0);
+        StringWriter out = new StringWriter();
+        Audit audit = new Audit(out);
+
+        Withdrawal forty = new Withdrawal("id1", 40.0);
+        for (int i = 0; i < 2; i++) {
+            assertTrue(forty.validate(checking, audit));
+            forty.execute(checking, audit);
+        }
+        assertEquals(8000, checking.getWithdrawnTodayCents());
+        assertEquals(false, forty.validate(checking, audit));
+        assertTrue(new Withdrawal("id1", 20.0).validate(checking, audit));
+        assertTrue(new Withdrawal("id2", 500.0).validate(savings, audit));
+        assertTrue(new Deposit("id1", 500.0).validate(checking, audit));
+        audit.close();
+        assertTrue(out.toString().contains(
+                "[WARN]: daily limit exceeded: withdrawal,id1,40.00, "
+                        + "but withdrawn in the last 24 hours is 80.00"));
+
+        now += 24 * HOUR;
+        assertEquals(0, checking.getWithdrawnTodayCents());
+        assertTrue(forty.validate(checking, new Audit(new StringWriter())));
+    }
+
+    /*
+     * Test confirms the batch mode applies the limits exactly as applying
+     * transactions one at a time.
+     */
+    @Test
+    void batchMatchesSequentialTest() throws IOException {
+        DailyLimits.setLimit(AccountType.CHECKING, 300.0);
+        DailyLimits.setLimit(AccountType.SAVINGS, 150.0);
+        // ids 21 and 22 are absent
+        Transaction[] trs = TestFixtures.transactions(10000);
+
+        Bank bank = bank();
+        StringWriter sequential = new StringWriter();
+        int expected = new ParallelProcessor(bank, 1).process(
+                trs, trs.length, sequential);
+        assertTrue(sequential.toString().contains("daily limit exceeded"));
+
+        bank = bank();
+        StringWriter batched = new StringWriter();
+        Audit audit = new Audit(batched);
+        assertEquals(
+                expected,
+                new BatchProcessor(bank).process(trs, trs.length, audit));
+        audit.close();
+        String[] sequentialLines = sequential.toString().split("\\R");
+        String[] batchedLines = batched.toString().split("\\R");
+        assertEquals(sequentialLines.length, batchedLines.length);
+        for (int i = 0; i < sequentialLines.length; i++) {
+            // avoiding timestamps
+            assertEquals(
+                    sequentialLines[i].substring(sequentialLines[i].indexOf(' ') + 1),
+                    batchedLines[i].substring(batchedLines[i].indexOf(' ') + 1));
+        }
+    }
+
+    /*
+     * Test confirms the account store applies the limits exactly as
+     * applying transactions one at a time through the bank.
+     */
+    @Test
+    void storeMatchesSequentialTest() throws IOException {
+        DailyLimits.setLimit(AccountType.CHECKING, 300.0);
+        DailyLimits.setLimit(AccountType.SAVINGS, 150.0);
+        Transaction[] trs = TestFixtures.transactions(10000);
+
+        Bank bank = bank();
+        StringWriter sequential = new StringWriter();
+        int expected = new ParallelProcessor(bank, 1).process(
+                trs, trs.length, sequential);
+
+        AccountStore store = AccountStore.from(bank());
+        StringWriter stored = new StringWriter();
+        Audit audit = new Audit(stored);
+        assertEquals(expected, store.processTransactions(trs, trs.length, audit));
+        audit.close();
+        String[] sequentialLines = sequential.toString().split("\\R");
+        String[] storedLines = stored.toString().split("\\R");
+        assertEquals(sequentialLines.length, storedLines.length);
+        for (int i = 0; i < sequentialLines.length; i++) {
+            // avoiding timestamps
+            assertEquals(
+                    sequentialLines[i].substring(sequentialLines[i].indexOf(' ') + 1),
+                    storedLines[i].substring(storedLines[i].indexOf(' ') + 1));
+        }
+    }
+
+    /*
+     * Test confirms the concurrent bank refuses and audits withdrawals over
+     * the limit, counts what the account withdrew in its bank, and lets
+     * racing threads withdraw no more than the limit between them.
+     */
+    @Test
+    void concurrentBankTest() throws InterruptedException {
+        DailyLimits.setLimit(AccountType.CHECKING, 300.0);
+        Bank source = new Bank();
+        Account account = new CheckingAccount("id0", "Owner Name", 1000.0);
+        account.debitCents(10000);
+        source.add(account);
+        source.add(new SavingsAccount("id1", "Owner Name", 1000.0));
+        ConcurrentBank bank = new ConcurrentBank(source);
+
+        StringWriter out = new StringWriter();
+        Audit audit = new Audit(out);
+        assertEquals(
+                TransactionResult.DAILY_LIMIT_EXCEEDED,
+                bank.submit(new Withdrawal("id0", 250.0), audit));
+        assertEquals(
+                TransactionResult.EXECUTED,
+                bank.submit(new Withdrawal("id1", 500.0), audit));
+        audit.close();
+        assertTrue(out.toString().contains(
+                "[WARN]: daily limit exceeded: withdrawal,id0,250.00, "
+                        + "but withdrawn in the last 24 hours is 100.00"));
+
+        Thread[] threads = new Thread[8];
+        AtomicLong executed = new AtomicLong();
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10; i++) {
+                    if (bank.submit(new Withdrawal("id0", 10.0))
+                            == TransactionResult.EXECUTED) {
+                        executed.incrementAndGet();
+                    }
+                    bank.submit(new Deposit("id0", 1.0));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(20, executed.get());
+        assertEquals(100000 - 20 * 1000 + 80 * 100, bank.getBalanceCents("id0"));
+
+        now += 24 * HOUR;
+        assertEquals(
+                TransactionResult.EXECUTED,
+                bank.submit(new Withdrawal("id0", 250.0)));
+    }
+
+    /*
+     * Test confirms the binary audit stores the new record and converts it
+     * back to the text line.
+     */
+    @Test
+    void binaryAuditTest() throws IOException {
+        File file = File.createTempFile("audit", ".bin");
+        file.deleteOnExit();
+        BinaryAudit audit = new BinaryAudit(file.getPath());
+        audit.recordDailyLimitExceeded(new Withdrawal("id1", 40.0), 8000);
+        audit.close();
+        try (AuditRecordReader in = new AuditRecordReader(file.getPath())) {
+            assertTrue(in.next());
+            assertEquals(TransactionResult.DAILY_LIMIT_EXCEEDED, in.getOutcome());
+            assertEquals(8000, in.getBalanceCents());
+            String line = in.appendText(new StringBuilder()).toString();
+            assertTrue(line.endsWith(
+                    "[WARN]: daily limit exceeded: withdrawal,id1,40.00, "
+                            + "but withdrawn in the last 24 hours is 80.00"));
+        }
+    }
+
+    /*
+     * Test confirms limits must be positive and have a type.
+     */
+    @Test
+    void limitDataValidationTest() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> DailyLimits.setLimit(AccountType.SAVINGS, 0.0));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> DailyLimits.setLimit(null, 1.0));
+        assertEquals(false, DailyLimits.isEnabled());
+        assertEquals(
+                DailyLimits.NO_LIMIT,
+                DailyLimits.getLimitCents(AccountType.SAVINGS));
+    }
+
+    private static Bank bank() {
+        Bank bank = TestFixtures.bank(20);
+        bank.add(new SavingsAccount("id20", "Owner Name", 500.0));
+        return bank;
+    }
+
+} // end: class DailyLimitTest
@@ -0,0 +1,97 @@
+package projects.bank;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Compares lookups with and without the account filter on feeds where
+ * 10%, 50% and 90% of the transactions target absent accounts: find time
+ * per ID, and transactions per second through Bank.apply with the audit
+ * writing to nowhere.
+ *
+ * Arguments: number of accounts (default 1 million) and number of
+ * transactions per feed (default 2 million).
+ */
+public class FilterBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = BenchSupport.sizes(args, 1_000_000, 2_000_000);
+        int accounts = sizes[0];
+        int count = sizes[1];
+        File accountsFile = File.createTempFile("bench-accounts", ".csv");
+        accountsFile.deleteOnExit();
+        BenchSupport.writeAccountsFile(accountsFile.getPath(), accounts);
+        Bank bank = new Bank();
+        bank.loadAccounts(accountsFile.getPath());
+        AccountFilter filter = bank.getFilter();
+        System.out.println(String.format(
+                "filter MB,%.2f,bytes/account,%.1f,expected fp rate,%.4f",
+                filter.getMemoryBytes() / 1e6,
+                (double) filter.getMemoryBytes() / accounts,
+                filter.getExpectedFalsePositiveRate()));
+
+        System.out.println(
+                "miss rate,filter,find ns/op,apply transactions/sec,fp rate");
+        double[] missRates = { 0.1, 0.5, 0.9 };
+        for (double missRate : missRates) {
+            File transactionsFile = File.createTempFile("bench-trs", ".csv");
+            transactionsFile.deleteOnExit();
+            BenchSupport.writeTransactionsFile(
+                    transactionsFile.getPath(), count, accounts, missRate);
+            Bank feed = new Bank(); // the bank keeps loaded transactions
+            Transaction[] trs = feed.loadTransactions(transactionsFile.getPath());
+            int loaded = feed.getTransactionsCount();
+            String[] ids = new String[loaded];
+            for (int i = 0; i < loaded; i++) {
+                ids[i] = trs[i].getAccountNumber();
+            }
+            bank = new Bank();
+            bank.loadAccounts(accountsFile.getPath());
+            for (int round = 0; round < 2; round++) { // first round warms up
+                for (int on = 1; on >= 0; on--) {
+                    bank.setFastReject(on == 1);
+                    run(bank, ids, trs, loaded, missRate, on == 1, round == 1);
+                }
+            }
+            transactionsFile.delete();
+        }
+    }
+
+    static void run(
+            Bank bank,
+            String[] ids,
+            Transaction[] trs,
+            int count,
+            double missRate,
+            boolean filtered,
+            boolean print) {
+        long found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            found += bank.find(ids[i]);
+        }
+        double findMillis = BenchSupport.millisSince(start);
+
+        Audit audit = new Audit(Writer.nullWriter());
+        ProcessingStats stats = new ProcessingStats();
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            bank.apply(trs[i], audit, stats);
+        }
+        double applyMillis = BenchSupport.millisSince(start);
+        audit.close();
+        if (print) {
+            System.out.println(String.format(
+                    "%.0f%%,%s,%.1f,%.0f,%.4f",
+                    missRate * 100,
+                    filtered ? "on" : "off",
+                    findMillis * 1e6 / count,
+                    count / applyMillis * 1000,
+                    filtered ? stats.getFalsePositiveRate() : 1.0));
+        }
+        if (found == Long.MIN_VALUE) {
+            System.out.println(found); // keep the lookups alive
+        }
+    }
+}
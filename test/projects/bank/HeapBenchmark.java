@@ -0,0 +1,64 @@
+package projects.bank;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Loads an accounts file and reports the heap the bank retains: bytes per
+ * account, and the top of the class histogram (the same table as
+ * "jcmd PID GC.class_histogram").
+ *
+ * Arguments: number of accounts (default 5 million) and number of
+ * histogram rows (default 12). Run with a large enough heap, eg -Xmx3g.
+ */
+public class HeapBenchmark {
+
+    public static void main(String[] args) throws IOException, JMException {
+        int[] sizes = BenchSupport.sizes(args, 5_000_000, 12);
+        int accounts = sizes[0];
+        File accountsFile = File.createTempFile("bench-accounts", ".csv");
+        accountsFile.deleteOnExit();
+        BenchSupport.writeAccountsFile(accountsFile.getPath(), accounts);
+
+        long before = usedHeap();
+        long start = System.nanoTime();
+        Bank bank = new Bank();
+        bank.loadAccountsMapped(accountsFile.getPath());
+        double millis = BenchSupport.millisSince(start);
+        long retained = usedHeap() - before;
+        System.out.println(String.format(
+                "accounts,%d,load ms,%.0f,heap MB,%.1f,bytes/account,%.1f",
+                bank.getCount(),
+                millis,
+                retained / 1e6,
+                (double) retained / accounts));
+
+        // the histogram forces a full GC, so it only shows live objects
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        String histogram = (String) server.invoke(
+                new ObjectName("com.sun.management:type=DiagnosticCommand"),
+                "gcClassHistogram",
+                new Object[] { new String[0] },
+                new String[] { String[].class.getName() });
+        String[] lines = histogram.split("\n");
+        for (int i = 0; i < lines.length && i < sizes[1] + 2; i++) {
+            System.out.println(lines[i]);
+        }
+        if (bank.getCount() == 0) {
+            System.out.println("nothing loaded"); // keep the bank alive
+        }
+    }
+
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
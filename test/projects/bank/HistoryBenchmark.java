@@ -0,0 +1,94 @@
+package projects.bank;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+
+/**
+ * Measures AccountHistory: the cost of recording while transactions are
+ * applied, and the time of a point-in-time balance query compared with
+ * re-running the transactions up to that point.
+ *
+ * Arguments: number of accounts (default 10 thousand), number of
+ * transactions (default 2 million) and number of queries (default 100
+ * thousand).
+ */
+public class HistoryBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = BenchSupport.sizes(args, 10_000, 2_000_000, 100_000);
+        int accounts = sizes[0];
+        int count = sizes[1];
+        int queries = sizes[2];
+        File accountsFile = File.createTempFile("bench-accounts", ".csv");
+        File transactionsFile = File.createTempFile("bench-trs", ".csv");
+        accountsFile.deleteOnExit();
+        transactionsFile.deleteOnExit();
+        BenchSupport.writeAccountsFile(accountsFile.getPath(), accounts);
+        BenchSupport.writeTransactionsFile(
+                transactionsFile.getPath(), count, accounts, 0.0);
+
+        Bank bank = new Bank();
+        bank.loadAccounts(accountsFile.getPath());
+        Transaction[] trs = bank.loadTransactions(transactionsFile.getPath());
+        int loaded = bank.getTransactionsCount();
+
+        System.out.println("step,ms,ops/sec");
+        AccountHistory history = null;
+        for (int round = 0; round < 3; round++) { // first round warms up
+            long start = System.nanoTime();
+            apply(bank, trs, loaded);
+            report("apply without history", start, loaded);
+
+            if (history != null) {
+                history.close();
+            }
+            history = new AccountHistory(null, 0);
+            bank.setHistory(history);
+            start = System.nanoTime();
+            apply(bank, trs, loaded);
+            report("apply with history", start, loaded);
+            bank.setHistory(null);
+        }
+        System.out.println(String.format(
+                "history bytes/transaction,%.1f",
+                (double) history.getMemoryBytes() / history.getSequence()));
+
+        Random random = new Random(131);
+        long executed = history.getSequence();
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            String id = BenchSupport.accountID(random.nextInt(accounts));
+            checksum += history.balanceAfter(
+                    id, 1 + (long) (random.nextDouble() * executed), 0);
+        }
+        report("history query", start, queries);
+
+        // re-running means applying, on average, half of the transactions
+        int replays = Math.max(1, queries / 10_000);
+        start = System.nanoTime();
+        for (int i = 0; i < replays; i++) {
+            apply(bank, trs, loaded / 2);
+        }
+        report("replay query", start, replays);
+        System.out.println("checksum," + checksum);
+        history.close();
+    }
+
+    static void apply(Bank bank, Transaction[] trs, int count) {
+        Audit audit = new Audit(Writer.nullWriter());
+        ProcessingStats stats = new ProcessingStats();
+        for (int i = 0; i < count; i++) {
+            bank.apply(trs[i], audit, stats);
+        }
+        audit.close();
+    }
+
+    static void report(String step, long start, int ops) {
+        double millis = BenchSupport.millisSince(start);
+        System.out.println(String.format(
+                "%s,%.0f,%.0f", step, millis, ops / millis * 1000));
+    }
+}
@@ -0,0 +1,84 @@
+package projects.bank;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Compares writeAccounts with writeAccountsIncremental over a series of
+ * runs that each change a small share of the accounts: time and bytes
+ * written per run.
+ *
+ * Arguments: number of accounts (default 1 million), changed accounts per
+ * run in hundredths of a percent (default 100, ie 1%) and number of runs
+ * (default 40).
+ */
+public class IncrementalWriteBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = BenchSupport.sizes(args, 1_000_000, 100, 40);
+        int accounts = sizes[0];
+        int changed = (int) ((long) accounts * sizes[1] / 10_000);
+        int runs = sizes[2];
+        File directory = Files.createTempDirectory("bench-incremental").toFile();
+        File accountsFile = new File(directory, "accounts.csv");
+        File fullFile = new File(directory, "full.csv");
+        File incrementalFile = new File(directory, "incremental.csv");
+        File deltaFile = new File(incrementalFile + Bank.DELTA_SUFFIX);
+        BenchSupport.writeAccountsFile(accountsFile.getPath(), accounts);
+
+        Bank bank = new Bank();
+        bank.loadAccounts(accountsFile.getPath());
+        bank.writeAccountsIncremental(incrementalFile.getPath());
+        Random random = new Random(131);
+        double fullMillis = 0;
+        double incrementalMillis = 0;
+        long fullBytes = 0;
+        long incrementalBytes = 0;
+        System.out.println("run,full ms,incremental ms,full MB,incremental MB");
+        for (int run = 0; run < runs; run++) {
+            for (int i = 0; i < changed; i++) {
+                bank.resolve(BenchSupport.accountID(random.nextInt(accounts)))
+                        .creditCents(100);
+            }
+            long start = System.nanoTime();
+            bank.writeAccounts(fullFile.getPath());
+            double full = BenchSupport.millisSince(start);
+
+            long deltaBefore = deltaFile.length();
+            start = System.nanoTime();
+            bank.writeAccountsIncremental(incrementalFile.getPath());
+            double incremental = BenchSupport.millisSince(start);
+            // a compaction rewrote the full file instead of appending
+            long written = deltaFile.exists()
+                    ? deltaFile.length() - deltaBefore
+                    : incrementalFile.length() + deltaBefore;
+
+            if (run > 0) { // first run warms up
+                fullMillis += full;
+                incrementalMillis += incremental;
+                fullBytes += fullFile.length();
+                incrementalBytes += written;
+            }
+            System.out.println(String.format(
+                    "%d,%.1f,%.1f,%.2f,%.2f",
+                    run,
+                    full,
+                    incremental,
+                    fullFile.length() / 1e6,
+                    written / 1e6));
+        }
+        System.out.println(String.format(
+                "total,%.0f,%.0f,%.1f,%.1f",
+                fullMillis,
+                incrementalMillis,
+                fullBytes / 1e6,
+                incrementalBytes / 1e6));
+        accountsFile.delete();
+        fullFile.delete();
+        incrementalFile.delete();
+        deltaFile.delete();
+        directory.delete();
+    }
+}
@@ -0,0 +1,110 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class IncrementalWriteTest {
+
+    private Bank bank;
+    private File full;
+    private File delta;
+
+    /*
+     * Setting up a bank with 100 accounts and the files to write them to.
+     */
+    @BeforeEach
+    void setup() throws IOException {
+        bank = new Bank();
+        for (int i = 0; i < 100; i++) {
+            bank.add(new CheckingAccount("id" + i, "Owner Name", 100.0 + i));
+        }
+        File directory = Files.createTempDirectory("accounts").toFile();
+        directory.deleteOnExit();
+        full = new File(directory, "accounts.csv");
+        delta = new File(directory, "accounts.csv" + Bank.DELTA_SUFFIX);
+        full.deleteOnExit();
+        delta.deleteOnExit();
+    }
+
+    /*
+     * Test confirms accounts start dirty, credits and debits make them
+     * dirty again, and only those go to the delta file.
+     */
+    @Test
+    void writesDirtyAccountsTest() throws IOException {
+        assertEquals(true, bank.resolve("id0").isDirty());
+        assertEquals(true, bank.writeAccountsIncremental(full.getPath()));
+        assertEquals(100, Files.readAllLines(full.toPath()).size());
+        assertEquals(false, delta.exists());
+        assertEquals(false, bank.resolve("id0").isDirty());
+
+        bank.resolve("id3").creditCents(100);
+        bank.resolve("id7").debitCents(100);
+        assertEquals(true, bank.resolve("id3").isDirty());
+        assertEquals(true, bank.writeAccountsIncremental(full.getPath()));
+        assertEquals(
+                List.of(
+                        "checking,id3,Owner Name,103.00",
+                        "checking,id7,Owner Name,107.00"),
+                Files.readAllLines(delta.toPath()));
+
+        // nothing changed, nothing written
+        long length = delta.length();
+        assertEquals(true, bank.writeAccountsIncremental(full.getPath()));
+        assertEquals(length, delta.length());
+    }
+
+    /*
+     * Test confirms reloading the full and delta files gives back every
+     * account, including ones added after the full write, and that an
+     * incomplete last delta line is ignored.
+     */
+    @Test
+    void reloadTest() throws IOException {
+        bank.writeAccountsIncremental(full.getPath());
+        bank.add(new SavingsAccount("new1", "New Owner", 5.25));
+        bank.writeAccountsIncremental(full.getPath());
+        try (FileWriter out = new FileWriter(delta, true)) {
+            out.write("checking,id1,Torn Wri");
+        }
+
+        Bank reloaded = new Bank();
+        assertEquals(true, reloaded.loadAccountsIncremental(full.getPath()));
+        assertEquals(101, reloaded.getCount());
+        assertEquals("New Owner", reloaded.resolve("new1").getOwner());
+        assertEquals("Owner Name", reloaded.resolve("id1").getOwner());
+        assertEquals(false, reloaded.resolve("new1").isDirty());
+    }
+
+    /*
+     * Test confirms the delta file is folded into the full file once it
+     * passes a quarter of it.
+     */
+    @Test
+    void compactionTest() throws IOException {
+        bank.writeAccountsIncremental(full.getPath());
+        int compactions = 0;
+        for (int round = 0; round < 30; round++) {
+            bank.resolve("id" + round).creditCents(1);
+            bank.resolve("id" + (round + 50)).creditCents(1);
+            assertEquals(true, bank.writeAccountsIncremental(full.getPath()));
+            assertTrue(delta.length() <= full.length() / 4);
+            if (!delta.exists()) {
+                compactions++;
+            }
+        }
+        // 60 lines of about the same length as the 100 in the full file
+        assertEquals(2, compactions);
+        assertEquals(100, Files.readAllLines(full.toPath()).size());
+        assertEquals(false, new File(full.getPath() + ".tmp").exists());
+    }
+
+} // end: class IncrementalWriteTest
@@ -0,0 +1,147 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class InterestAccrualTest {
+
+    private InterestAccrual job;
+
+    /*
+     * Setting up a job paying 6% a year on savings and nothing on checking.
+     */
+    @BeforeEach
+    void setup() {
+        job = new InterestAccrual();
+        job.setRate(AccountType.SAVINGS, 0.06);
+    }
+
+    /*
+     * Test confirms a month of interest is added to positive savings
+     * balances only, and summed in one audit line.
+     */
+    @Test
+    void accrueTest() {
+        Bank bank = new Bank();
+        bank.add(new SavingsAccount("id1", "Owner Name", 1200.0));
+        bank.add(new SavingsAccount("id2", "Owner Name", 0.99));
+        bank.add(new SavingsAccount("id3", "Owner Name", -50.0));
+        bank.add(new CheckingAccount("id4", "Owner Name", 1000.0));
+        StringWriter out = new StringWriter();
+        Audit audit = new Audit(out);
+        assertEquals(600, job.accrue(bank, audit));
+        audit.close();
+
+        assertEquals("savings,id1,Owner Name,1206.00", bank.resolve("id1").toCSV());
+        assertEquals(99, bank.resolve("id2").getCurrentBalanceCents());
+        assertEquals(-5000, bank.resolve("id3").getCurrentBalanceCents());
+        assertEquals(100000, bank.resolve("id4").getCurrentBalanceCents());
+        assertEquals(1, job.getAccounts(AccountType.SAVINGS));
+        assertEquals(0, job.getAccounts(AccountType.CHECKING));
+        String[] lines = out.toString().split("\\R");
+        assertEquals(1, lines.length);
+        assertTrue(lines[0].endsWith(
+                "[INFO]: interest accrued: savings, 1 accounts, 6.00"));
+    }
+
+    /*
+     * Test confirms the sequential, fork/join and columnar passes credit
+     * the same interest to the same accounts.
+     */
+    @Test
+    void modesAgreeTest() {
+        job.setRate(AccountType.CHECKING, 0.0125);
+        Bank bank = bank();
+        AccountStore store = AccountStore.from(bank);
+        Audit audit = new Audit(new StringWriter());
+
+        long sequential = job.accrue(bank, audit);
+        long[] expected = new long[100_000];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = bank.getAccounts()[i].getCurrentBalanceCents();
+        }
+        long savings = job.getAccounts(AccountType.SAVINGS);
+        assertTrue(sequential > 0);
+        assertTrue(savings > 0);
+
+        assertEquals(sequential, job.accrue(store, audit));
+        assertEquals(savings, job.getAccounts(AccountType.SAVINGS));
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], store.getBalanceCents(i));
+        }
+
+        bank = bank();
+        assertEquals(sequential, job.accrueParallel(bank, audit, 4));
+        assertEquals(savings, job.getAccounts(AccountType.SAVINGS));
+        Account[] accounts = bank.getAccounts();
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], accounts[i].getCurrentBalanceCents());
+        }
+    }
+
+    /*
+     * Test confirms the binary audit stores the summary and converts it
+     * back to the text line.
+     */
+    @Test
+    void binaryAuditTest() throws IOException {
+        File file = File.createTempFile("audit", ".bin");
+        file.deleteOnExit();
+        BinaryAudit audit = new BinaryAudit(file.getPath());
+        audit.recordInterestAccrued(AccountType.SAVINGS, 3, 1234);
+        audit.close();
+        try (AuditRecordReader in = new AuditRecordReader(file.getPath())) {
+            assertTrue(in.next());
+            assertEquals(TransactionResult.INTEREST_ACCRUED, in.getOutcome());
+            assertEquals(1234, in.getAmountCents());
+            assertEquals(3, in.getBalanceCents());
+            assertTrue(in.appendText(new StringBuilder()).toString().endsWith(
+                    "[INFO]: interest accrued: savings, 3 accounts, 12.34"));
+        }
+    }
+
+    /*
+     * Test confirms rates must not be negative and arguments not null.
+     */
+    @Test
+    void dataValidationTest() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> job.setRate(AccountType.SAVINGS, -0.01));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> job.setRate(null, 0.01));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> job.accrue((Bank) null, new Audit(new StringWriter())));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> job.accrueParallel(new Bank(), new Audit(new StringWriter()), 0));
+        assertEquals(0.06, job.getRate(AccountType.SAVINGS));
+        assertEquals(0.0, job.getRate(AccountType.CHECKING));
+    }
+
+    /*
+     * 100000 accounts, a third of them checking, with balances from -1000.00
+     * to 19000.00.
+     */
+    private static Bank bank() {
+        Bank bank = new Bank();
+        for (int i = 0; i < 100_000; i++) {
+            double balance = (i * 7919L % 2_000_003) / 100.0 - 1_000;
+            if (i % 3 == 0) {
+                bank.add(new CheckingAccount("id" + i, "Owner Name", balance));
+            } else {
+                bank.add(new SavingsAccount("id" + i, "Owner Name", balance));
+            }
+        }
+        return bank;
+    }
+
+} // end: class InterestAccrualTest
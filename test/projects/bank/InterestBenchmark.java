@@ -0,0 +1,70 @@
+package projects.bank;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Times the month-end interest job over the whole account table: one
+ * thread over Account objects, a fork/join pool over the same objects, and
+ * one thread over the columns of an AccountStore. Each mode runs a few
+ * passes and reports the fastest; every pass credits another month.
+ *
+ * Arguments: number of accounts (default 10 million) and number of
+ * fork/join threads (default the number of processors). Run with a large
+ * enough heap, eg -Xmx4g.
+ */
+public class InterestBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = BenchSupport.sizes(
+                args, 10_000_000, Runtime.getRuntime().availableProcessors());
+        int count = sizes[0];
+        int threads = sizes[1];
+        InterestAccrual job = new InterestAccrual();
+        job.setRate(AccountType.SAVINGS, 0.04);
+        job.setRate(AccountType.CHECKING, 0.001);
+        Audit audit = new Audit(Writer.nullWriter());
+
+        Bank bank = new Bank();
+        for (int i = 0; i < count; i++) {
+            String id = BenchSupport.accountID(i);
+            double balance = (i * 7919L % 2_000_003) / 100.0 - 1_000;
+            if (i % 2 == 0) {
+                bank.add(new SavingsAccount(id, "Owner Name", balance));
+            } else {
+                bank.add(new CheckingAccount(id, "Owner Name", balance));
+            }
+        }
+        System.out.println("mode,accounts,ms,accounts/sec");
+        run("objects", count, () -> job.accrue(bank, audit));
+        run("fork/join x" + threads, count,
+                () -> job.accrueParallel(bank, audit, threads));
+
+        AccountStore store = AccountStore.from(bank);
+        new Bank(); // drop the objects before timing the columns
+        run("columnar", count, () -> job.accrue(store, audit));
+        audit.close();
+    }
+
+    interface Pass {
+        long run();
+    }
+
+    static void run(String mode, int count, Pass pass) {
+        double best = Double.MAX_VALUE;
+        long interest = 0;
+        for (int i = 0; i < 6; i++) { // first passes warm up
+            long start = System.nanoTime();
+            interest += pass.run();
+            double millis = BenchSupport.millisSince(start);
+            if (i >= 2) {
+                best = Math.min(best, millis);
+            }
+        }
+        System.out.println(String.format(
+                "%s,%d,%.0f,%.0f", mode, count, best, count / best * 1000));
+        if (interest == 0) {
+            System.out.println("no interest credited");
+        }
+    }
+}
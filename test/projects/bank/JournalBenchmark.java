@@ -0,0 +1,86 @@
+package projects.bank;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+
+/**
+ * Streams a generated transactions file with and without a journal, for
+ * several group commit sizes, then times a checkpoint and a recovery.
+ *
+ * Arguments: number of transaction lines (default 1 million) and number of
+ * accounts (default 100 thousand).
+ */
+public class JournalBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = BenchSupport.sizes(args, 1_000_000, 100_000);
+        int lines = sizes[0];
+        int accounts = sizes[1];
+        File accountsFile = File.createTempFile("bench-accounts", ".csv");
+        File transactionsFile = File.createTempFile("bench-trs", ".csv");
+        accountsFile.deleteOnExit();
+        transactionsFile.deleteOnExit();
+        BenchSupport.writeAccountsFile(accountsFile.getPath(), accounts);
+        BenchSupport.writeTransactionsFile(
+                transactionsFile.getPath(), lines, accounts, 0.1);
+
+        System.out.println("group,ms,lines/sec");
+        int[] groups = { 0, 1024, 64, 1 }; // 0 runs without a journal
+        for (int g = 0; g < groups.length; g++) {
+            File directory = Files.createTempDirectory("bench-journal").toFile();
+            Bank bank = new Bank();
+            TransactionJournal journal = null;
+            if (groups[g] == 0) {
+                bank.loadAccounts(accountsFile.getPath());
+            } else {
+                journal = new TransactionJournal(
+                        bank, directory.getPath(), groups[g], 0);
+                journal.recover(accountsFile.getPath(), quietAudit());
+                bank.setJournal(journal);
+            }
+            // a single fsync per line is slow, so only run a slice of them
+            int run = groups[g] == 1 ? Math.min(lines, 10_000) : lines;
+            File slice = transactionsFile;
+            if (run < lines) {
+                slice = File.createTempFile("bench-slice", ".csv");
+                slice.deleteOnExit();
+                Files.write(slice.toPath(), Files.readAllLines(
+                        transactionsFile.toPath()).subList(0, run));
+            }
+            long start = System.nanoTime();
+            bank.processTransactionFile(slice.getPath(), quietAudit());
+            double millis = BenchSupport.millisSince(start);
+            System.out.println(String.format(
+                    "%d,%.0f,%.0f", groups[g], millis, run / millis * 1000));
+
+            if (journal != null && groups[g] == 1024) {
+                journal.close();
+                Bank restarted = new Bank();
+                TransactionJournal reopened = new TransactionJournal(
+                        restarted, directory.getPath(), 1024, 0);
+                start = System.nanoTime();
+                int replayed = reopened.recover(
+                        accountsFile.getPath(), quietAudit());
+                System.out.println(String.format(
+                        "recover %d records: %.0f ms",
+                        replayed,
+                        BenchSupport.millisSince(start)));
+                start = System.nanoTime();
+                reopened.checkpoint();
+                System.out.println(String.format(
+                        "checkpoint %d accounts: %.0f ms",
+                        restarted.getCount(),
+                        BenchSupport.millisSince(start)));
+                reopened.close();
+            } else if (journal != null) {
+                journal.close();
+            }
+        }
+    }
+
+    static Audit quietAudit() {
+        return new Audit(Writer.nullWriter());
+    }
+}
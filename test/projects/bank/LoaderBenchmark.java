@@ -0,0 +1,55 @@
+package projects.bank;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Compares Bank.loadAccounts (Scanner and split) with
+ * Bank.loadAccountsMapped on a generated accounts snapshot.
+ *
+ * Argument: snapshot size in MB (default 100). A 1 GB snapshot holds about
+ * 30 million accounts and needs a heap of roughly 8 GB (-Xmx8g).
+ */
+public class LoaderBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int megabytes = 100;
+        if (args.length > 0) {
+            megabytes = Integer.parseInt(args[0]);
+        }
+        // generated lines average about 35 bytes
+        int accounts = (int) (megabytes * 1_000_000L / 35);
+
+        File file = File.createTempFile("bench-accounts", ".csv");
+        file.deleteOnExit();
+        BenchSupport.writeAccountsFile(file.getPath(), accounts);
+        System.out.println(String.format(
+                "%d accounts, %.1f MB",
+                accounts,
+                file.length() / 1e6));
+
+        System.out.println("loader,ms,MB/sec");
+        for (int round = 0; round < 2; round++) { // first round warms up
+            Bank bank = new Bank();
+            System.gc();
+            long start = System.nanoTime();
+            bank.loadAccounts(file.getPath());
+            report("scanner", start, file);
+
+            bank = new Bank();
+            System.gc();
+            start = System.nanoTime();
+            bank.loadAccountsMapped(file.getPath());
+            report("mapped", start, file);
+        }
+    }
+
+    static void report(String name, long start, File file) {
+        double millis = BenchSupport.millisSince(start);
+        System.out.println(String.format(
+                "%s,%.0f,%.1f",
+                name,
+                millis,
+                file.length() / 1e3 / millis));
+    }
+}
@@ -0,0 +1,78 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MappedAccountLoaderTest {
+
+    private Bank bank;
+
+    @BeforeEach
+    void setup() {
+        bank = new Bank();
+    }
+
+    /*
+     * Test loadAccountsMapped() returns false when invalid file is passed.
+     */
+    @Test
+    void loadAccountsMappedFailTest() {
+        assertEquals(false, bank.loadAccountsMapped("not/a/real.file"));
+    }
+
+    /*
+     * Test confirms the mapped loader reads the same accounts as
+     * loadAccounts, with CRLF line ends, mixed-case types and no final line
+     * separator.
+     */
+    @Test
+    void matchesLoadAccountsTest() throws IOException {
+        File file = File.createTempFile("accounts", ".csv");
+        file.deleteOnExit();
+        try (FileWriter out = new FileWriter(file)) {
+            out.write("savings,wz240833,Anna Gomez,8111\r\n");
+            out.write("CHECKING,hr108256,Anna Gomez,1715.18\r\n");
+            out.write("Savings,rp332960,José Peña,-12.5");
+        }
+
+        assertEquals(true, bank.loadAccountsMapped(file.getPath()));
+        Account[] mapped = bank.getAccounts();
+
+        Bank scanned = new Bank();
+        scanned.loadAccounts(file.getPath());
+        Account[] expected = scanned.getAccounts();
+
+        assertEquals(3, mapped.length);
+        assertEquals(expected.length, mapped.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].toCSV(), mapped[i].toCSV());
+        }
+        assertEquals("José Peña", mapped[2].getOwner());
+        assertEquals(-1250, mapped[2].getCurrentBalanceCents());
+    }
+
+    /*
+     * Test confirms an unknown account type is rejected.
+     */
+    @Test
+    void invalidTypeTest() throws IOException {
+        File file = File.createTempFile("accounts", ".csv");
+        file.deleteOnExit();
+        try (FileWriter out = new FileWriter(file)) {
+            out.write("brokerage,wz240833,Anna Gomez,8111\n");
+        }
+        Exception e = assertThrows(
+                IllegalArgumentException.class,
+                () -> {
+                    new MappedAccountLoader(bank).load(file.getPath());
+                });
+        assertEquals("Invalid account type.", e.getMessage());
+    }
+
+} // end: class MappedAccountLoaderTest
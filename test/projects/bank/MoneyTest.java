@@ -0,0 +1,126 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class MoneyTest {
+
+    /*
+     * Test confirms decimal amounts are parsed into exact cents.
+     */
+    @Test
+    void parseCentsTest() {
+        assertEquals(811100, Money.parseCents("8111"));
+        assertEquals(171518, Money.parseCents("1715.18"));
+        assertEquals(1250, Money.parseCents("12.5"));
+        assertEquals(25, Money.parseCents(".25"));
+        assertEquals(-1234, Money.parseCents("-12.34"));
+        // digits past the second decimal round half up
+        assertEquals(1001, Money.parseCents("10.005"));
+        assertEquals(1000, Money.parseCents("10.0049"));
+        // a range inside a larger line
+        assertEquals(26757, Money.parseCents("withdrawal,rp332960,267.57", 20, 26));
+    }
+
+    /*
+     * Test confirms text that is not a number is rejected.
+     */
+    @Test
+    void parseCentsRejectsInvalidTest() {
+        Exception e = assertThrows(
+                NumberFormatException.class,
+                () -> {
+                    Money.parseCents("12a.00");
+                });
+        assertEquals("invalid amount: \"12a.00\"", e.getMessage());
+        assertThrows(
+                NumberFormatException.class,
+                () -> {
+                    Money.parseCents("");
+                });
+        assertThrows(
+                NumberFormatException.class,
+                () -> {
+                    Money.parseCents("-");
+                });
+    }
+
+    /*
+     * Test confirms amounts too large for a long of cents are rejected
+     * instead of wrapping around.
+     */
+    @Test
+    void parseCentsRejectsOverflowTest() {
+        assertEquals(Long.MAX_VALUE, Money.parseCents("92233720368547758.07"));
+        assertEquals(-Long.MAX_VALUE, Money.parseCents("-92233720368547758.07"));
+        Exception e = assertThrows(
+                IllegalArgumentException.class,
+                () -> {
+                    Money.parseCents("92233720368547758.08");
+                });
+        assertEquals(
+                "amount out of range: \"92233720368547758.08\"",
+                e.getMessage());
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> {
+                    Money.parseCents("92233720368547758.075");
+                });
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> {
+                    Money.parseCents("100000000000000000000");
+                });
+    }
+
+    /*
+     * Test confirms amounts are formatted like String.format("%.2f").
+     */
+    @Test
+    void formatTest() {
+        long[] samples = { 0, 5, 50, 811100, 171518, -50, -171518 };
+        for (int i = 0; i < samples.length; i++) {
+            assertEquals(
+                    String.format("%.2f", samples[i] / 100.0),
+                    Money.format(samples[i]));
+        }
+        // too large for a double to hold exactly
+        assertEquals("92233720368547758.07", Money.format(Long.MAX_VALUE));
+        assertEquals("-92233720368547758.08", Money.format(Long.MIN_VALUE));
+    }
+
+    /*
+     * Test confirms dollar amounts convert to cents and back exactly.
+     */
+    @Test
+    void conversionTest() {
+        assertEquals(26757, Money.toCents(267.57));
+        assertEquals(267.57, Money.toDouble(26757));
+        assertEquals(12.51, Money.toDouble(Money.toCents(10.0) + 251));
+    }
+
+    /*
+     * Test confirms the factories keep amounts in cents exactly, past the
+     * 2^53 cents a double holds exactly and up to Long.MAX_VALUE.
+     */
+    @Test
+    void factoriesKeepCentsTest() {
+        long odd = (1L << 53) + 1;
+        assertEquals(
+                odd,
+                Account.make(AccountType.CHECKING, "id", "Owner Name", odd)
+                        .getCurrentBalanceCents());
+        assertEquals(
+                Long.MAX_VALUE,
+                Account.make("savings,id,Owner Name,92233720368547758.07")
+                        .getCurrentBalanceCents());
+        assertEquals(
+                odd,
+                Transaction.make("withdrawal,id,90071992547409.93").getAmountCents());
+        assertEquals(
+                Long.MAX_VALUE,
+                Transaction.make("deposit,id,92233720368547758.07").getAmountCents());
+    }
+
+} // end: class MoneyTest
@@ -0,0 +1,62 @@
+package projects.bank;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Compares Bank.processTransactions with ParallelProcessor at 1 to 32
+ * threads on the same generated feed.
+ *
+ * Arguments: number of transactions (default 2 million) and number of
+ * accounts (default 100 thousand). Run from the repository root, since
+ * processTransactions writes data/audit.log.
+ */
+public class ParallelBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int transactions = 2_000_000;
+        int accounts = 100_000;
+        if (args.length > 0) {
+            transactions = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            accounts = Integer.parseInt(args[1]);
+        }
+
+        File accountsFile = File.createTempFile("bench-accounts", ".csv");
+        File transactionsFile = File.createTempFile("bench-trs", ".csv");
+        File auditFile = File.createTempFile("bench-audit", ".log");
+        accountsFile.deleteOnExit();
+        transactionsFile.deleteOnExit();
+        auditFile.deleteOnExit();
+        BenchSupport.writeAccountsFile(accountsFile.getPath(), accounts);
+        BenchSupport.writeTransactionsFile(
+                transactionsFile.getPath(), transactions, accounts, 0.1);
+
+        Bank bank = new Bank();
+        bank.loadAccounts(accountsFile.getPath());
+        Transaction[] trs = bank.loadTransactions(transactionsFile.getPath());
+
+        long start = System.nanoTime();
+        bank.processTransactions(trs);
+        double sequentialMillis = BenchSupport.millisSince(start);
+        System.out.println(String.format(
+                "sequential: %.0f ms, %.0f tx/sec",
+                sequentialMillis,
+                transactions / sequentialMillis * 1000));
+
+        System.out.println("threads,ms,tx/sec,speedup");
+        for (int threads = 1; threads <= 32; threads *= 2) {
+            ParallelProcessor processor = new ParallelProcessor(bank, threads);
+            start = System.nanoTime();
+            processor.process(trs, transactions, auditFile.getPath());
+            double millis = BenchSupport.millisSince(start);
+            System.out.println(String.format(
+                    "%d,%.0f,%.0f,%.2f",
+                    threads,
+                    millis,
+                    transactions / millis * 1000,
+                    sequentialMillis / millis));
+        }
+    }
+}
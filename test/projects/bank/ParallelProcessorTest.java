@@ -0,0 +1,97 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ParallelProcessorTest {
+
+        private Bank bank;
+        private Transaction[] trs;
+
+        /*
+         * Setting up the bank and transactions of TestFixtures.
+         */
+        @BeforeEach
+        void setup() {
+                bank = TestFixtures.bank(20);
+                trs = TestFixtures.transactions(500);
+        }
+
+        /*
+         * Test confirms the constructor rejects invalid arguments.
+         */
+        @Test
+        void constructorDataValidationTest() {
+                Exception e = assertThrows(
+                                IllegalArgumentException.class,
+                                () -> {
+                                        new ParallelProcessor(null, 2);
+                                });
+                assertEquals("bank must not be null.", e.getMessage());
+
+                e = assertThrows(
+                                IllegalArgumentException.class,
+                                () -> {
+                                        new ParallelProcessor(bank, 0);
+                                });
+                assertEquals("threads must be at least 1.", e.getMessage());
+        }
+
+        /*
+         * Test confirms 4 threads process the same transactions as 1 thread
+         * and write the same audit lines in the same order.
+         */
+        @Test
+        void parallelMatchesSequentialTest() throws IOException {
+                StringWriter sequential = new StringWriter();
+                int expected = new ParallelProcessor(bank, 1).process(
+                                trs, trs.length, sequential);
+
+                StringWriter parallel = new StringWriter();
+                ParallelProcessor processor = new ParallelProcessor(bank, 4);
+                assertEquals(expected, processor.process(trs, trs.length, parallel));
+                assertEquals(trs.length, processor.getStats().getTransactions());
+
+                String[] sequentialLines = sequential.toString().split("\\R");
+                String[] parallelLines = parallel.toString().split("\\R");
+                assertEquals(trs.length, sequentialLines.length);
+                assertEquals(sequentialLines.length, parallelLines.length);
+                for (int i = 0; i < sequentialLines.length; i++) {
+                        // avoiding timestamps
+                        assertEquals(
+                                        withoutTimestamp(sequentialLines[i]),
+                                        withoutTimestamp(parallelLines[i]));
+                        assertTrue(parallelLines[i].contains(trs[i].toString()));
+                }
+        }
+
+        /*
+         * Test confirms an interrupted run is reported as failed rather than
+         * returning the count of the transactions applied so far.
+         */
+        @Test
+        void interruptedTest() {
+                ParallelProcessor processor = new ParallelProcessor(bank, 4);
+                Thread.currentThread().interrupt();
+                try {
+                        assertThrows(
+                                        InterruptedIOException.class,
+                                        () -> processor.process(
+                                                        trs, trs.length, new StringWriter()));
+                        assertTrue(Thread.currentThread().isInterrupted());
+                } finally {
+                        Thread.interrupted(); // clear it for the next tests
+                }
+        }
+
+        private static String withoutTimestamp(String line) {
+                return line.substring(line.indexOf(' ') + 1);
+        }
+
+} // end: class ParallelProcessorTest
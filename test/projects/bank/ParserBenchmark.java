@@ -0,0 +1,130 @@
+package projects.bank;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compares ways of turning a transactions file into transactions: lines
+ * per second and heap bytes allocated per line.
+ *
+ * split factory - readLine and the former Transaction.make, which split
+ *                 the line, upper-cased the type and built a Deposit even
+ *                 for withdrawals
+ * make          - readLine and the current Transaction.make
+ * parser        - TransactionParser filling one TransactionRecord
+ * parser+object - the same, plus toTransaction for every line
+ *
+ * Argument: number of lines (default 10 million).
+ */
+public class ParserBenchmark {
+
+    interface Run {
+        long run(String fileName) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int lines = BenchSupport.sizes(args, 10_000_000)[0];
+        File file = File.createTempFile("bench-trs", ".csv");
+        file.deleteOnExit();
+        BenchSupport.writeTransactionsFile(file.getPath(), lines, 1_000_000, 0.1);
+
+        String[] names = { "split factory", "make", "parser", "parser+object" };
+        Run[] runs = {
+                ParserBenchmark::splitFactory,
+                ParserBenchmark::make,
+                ParserBenchmark::parser,
+                ParserBenchmark::parserObjects };
+        System.out.println("parser,ms,lines/sec,bytes/line");
+        for (int round = 0; round < 3; round++) { // first round warms up
+            for (int i = 0; i < runs.length; i++) {
+                long allocated = allocatedBytes();
+                long start = System.nanoTime();
+                long checksum = runs[i].run(file.getPath());
+                double millis = BenchSupport.millisSince(start);
+                allocated = allocatedBytes() - allocated;
+                if (round > 0) {
+                    System.out.println(String.format(
+                            "%s,%.0f,%.0f,%.1f",
+                            names[i],
+                            millis,
+                            lines / millis * 1000,
+                            (double) allocated / lines));
+                }
+                if (checksum == 0) {
+                    System.out.println("nothing parsed");
+                }
+            }
+        }
+    }
+
+    static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Transaction.make before the parser work.
+     */
+    static Transaction oldMake(String line) {
+        String[] token = line.split(",");
+        TransactionType type = TransactionType.valueOf(token[0].toUpperCase());
+        String id = token[1];
+        double amount = Money.toDouble(Money.parseCents(token[2]));
+        Transaction dep = new Deposit(id, amount);
+        if (type == TransactionType.WITHDRAWAL) {
+            return new Withdrawal(id, amount);
+        }
+        return dep;
+    }
+
+    static long splitFactory(String fileName) throws IOException {
+        long checksum = 0;
+        try (BufferedReader in = new BufferedReader(
+                new FileReader(fileName), 1 << 16)) {
+            String line = in.readLine();
+            while (line != null) {
+                checksum += oldMake(line).getAmountCents();
+                line = in.readLine();
+            }
+        }
+        return checksum;
+    }
+
+    static long make(String fileName) throws IOException {
+        long checksum = 0;
+        try (BufferedReader in = new BufferedReader(
+                new FileReader(fileName), 1 << 16)) {
+            String line = in.readLine();
+            while (line != null) {
+                checksum += Transaction.make(line).getAmountCents();
+                line = in.readLine();
+            }
+        }
+        return checksum;
+    }
+
+    static long parser(String fileName) throws IOException {
+        long checksum = 0;
+        TransactionRecord record = new TransactionRecord();
+        try (TransactionParser in = new TransactionParser(fileName)) {
+            while (in.next(record)) {
+                checksum += record.getAmountCents() + record.getPackedID();
+            }
+        }
+        return checksum;
+    }
+
+    static long parserObjects(String fileName) throws IOException {
+        long checksum = 0;
+        TransactionRecord record = new TransactionRecord();
+        try (TransactionParser in = new TransactionParser(fileName)) {
+            while (in.next(record)) {
+                checksum += record.toTransaction().getAmountCents();
+            }
+        }
+        return checksum;
+    }
+}
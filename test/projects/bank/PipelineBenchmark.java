@@ -0,0 +1,68 @@
+package projects.bank;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Compares phase 3 run one step after the other - loadAccounts,
+ * loadTransactions, processing and writeAccounts - with
+ * TransactionPipeline on the same generated files, then prints the
+ * pipeline's stage report.
+ *
+ * Arguments: number of accounts (default 1 million) and number of
+ * transactions (default 5 million).
+ */
+public class PipelineBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = BenchSupport.sizes(args, 1_000_000, 5_000_000);
+        int accounts = sizes[0];
+        int count = sizes[1];
+        File accountsFile = File.createTempFile("bench-accounts", ".csv");
+        accountsFile.deleteOnExit();
+        BenchSupport.writeAccountsFile(accountsFile.getPath(), accounts);
+        File transactionsFile = File.createTempFile("bench-trs", ".csv");
+        transactionsFile.deleteOnExit();
+        BenchSupport.writeTransactionsFile(
+                transactionsFile.getPath(), count, accounts, 0.05);
+        File audit = File.createTempFile("bench-audit", ".log");
+        audit.deleteOnExit();
+        File accountsOut = File.createTempFile("bench-accounts-out", ".csv");
+        accountsOut.deleteOnExit();
+
+        System.out.println("mode,ms,transactions/sec");
+        TransactionPipeline pipeline = null;
+        for (int round = 0; round < 2; round++) { // first round warms up
+            long start = System.nanoTime();
+            Bank bank = new Bank();
+            bank.loadAccounts(accountsFile.getPath());
+            Transaction[] trs = bank.loadTransactions(transactionsFile.getPath());
+            Audit out = new Audit(audit.getPath());
+            ProcessingStats stats = new ProcessingStats();
+            for (int i = 0; i < bank.getTransactionsCount(); i++) {
+                bank.apply(trs[i], out, stats); // as processTransactions
+            }
+            out.close();
+            bank.writeAccounts(accountsOut.getPath());
+            print(round, "sequential", count, start);
+
+            start = System.nanoTime();
+            pipeline = new TransactionPipeline(new Bank());
+            pipeline.run(
+                    accountsFile.getPath(),
+                    transactionsFile.getPath(),
+                    audit.getPath(),
+                    accountsOut.getPath());
+            print(round, "pipelined", count, start);
+        }
+        System.out.println(pipeline);
+    }
+
+    static void print(int round, String mode, int count, long start) {
+        double millis = BenchSupport.millisSince(start);
+        if (round > 0) {
+            System.out.println(String.format(
+                    "%s,%.0f,%.0f", mode, millis, count / millis * 1000));
+        }
+    }
+}
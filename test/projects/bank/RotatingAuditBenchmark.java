@@ -0,0 +1,102 @@
+package projects.bank;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Writes audit lines for many accounts through RotatingAudit, plain and
+ * compressed, then compares reading one account's history through the
+ * segment indexes with scanning every line.
+ *
+ * Arguments: number of audit lines (default 5 million), number of accounts
+ * (default 100 thousand) and segment size in MB (default 64).
+ */
+public class RotatingAuditBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = BenchSupport.sizes(args, 5_000_000, 100_000, 64);
+        int lines = sizes[0];
+        int accounts = sizes[1];
+        long segmentBytes = sizes[2] * 1_000_000L;
+        Transaction[] trs = new Transaction[accounts];
+        for (int i = 0; i < accounts; i++) {
+            trs[i] = new Deposit(BenchSupport.accountID(i), 1 + i % 1000);
+        }
+        String wanted = BenchSupport.accountID(accounts / 2);
+
+        System.out.println("mode,write ms,segments,MB on disk,history ms,lines");
+        for (boolean compress : new boolean[] { false, true }) {
+            File directory = Files.createTempDirectory("bench-audit").toFile();
+            RotatingAudit audit = new RotatingAudit(
+                    directory.getPath(), "audit", segmentBytes, 0, compress);
+            long start = System.nanoTime();
+            for (int i = 0; i < lines; i++) {
+                // spread accounts so each block mentions many of them
+                audit.recordExecute(trs[(int) (i * 7919L % accounts)], i);
+            }
+            audit.close();
+            double writeMillis = BenchSupport.millisSince(start);
+
+            start = System.nanoTime();
+            int found = RotatingAudit.readHistory(
+                    directory.getPath(), "audit", wanted).size();
+            double historyMillis = BenchSupport.millisSince(start);
+            System.out.println(String.format(
+                    "%s,%.0f,%d,%.1f,%.1f,%d",
+                    compress ? "gzip" : "plain",
+                    writeMillis,
+                    audit.getSegments(),
+                    diskBytes(directory) / 1e6,
+                    historyMillis,
+                    found));
+
+            if (!compress) {
+                start = System.nanoTime();
+                int scanned = scan(directory, "," + wanted + ",");
+                System.out.println(String.format(
+                        "full scan,,,,%.1f,%d",
+                        BenchSupport.millisSince(start),
+                        scanned));
+            }
+            deleteAll(directory);
+        }
+    }
+
+    static int scan(File directory, String field) throws IOException {
+        int found = 0;
+        File[] segments = directory.listFiles((dir, name) -> name.endsWith(".log"));
+        for (int i = 0; i < segments.length; i++) {
+            try (BufferedReader in = new BufferedReader(
+                    new FileReader(segments[i]), 1 << 16)) {
+                String line = in.readLine();
+                while (line != null) {
+                    if (line.contains(field)) {
+                        found++;
+                    }
+                    line = in.readLine();
+                }
+            }
+        }
+        return found;
+    }
+
+    static long diskBytes(File directory) {
+        long total = 0;
+        File[] files = directory.listFiles();
+        for (int i = 0; i < files.length; i++) {
+            total += files[i].length();
+        }
+        return total;
+    }
+
+    static void deleteAll(File directory) {
+        File[] files = directory.listFiles();
+        for (int i = 0; i < files.length; i++) {
+            files[i].delete();
+        }
+        directory.delete();
+    }
+}
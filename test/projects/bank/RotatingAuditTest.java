@@ -0,0 +1,177 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class RotatingAuditTest {
+
+    private File directory;
+
+    /*
+     * Setting up an empty directory for the segments.
+     */
+    @BeforeEach
+    void setup() throws IOException {
+        directory = Files.createTempDirectory("audit").toFile();
+        directory.deleteOnExit();
+    }
+
+    /*
+     * Write 3000 execute lines spread over three accounts.
+     */
+    private void writeLines(RotatingAudit audit) {
+        for (int i = 0; i < 3000; i++) {
+            Transaction tx = new Deposit("id" + (i % 3), 1 + i % 100);
+            audit.recordExecute(tx, 100 * i);
+        }
+    }
+
+    private int count(String suffix) {
+        return directory.list((dir, name) -> name.endsWith(suffix)).length;
+    }
+
+    /*
+     * Test confirms segments rotate by size and an account's history is
+     * read back complete and in order.
+     */
+    @Test
+    void sizeRotationTest() throws IOException {
+        RotatingAudit audit = new RotatingAudit(
+                directory.getPath(), "audit", 20_000, 0, false);
+        writeLines(audit);
+        audit.close();
+        assertTrue(audit.getSegments() > 1);
+        assertEquals(audit.getSegments(), count(".idx"));
+        assertEquals(audit.getSegments(), count(".log"));
+
+        List<String> history = RotatingAudit.readHistory(
+                directory.getPath(), "audit", "id1");
+        assertEquals(1000, history.size());
+        for (int i = 0; i < history.size(); i++) {
+            int line = i * 3 + 1;
+            assertTrue(history.get(i).contains(
+                    "deposit,id1," + (1 + line % 100) + ".00,"));
+        }
+        assertEquals(0, RotatingAudit.readHistory(
+                directory.getPath(), "audit", "id9").size());
+    }
+
+    /*
+     * Test confirms compressed segments are still valid GZIP files holding
+     * every line, and can be read by account.
+     */
+    @Test
+    void compressionTest() throws IOException {
+        RotatingAudit audit = new RotatingAudit(
+                directory.getPath(), "audit", 100_000, 0, true);
+        writeLines(audit);
+        audit.close();
+        audit.close(); // closing again does nothing
+        assertEquals(0, count(".log"));
+        assertEquals(audit.getSegments(), count(".log.gz"));
+
+        int lines = 0;
+        File[] segments = directory.listFiles(
+                (dir, name) -> name.endsWith(".log.gz"));
+        for (int i = 0; i < segments.length; i++) {
+            try (GZIPInputStream in = new GZIPInputStream(
+                    new FileInputStream(segments[i]))) {
+                String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                lines += text.split("\\R").length;
+            }
+        }
+        assertEquals(3000, lines);
+        assertEquals(1000, RotatingAudit.readHistory(
+                directory.getPath(), "audit", "id2").size());
+    }
+
+    /*
+     * Test confirms a segment a crash left compressed but not yet indexed
+     * still has its raw lines, and that the next audit indexes and
+     * compresses it again.
+     */
+    @Test
+    void compressionCrashTest() throws IOException {
+        RotatingAudit audit = new RotatingAudit(
+                directory.getPath(), "audit", 20_000, 0, false);
+        writeLines(audit);
+        audit.close();
+        int segments = audit.getSegments();
+        // the state between renaming the .gz and writing the .idx
+        File index = new File(directory, "audit-000001.idx");
+        assertTrue(index.delete());
+        Files.write(
+                new File(directory, "audit-000001.log.gz").toPath(),
+                new byte[] { 0x1f, (byte) 0x8b });
+        assertEquals(0, RotatingAudit.readHistory(
+                directory.getPath(), "audit", "id9").size());
+
+        audit = new RotatingAudit(
+                directory.getPath(), "audit", 20_000, 0, true);
+        audit.close();
+        assertTrue(index.exists());
+        assertEquals(0, count(".tmp"));
+        assertEquals(segments - 1, count(".log"));
+        assertEquals(2, count(".log.gz"));
+
+        List<String> history = RotatingAudit.readHistory(
+                directory.getPath(), "audit", "id1");
+        assertEquals(1000, history.size());
+        for (int i = 0; i < history.size(); i++) {
+            int line = i * 3 + 1;
+            assertTrue(history.get(i).contains(
+                    "deposit,id1," + (1 + line % 100) + ".00,"));
+        }
+    }
+
+    /*
+     * Test confirms segments rotate by age, and a new audit carries on the
+     * numbering instead of overwriting.
+     */
+    @Test
+    void timeRotationTest() throws IOException, InterruptedException {
+        RotatingAudit audit = new RotatingAudit(
+                directory.getPath(), "audit", 0, 1, false);
+        audit.recordExecute(new Deposit("id0", 1.0), 100);
+        Thread.sleep(5);
+        audit.recordExecute(new Deposit("id0", 1.0), 100);
+        audit.close();
+        assertEquals(2, audit.getSegments());
+
+        RotatingAudit next = new RotatingAudit(
+                directory.getPath(), "audit", 0, 0, false);
+        next.recordExecute(new Deposit("id0", 1.0), 100);
+        next.close();
+        assertTrue(new File(directory, "audit-000003.idx").exists());
+        assertEquals(3, RotatingAudit.readHistory(
+                directory.getPath(), "audit", "id0").size());
+    }
+
+    /*
+     * Test confirms invalid arguments are rejected.
+     */
+    @Test
+    void dataValidationTest() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> {
+                    new RotatingAudit(null, "audit", 0, 0, false);
+                });
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> {
+                    new RotatingAudit(directory.getPath(), "audit", -1, 0, false);
+                });
+    }
+
+} // end: class RotatingAuditTest
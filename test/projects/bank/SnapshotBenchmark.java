@@ -0,0 +1,67 @@
+package projects.bank;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Compares cold-start loading from the accounts CSV file (Scanner and
+ * mapped) with loading a binary snapshot, and the cost of writing each.
+ *
+ * Argument: number of accounts (default 2 million).
+ */
+public class SnapshotBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int accounts = 2_000_000;
+        if (args.length > 0) {
+            accounts = Integer.parseInt(args[0]);
+        }
+        File csv = File.createTempFile("bench-accounts", ".csv");
+        File csvOut = File.createTempFile("bench-accounts-out", ".csv");
+        File snapshot = File.createTempFile("bench-accounts", ".snapshot");
+        csv.deleteOnExit();
+        csvOut.deleteOnExit();
+        snapshot.deleteOnExit();
+        BenchSupport.writeAccountsFile(csv.getPath(), accounts);
+
+        System.out.println("step,ms,MB");
+        for (int round = 0; round < 2; round++) { // first round warms up
+            Bank bank = new Bank();
+            System.gc();
+            long start = System.nanoTime();
+            bank.loadAccounts(csv.getPath());
+            report("load csv (scanner)", start, csv);
+
+            bank = new Bank();
+            System.gc();
+            start = System.nanoTime();
+            bank.loadAccountsMapped(csv.getPath());
+            report("load csv (mapped)", start, csv);
+
+            start = System.nanoTime();
+            bank.writeAccounts(csvOut.getPath());
+            report("write csv", start, csvOut);
+
+            start = System.nanoTime();
+            bank.writeSnapshot(snapshot.getPath());
+            report("write snapshot", start, snapshot);
+
+            bank = new Bank();
+            System.gc();
+            start = System.nanoTime();
+            bank.loadSnapshot(snapshot.getPath());
+            report("load snapshot", start, snapshot);
+            if (bank.getCount() != accounts) {
+                throw new IllegalStateException("snapshot lost accounts.");
+            }
+        }
+    }
+
+    static void report(String step, long start, File file) {
+        System.out.println(String.format(
+                "%s,%.0f,%.1f",
+                step,
+                BenchSupport.millisSince(start),
+                file.length() / 1e6));
+    }
+}
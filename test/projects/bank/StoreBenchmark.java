@@ -0,0 +1,77 @@
+package projects.bank;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Compares the object-per-account Bank with the columnar AccountStore:
+ * heap retained per account after loading, and transactions per second.
+ *
+ * Arguments: number of accounts (default 1 million) and number of
+ * transactions (default 5 million).
+ */
+public class StoreBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = BenchSupport.sizes(args, 1_000_000, 5_000_000);
+        int accounts = sizes[0];
+        int count = sizes[1];
+        File accountsFile = File.createTempFile("bench-accounts", ".csv");
+        File transactionsFile = File.createTempFile("bench-trs", ".csv");
+        accountsFile.deleteOnExit();
+        transactionsFile.deleteOnExit();
+        BenchSupport.writeAccountsFile(accountsFile.getPath(), accounts);
+        BenchSupport.writeTransactionsFile(
+                transactionsFile.getPath(), count, accounts, 0.1);
+
+        // both models load the same CSV file, so the ID Strings cost the same
+        long before = usedHeap();
+        Bank bank = new Bank();
+        bank.loadAccounts(accountsFile.getPath());
+        long bankHeap = usedHeap() - before;
+
+        before = usedHeap();
+        AccountStore store = new AccountStore(0);
+        store.loadAccounts(accountsFile.getPath());
+        long storeHeap = usedHeap() - before;
+
+        System.out.println("model,bytes/account");
+        System.out.println(String.format(
+                "objects,%.1f", (double) bankHeap / accounts));
+        System.out.println(String.format(
+                "columnar,%.1f", (double) storeHeap / accounts));
+
+        Transaction[] trs = bank.loadTransactions(transactionsFile.getPath());
+        int loaded = bank.getTransactionsCount();
+        System.out.println("model,ms,transactions/sec");
+        for (int round = 0; round < 3; round++) { // first round warms up
+            Audit audit = new Audit(Writer.nullWriter());
+            ProcessingStats stats = new ProcessingStats();
+            long start = System.nanoTime();
+            for (int i = 0; i < loaded; i++) {
+                bank.apply(trs[i], audit, stats);
+            }
+            report("objects", start, loaded);
+
+            start = System.nanoTime();
+            store.processTransactions(trs, loaded, audit);
+            report("columnar", start, loaded);
+            audit.close();
+        }
+    }
+
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    static void report(String model, long start, int count) {
+        double millis = BenchSupport.millisSince(start);
+        System.out.println(String.format(
+                "%s,%.0f,%.0f", model, millis, count / millis * 1000));
+    }
+}
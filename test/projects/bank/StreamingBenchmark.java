@@ -0,0 +1,84 @@
+package projects.bank;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+
+/**
+ * Streams a generated transactions file through
+ * Bank.processTransactionFile and reports lines per second, peak heap and
+ * the per-stage counters.
+ *
+ * Arguments: number of transaction lines (default 10 million) and number of
+ * accounts (default 100 thousand). At about 27 bytes a line, 100 million
+ * lines make a file of roughly 2.7 GB.
+ */
+public class StreamingBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        long lines = 10_000_000L;
+        int accounts = 100_000;
+        if (args.length > 0) {
+            lines = Long.parseLong(args[0]);
+        }
+        if (args.length > 1) {
+            accounts = Integer.parseInt(args[1]);
+        }
+
+        File accountsFile = File.createTempFile("bench-accounts", ".csv");
+        File transactionsFile = File.createTempFile("bench-trs", ".csv");
+        File auditFile = File.createTempFile("bench-audit", ".log");
+        accountsFile.deleteOnExit();
+        transactionsFile.deleteOnExit();
+        auditFile.deleteOnExit();
+        BenchSupport.writeAccountsFile(accountsFile.getPath(), accounts);
+        BenchSupport.writeTransactionsFile(
+                transactionsFile.getPath(), lines, accounts, 0.1);
+
+        Bank bank = new Bank();
+        bank.loadAccounts(accountsFile.getPath());
+        System.gc();
+        resetPeakHeap();
+
+        long start = System.nanoTime();
+        int processed = bank.processTransactionFile(
+                transactionsFile.getPath(), auditFile.getPath());
+        double seconds = BenchSupport.millisSince(start) / 1000;
+
+        System.out.println(String.format(
+                "lines: %d (%.1f MB), processed: %d",
+                lines,
+                transactionsFile.length() / 1e6,
+                processed));
+        System.out.println(String.format(
+                "%.0f lines/sec, peak heap %.1f MB",
+                lines / seconds,
+                peakHeap() / 1e6));
+        System.out.println(bank.getStats());
+    }
+
+    static void resetPeakHeap() {
+        List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+        for (int i = 0; i < pools.size(); i++) {
+            pools.get(i).resetPeakUsage();
+        }
+    }
+
+    /**
+     * @return the sum of the peak usage of every heap pool since the last
+     *         reset.
+     */
+    static long peakHeap() {
+        long peak = 0;
+        List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+        for (int i = 0; i < pools.size(); i++) {
+            if (pools.get(i).getType() == MemoryType.HEAP) {
+                peak += pools.get(i).getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,76 @@
+package projects.bank;
+
+/**
+ * Fixtures shared by the bank tests: a bank of small checking accounts and
+ * a fixed mix of deposits and withdrawals against it. Each test takes only
+ * the parts it needs and adds its own accounts on top.
+ *
+ * Most tests use bank(20) or mixedBank(20) with transactions(500): some of
+ * the withdrawals overdraw their account, and those for "id20" to "id22"
+ * target accounts the bank does not hold.
+ */
+public class TestFixtures {
+
+    /** Account IDs the transactions cycle through, "id0" to "id22". */
+    public static final int TRANSACTION_IDS = 23;
+
+    /**
+     * Bank holding checking accounts "id0" up to "id{count - 1}", each
+     * owned by "Owner Name" with a balance of 100.00.
+     *
+     * @param count - number of accounts.
+     *
+     * @return the bank, with every earlier bank's accounts cleared.
+     */
+    public static Bank bank(int count) {
+        Bank bank = new Bank();
+        for (int i = 0; i < count; i++) {
+            bank.add(new CheckingAccount("id" + i, "Owner Name", 100.0));
+        }
+        return bank;
+    }
+
+    /**
+     * Bank like bank(count), except that every odd account is a savings
+     * account owned by "Owner {i}" with a balance of 50.25, so only the
+     * checking accounts share an owner name.
+     *
+     * @param count - number of accounts.
+     *
+     * @return the bank, with every earlier bank's accounts cleared.
+     */
+    public static Bank mixedBank(int count) {
+        Bank bank = new Bank();
+        for (int i = 0; i < count; i++) {
+            if (i % 2 == 0) {
+                bank.add(new CheckingAccount("id" + i, "Owner Name", 100.0));
+            } else {
+                bank.add(new SavingsAccount("id" + i, "Owner " + i, 50.25));
+            }
+        }
+        return bank;
+    }
+
+    /**
+     * Deposits and withdrawals against "id0" to "id22", taking the IDs in
+     * the order i * 7 % 23. Every third is a deposit of 1 to 50 dollars, the
+     * others withdraw 1 to 150 dollars, so some of them overdraw an account
+     * of bank(20), and the IDs it does not hold are absent.
+     *
+     * @param count - number of transactions.
+     *
+     * @return the transactions.
+     */
+    public static Transaction[] transactions(int count) {
+        Transaction[] trs = new Transaction[count];
+        for (int i = 0; i < count; i++) {
+            String id = "id" + (i * 7 % TRANSACTION_IDS);
+            if (i % 3 == 0) {
+                trs[i] = new Deposit(id, 1 + i % 50);
+            } else {
+                trs[i] = new Withdrawal(id, 1 + i % 150);
+            }
+        }
+        return trs;
+    }
+}
@@ -0,0 +1,87 @@
+package projects.bank;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Compares the cached lib.Utils timestamp with the previous implementation,
+ * which built a DateTimeFormatter and formatted the time on every call.
+ *
+ * Each variant runs warm-up rounds before the measured ones. Argument:
+ * calls per round (default 2 million).
+ */
+public class TimestampBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int calls = 2_000_000;
+        if (args.length > 0) {
+            calls = Integer.parseInt(args[0]);
+        }
+        System.out.println("variant,ns/op");
+        report("previous timestamp()", calls, TimestampBenchmark::previous);
+        report("lib.Utils.timestamp()", calls, TimestampBenchmark::cached);
+        report("lib.Utils.appendTimestamp()", calls,
+                TimestampBenchmark::append);
+    }
+
+    /**
+     * The implementation of lib.Utils.timestamp() before it was cached.
+     */
+    static String legacyTimestamp() {
+        return LocalDateTime.now().format(
+                DateTimeFormatter.ofPattern("yyyy-MM-dd@HH:mm:ss"));
+    }
+
+    static long previous(int calls) {
+        long sum = 0;
+        for (int i = 0; i < calls; i++) {
+            sum += legacyTimestamp().length();
+        }
+        return sum;
+    }
+
+    static long cached(int calls) {
+        long sum = 0;
+        for (int i = 0; i < calls; i++) {
+            sum += lib.Utils.timestamp().length();
+        }
+        return sum;
+    }
+
+    static long append(int calls) {
+        StringBuilder out = new StringBuilder(32);
+        long sum = 0;
+        for (int i = 0; i < calls; i++) {
+            out.setLength(0);
+            sum += lib.Utils.appendTimestamp(out).length();
+        }
+        return sum;
+    }
+
+    interface Variant {
+        long run(int calls);
+    }
+
+    /**
+     * Run warm-up rounds, then report the best measured round. The sum of
+     * lengths is checked so the JIT cannot drop the calls.
+     */
+    static void report(String name, int calls, Variant variant) {
+        for (int i = 0; i < ROUNDS; i++) {
+            variant.run(calls);
+        }
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            long sum = variant.run(calls);
+            double nanos = (System.nanoTime() - start) / (double) calls;
+            if (sum != 19L * calls) {
+                throw new IllegalStateException("unexpected timestamp length.");
+            }
+            best = Math.min(best, nanos);
+        }
+        System.out.println(String.format("%s,%.1f", name, best));
+    }
+}
@@ -0,0 +1,302 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TransactionJournalTest {
+
+    private File directory;
+    private File accounts;
+    private File transactions;
+
+    /*
+     * Setting up a journal directory, two accounts and three transactions,
+     * one of them for an account that does not exist.
+     */
+    @BeforeEach
+    void setup() throws IOException {
+        directory = Files.createTempDirectory("journal").toFile();
+        directory.deleteOnExit();
+        accounts = File.createTempFile("accounts", ".csv");
+        accounts.deleteOnExit();
+        try (FileWriter out = new FileWriter(accounts)) {
+            out.write("savings,wz240833,Anna Gomez,8111.00\n");
+            out.write("checking,hr108256,Anna Gomez,1715.18\n");
+        }
+        transactions = File.createTempFile("transactions", ".csv");
+        transactions.deleteOnExit();
+        try (FileWriter out = new FileWriter(transactions)) {
+            out.write("deposit,wz240833,500.00\n");
+            out.write("withdrawal,xx000000,10.00\n");
+            out.write("withdrawal,hr108256,15.18\n");
+        }
+    }
+
+    private TransactionJournal open(Bank bank) throws IOException {
+        TransactionJournal journal = new TransactionJournal(
+                bank, directory.getPath(), 64, 0);
+        journal.recover(accounts.getPath(), new Audit(new StringWriter()));
+        return journal;
+    }
+
+    /*
+     * Accounts file the bank writes, as lines.
+     */
+    private static List<String> written(Bank bank) throws IOException {
+        File out = File.createTempFile("accounts-out", ".csv");
+        out.deleteOnExit();
+        assertTrue(bank.writeAccounts(out.getPath()));
+        return Files.readAllLines(out.toPath());
+    }
+
+    /*
+     * Accounts file as written, followed by each account's new balance,
+     * which replaying the journal restores but the file does not hold.
+     */
+    private static List<String> replayed(Bank bank) throws IOException {
+        List<String> lines = written(bank);
+        for (Account account : bank.getAccounts()) {
+            lines.add(account.getID() + " " + account.getNewBalanceCents());
+        }
+        return lines;
+    }
+
+    /*
+     * Bank after applying the lines to the accounts in one uninterrupted
+     * run, without a journal. Bank's state is static, so its state is read
+     * before the bank under test is created.
+     */
+    private Bank uninterrupted(String... lines) throws IOException {
+        File file = File.createTempFile("transactions", ".csv");
+        file.deleteOnExit();
+        Files.writeString(file.toPath(), String.join("\n", lines) + "\n");
+        Bank bank = new Bank();
+        assertTrue(bank.loadAccounts(accounts.getPath()));
+        bank.processTransactionFile(file.getPath(), new Audit(new StringWriter()));
+        return bank;
+    }
+
+    /*
+     * Test confirms only executed transactions are journaled, and that a
+     * restart replays them to the balances of an uninterrupted run.
+     */
+    @Test
+    void recoverReplaysJournalTest() throws IOException {
+        List<String> expected = replayed(uninterrupted(
+                Files.readAllLines(transactions.toPath()).toArray(new String[0])));
+        Bank bank = new Bank();
+        TransactionJournal journal = open(bank);
+        bank.setJournal(journal);
+        assertEquals(2, bank.processTransactionFile(
+                transactions.getPath(), new Audit(new StringWriter())));
+        assertEquals(2, journal.getLastSequence());
+        journal.close(); // no checkpoint was taken
+
+        Bank restarted = new Bank();
+        TransactionJournal reopened = new TransactionJournal(
+                restarted, directory.getPath(), 64, 0);
+        StringWriter replayed = new StringWriter();
+        Audit audit = new Audit(replayed);
+        assertEquals(2, reopened.recover(accounts.getPath(), audit));
+        audit.close();
+        assertEquals(2, restarted.getCount());
+        assertTrue(replayed.toString().contains("deposit,wz240833,500.00"));
+        assertTrue(replayed.toString().contains("withdrawal,hr108256,15.18"));
+        assertEquals(2, reopened.getLastSequence());
+        assertEquals(861100, restarted.resolve("wz240833").getNewBalanceCents());
+        assertEquals(170000, restarted.resolve("hr108256").getNewBalanceCents());
+        assertEquals(expected, replayed(restarted));
+        reopened.close();
+    }
+
+    /*
+     * Test confirms records covered by a checkpoint are not replayed, and
+     * that numbering carries on after the checkpoint.
+     */
+    @Test
+    void checkpointTest() throws IOException {
+        // the checkpoint holds the accounts file, not the new balances
+        List<String> expected = written(uninterrupted(
+                Files.readAllLines(transactions.toPath()).toArray(new String[0])));
+        Bank bank = new Bank();
+        TransactionJournal journal = open(bank);
+        bank.setJournal(journal);
+        bank.processTransactionFile(
+                transactions.getPath(), new Audit(new StringWriter()));
+        journal.checkpoint();
+        assertEquals(2, journal.getCheckpointSequence());
+        assertTrue(new File(directory, "accounts-2.csv").exists());
+        assertEquals(0, new File(directory, "journal.log").length());
+        journal.close();
+
+        Bank restarted = new Bank();
+        TransactionJournal reopened = new TransactionJournal(
+                restarted, directory.getPath(), 64, 0);
+        // the initial accounts file is ignored once a checkpoint exists
+        assertEquals(0, reopened.recover(
+                "not/a/real.file", new Audit(new StringWriter())));
+        assertEquals(2, restarted.getCount());
+        assertEquals(expected, written(restarted));
+        assertEquals(3, reopened.record(
+                Transaction.make("deposit,hr108256,1.00")));
+        reopened.close();
+    }
+
+    /*
+     * Test confirms automatic checkpoints happen every checkpointEvery
+     * records.
+     */
+    @Test
+    void automaticCheckpointTest() throws IOException {
+        Bank bank = new Bank();
+        TransactionJournal journal = new TransactionJournal(
+                bank, directory.getPath(), 1, 2);
+        journal.recover(accounts.getPath(), new Audit(new StringWriter()));
+        bank.setJournal(journal);
+        bank.processTransactionFile(
+                transactions.getPath(), new Audit(new StringWriter()));
+        assertEquals(2, journal.getCheckpointSequence());
+        journal.close();
+    }
+
+    /*
+     * Test confirms a record cut short by a crash is dropped on recovery.
+     */
+    @Test
+    void tornRecordTest() throws IOException {
+        List<String> expected = replayed(
+                uninterrupted("deposit,wz240833,500.00"));
+        Bank bank = new Bank();
+        TransactionJournal journal = open(bank);
+        journal.record(Transaction.make("deposit,wz240833,500.00"));
+        journal.close();
+        try (FileWriter out = new FileWriter(
+                new File(directory, "journal.log"), true)) {
+            out.write("2,withdrawal,hr1082");
+        }
+
+        Bank restarted = new Bank();
+        TransactionJournal reopened = new TransactionJournal(
+                restarted, directory.getPath(), 64, 0);
+        assertEquals(1, reopened.recover(
+                accounts.getPath(), new Audit(new StringWriter())));
+        assertEquals(1, reopened.getLastSequence());
+        assertEquals(861100, restarted.resolve("wz240833").getNewBalanceCents());
+        assertEquals(expected, replayed(restarted));
+        reopened.close();
+        assertTrue(Files.readString(new File(directory, "journal.log").toPath())
+                .endsWith("500.00\n"));
+    }
+
+    /*
+     * Test confirms interest, which the journal does not record, survives
+     * a restart through the checkpoint the accrual takes.
+     */
+    @Test
+    void interestCheckpointTest() throws IOException {
+        Bank bank = new Bank();
+        TransactionJournal journal = open(bank);
+        bank.setJournal(journal);
+        bank.processTransactionFile(
+                transactions.getPath(), new Audit(new StringWriter()));
+        InterestAccrual job = new InterestAccrual();
+        job.setRate(AccountType.SAVINGS, 0.12);
+        assertEquals(8111, job.accrue(bank, new Audit(new StringWriter())));
+        assertEquals(2, journal.getCheckpointSequence());
+        journal.close();
+
+        Bank restarted = new Bank();
+        TransactionJournal reopened = new TransactionJournal(
+                restarted, directory.getPath(), 64, 0);
+        assertEquals(0, reopened.recover(
+                accounts.getPath(), new Audit(new StringWriter())));
+        reopened.close();
+        assertEquals(819211, restarted.resolve("wz240833").getCurrentBalanceCents());
+        assertEquals(171518, restarted.resolve("hr108256").getCurrentBalanceCents());
+    }
+
+    /*
+     * Test confirms a complete record that cannot be read stops recovery
+     * with an IOException naming its line, and leaves the journal as it
+     * was.
+     */
+    @Test
+    void corruptRecordTest() throws IOException {
+        String[] corrupt = {
+                "deposit,wz240833,1.00",
+                "x,deposit,wz240833,1.00",
+                "2,deposit,wz240833",
+                "2,transfer,wz240833,1.00",
+                "2,deposit,wz240833,1.0x" };
+        File file = new File(directory, "journal.log");
+        for (String record : corrupt) {
+            String journal = "1,deposit,wz240833,500.00\n" + record + "\n";
+            Files.writeString(file.toPath(), journal);
+            TransactionJournal reopened = new TransactionJournal(
+                    new Bank(), directory.getPath(), 64, 0);
+            IOException e = assertThrows(
+                    IOException.class,
+                    () -> {
+                        reopened.recover(
+                                accounts.getPath(), new Audit(new StringWriter()));
+                    });
+            assertTrue(e.getMessage().contains("line 2: " + record));
+            assertEquals(journal, Files.readString(file.toPath()));
+        }
+    }
+
+    /*
+     * Test confirms replayed withdrawals, which may be from an earlier day,
+     * are not counted against today's daily limit.
+     */
+    @Test
+    void replayIgnoresDailyLimitTest() throws IOException {
+        Bank bank = new Bank();
+        TransactionJournal journal = open(bank);
+        journal.record(Transaction.make("withdrawal,hr108256,15.18"));
+        journal.close();
+
+        DailyLimits.setLimitCents(AccountType.CHECKING, 2000);
+        try {
+            Bank restarted = new Bank();
+            TransactionJournal reopened = new TransactionJournal(
+                    restarted, directory.getPath(), 64, 0);
+            assertEquals(1, reopened.recover(
+                    accounts.getPath(), new Audit(new StringWriter())));
+            reopened.close();
+            Account checking = restarted.resolve("hr108256");
+            assertEquals(170000, checking.getNewBalanceCents());
+            assertEquals(0, checking.getWithdrawnTodayCents());
+        } finally {
+            DailyLimits.reset();
+        }
+    }
+
+    /*
+     * Test confirms invalid arguments are rejected.
+     */
+    @Test
+    void invalidArgumentsTest() {
+        Bank bank = new Bank();
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> {
+                    new TransactionJournal(null, directory.getPath(), 1, 0);
+                });
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> {
+                    new TransactionJournal(bank, directory.getPath(), 0, 0);
+                });
+    }
+
+} // end: class TransactionJournalTest
@@ -0,0 +1,120 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class TransactionParserTest {
+
+    private static TransactionParser parser(String text) {
+        return new TransactionParser(new ByteArrayInputStream(
+                text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /*
+     * Test confirms the parser fills the record for each line, skipping
+     * empty lines and accepting CRLF, any case and a missing last newline.
+     */
+    @Test
+    void parseLinesTest() throws IOException {
+        TransactionRecord record = new TransactionRecord();
+        try (TransactionParser in = parser(
+                "deposit,wz240833,500.00\r\n\nWITHDRAWAL,José,1.5,extra\nDeposit,id7,0.01")) {
+            assertTrue(in.next(record));
+            assertEquals(TransactionType.DEPOSIT, record.getType());
+            assertEquals(50000, record.getAmountCents());
+            assertEquals(AccountID.pack("wz240833"), record.getPackedID());
+            assertEquals("wz240833", record.getAccountNumber());
+
+            assertTrue(in.next(record));
+            assertEquals(TransactionType.WITHDRAWAL, record.getType());
+            assertEquals(150, record.getAmountCents());
+            assertEquals(AccountID.NOT_PACKED, record.getPackedID());
+            assertEquals("José", record.getAccountNumber());
+
+            assertTrue(in.next(record));
+            assertEquals("id7", record.getAccountNumber());
+            assertEquals(1, record.getAmountCents());
+            Transaction tx = record.toTransaction();
+            assertEquals(TransactionType.DEPOSIT, tx.getType());
+            assertEquals(0.01, tx.getAmount(), 1e-9);
+
+            assertEquals(false, in.next(record));
+            assertEquals(3, in.getLines());
+        }
+    }
+
+    /*
+     * Test confirms a line longer than the buffer is read whole.
+     */
+    @Test
+    void longLineTest() throws IOException {
+        String id = "x".repeat(200_000);
+        TransactionRecord record = new TransactionRecord();
+        try (TransactionParser in = parser(
+                "deposit,a,1.00\nwithdrawal," + id + ",2.00\ndeposit,b,3.00\n")) {
+            assertTrue(in.next(record));
+            assertTrue(in.next(record));
+            assertEquals(id, record.getAccountNumber());
+            assertTrue(in.next(record));
+            assertEquals("b", record.getAccountNumber());
+            assertEquals(false, in.next(record));
+        }
+    }
+
+    /*
+     * Test confirms malformed lines are rejected by the parser and by
+     * Transaction.make alike.
+     */
+    @Test
+    void malformedLinesTest() {
+        String[] lines = {
+                "transfer,id,1.00",
+                "deposit,id",
+                "deposits,id,1.00",
+                "deposit,id,0.00",
+                "withdrawal,id,1.0x" };
+        for (String line : lines) {
+            assertThrows(
+                    IllegalArgumentException.class,
+                    () -> parser(line).next(new TransactionRecord()));
+            assertThrows(
+                    IllegalArgumentException.class,
+                    () -> Transaction.make(line));
+        }
+        Exception e = assertThrows(
+                IllegalArgumentException.class,
+                () -> parser("transfer,id,1.00").next(new TransactionRecord()));
+        assertEquals("Invalid transaction type.", e.getMessage());
+    }
+
+    /*
+     * Test confirms the parser and Transaction.make agree on the sample
+     * transactions file.
+     */
+    @Test
+    void matchesMakeTest() throws IOException {
+        List<String> lines = Files.readAllLines(Path.of("data/transactions.csv"));
+        TransactionRecord record = new TransactionRecord();
+        try (TransactionParser in = new TransactionParser(
+                "data/transactions.csv")) {
+            for (String line : lines) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                assertTrue(in.next(record));
+                Transaction expected = Transaction.make(line);
+                assertEquals(expected.toCSV(), record.toTransaction().toCSV());
+            }
+            assertEquals(false, in.next(record));
+        }
+    }
+
+} // end: class TransactionParserTest
@@ -0,0 +1,149 @@
+package projects.bank;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TransactionPipelineTest {
+
+    private File audit;
+    private File accountsOut;
+
+    /*
+     * Setting up temporary output files for the pipeline.
+     */
+    @BeforeEach
+    void setup() throws IOException {
+        audit = File.createTempFile("audit", ".log");
+        audit.deleteOnExit();
+        accountsOut = File.createTempFile("accounts-out", ".csv");
+        accountsOut.deleteOnExit();
+    }
+
+    /*
+     * Test confirms the pipeline writes the same audit and accounts files
+     * as phase 3 run one step after the other, with batches and queues
+     * small enough that every stage has to wait.
+     */
+    @Test
+    void matchesSequentialTest() throws IOException {
+        // the reference run writes to temporary files too, not to data/
+        File expectedAuditFile = File.createTempFile("audit", ".log");
+        expectedAuditFile.deleteOnExit();
+        File expectedAccountsFile = File.createTempFile("accounts-out", ".csv");
+        expectedAccountsFile.deleteOnExit();
+        Bank bank = new Bank();
+        bank.loadAccounts("data/testAccounts.csv");
+        Audit sequential = new Audit(expectedAuditFile.getPath());
+        int expected = bank.processTransactionFile(
+                "data/testtransactions.csv", sequential);
+        sequential.close();
+        long count = bank.getStats().getTransactions();
+        bank.writeAccounts(expectedAccountsFile.getPath());
+        List<String> expectedAudit = Files.readAllLines(
+                expectedAuditFile.toPath());
+        List<String> expectedAccounts = Files.readAllLines(
+                expectedAccountsFile.toPath());
+
+        TransactionPipeline pipeline = new TransactionPipeline(new Bank(), 3, 2);
+        assertEquals(expected, pipeline.run(
+                "data/testAccounts.csv",
+                "data/testtransactions.csv",
+                audit.getPath(),
+                accountsOut.getPath()));
+        assertTrue(pipeline.isAccountsLoaded());
+        assertTrue(pipeline.isAccountsWritten());
+        assertEquals(expected, pipeline.getStats().getProcessed());
+
+        List<String> lines = Files.readAllLines(audit.toPath());
+        assertEquals(expectedAudit.size(), lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            // avoiding timestamps
+            assertEquals(
+                    withoutTimestamp(expectedAudit.get(i)),
+                    withoutTimestamp(lines.get(i)));
+        }
+        assertEquals(expectedAccounts, Files.readAllLines(accountsOut.toPath()));
+        String report = pipeline.toString();
+        assertTrue(report.contains("parse: " + count + " transactions"));
+        assertTrue(report.contains("write: " + count + " transactions"));
+    }
+
+    /*
+     * Test confirms a malformed transaction line stops every stage and is
+     * reported as in Bank.processTransactionFile.
+     */
+    @Test
+    void malformedLineTest() throws IOException {
+        File transactions = File.createTempFile("transactions", ".csv");
+        transactions.deleteOnExit();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            text.append("deposit,id").append(i).append(",1.00\n");
+        }
+        text.append("transfer,id1,1.00\n");
+        Files.writeString(transactions.toPath(), text);
+
+        TransactionPipeline pipeline = new TransactionPipeline(new Bank(), 4, 1);
+        Exception e = assertThrows(
+                IllegalArgumentException.class,
+                () -> pipeline.run(
+                        "data/testAccounts.csv",
+                        transactions.getPath(),
+                        audit.getPath(),
+                        accountsOut.getPath()));
+        assertEquals("Invalid transaction type.", e.getMessage());
+    }
+
+    /*
+     * Test confirms an interrupted run stops its stages and reports the
+     * interrupt instead of returning a partial count.
+     */
+    @Test
+    void interruptedTest() {
+        TransactionPipeline pipeline = new TransactionPipeline(new Bank(), 3, 2);
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(
+                    InterruptedIOException.class,
+                    () -> pipeline.run(
+                            "data/testAccounts.csv",
+                            "data/testtransactions.csv",
+                            audit.getPath(),
+                            accountsOut.getPath()));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted(); // clear it for the next tests
+        }
+    }
+
+    /*
+     * Test confirms the constructor and run reject missing arguments.
+     */
+    @Test
+    void dataValidationTest() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new TransactionPipeline(null));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new TransactionPipeline(new Bank(), 0, 1));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new TransactionPipeline(new Bank()).run(
+                        "data/testAccounts.csv", null, "a.log", "b.csv"));
+    }
+
+    private static String withoutTimestamp(String line) {
+        return line.substring(line.indexOf(' ') + 1);
+    }
+
+} // end: class TransactionPipelineTest